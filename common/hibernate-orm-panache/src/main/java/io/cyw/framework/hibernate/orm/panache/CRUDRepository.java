@@ -1,4 +1,364 @@
 package io.cyw.framework.hibernate.orm.panache;
 
-public class CRUDRepository {
+import io.cyw.framework.utils.Assert;
+import io.cyw.framework.utils.ReflectionUtils;
+import io.cyw.framework.utils.TypeReflectionUtils;
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.annotations.QueryHints;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Base class of repositories of one type of entity, adding operations for large amounts of entities to the operations
+ * of a {@link PanacheRepositoryBase}:
+ * <ul>
+ * <li>inserts and updates that flush and clear the persistence context after every batch of entities, so that the
+ * statements of a batch are sent in a single JDBC batch and the persistence context does not grow with the number of
+ * entities. JDBC batching must be enabled with {@code quarkus.hibernate-orm.jdbc.statement-batch-size};</li>
+ * <li>bulk updates and deletes, executed as a single JPQL statement without loading the entities;</li>
+ * <li>keyset pagination by id, of which the cost of a page does not grow with its position;</li>
+ * <li>streams read through a {@link StatelessSession} with a JDBC fetch size, which keep only the rows of the current
+ * fetch in memory;</li>
+ * <li>read-only queries, of which Hibernate does not keep a snapshot of the entities for dirty checking.</li>
+ * </ul>
+ * In the JPQL clauses passed to these operations, the entity is referred to as {@code e}. The type of the entity is
+ * resolved from the type parameters of the subclass.
+ *
+ * @param <Entity> the type of the entity
+ * @param <Id>     the type of the id of the entity
+ */
+public abstract class CRUDRepository<Entity, Id> implements PanacheRepositoryBase<Entity, Id> {
+
+    /**
+     * The default number of entities written per batch.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 50;
+
+    /**
+     * The default number of rows fetched from the database at once by streams.
+     */
+    public static final int DEFAULT_FETCH_SIZE = 500;
+
+    /**
+     * The maximum number of values in a single {@code IN} list accepted by every supported database.
+     */
+    protected static final int MAX_IN_LIST_SIZE = 1000;
+
+    private final Class<Entity> entityClass;
+
+    private final String entityName;
+
+    private final String idAttribute;
+
+    @Inject
+    private SessionFactory sessionFactory;
+
+    @SuppressWarnings("unchecked")
+    protected CRUDRepository() {
+        Type repositoryType = TypeReflectionUtils.getExactSuperType(getClass(), CRUDRepository.class);
+        Assert.isTrue(repositoryType instanceof ParameterizedType,
+                      () -> getClass().getName() + " must declare the entity type of the CRUDRepository");
+        Type entityType = ((ParameterizedType) repositoryType).getActualTypeArguments()[0];
+        Assert.isTrue(entityType instanceof Class,
+                      () -> getClass().getName() + " must declare a concrete entity type");
+        this.entityClass = (Class<Entity>) entityType;
+        javax.persistence.Entity entity = entityClass.getAnnotation(javax.persistence.Entity.class);
+        this.entityName = entity == null || entity.name().isEmpty() ? entityClass.getSimpleName() : entity.name();
+        this.idAttribute = idAttributeOf(entityClass);
+    }
+
+    private static String idAttributeOf(Class<?> entityClass) {
+        for (Field field : ReflectionUtils.fieldsOf(entityClass)) {
+            if (field.isAnnotationPresent(javax.persistence.Id.class)) {
+                return field.getName();
+            }
+        }
+        throw new IllegalArgumentException("Entity " + entityClass.getName() + " has no field annotated with @Id");
+    }
+
+    /**
+     * Splits the given {@code values} into lists of at most {@link #MAX_IN_LIST_SIZE} distinct values, each of which
+     * can be bound to an {@code IN} list.
+     *
+     * @param values the values to split
+     * @param <T>    the type of the values
+     * @return the chunks of the distinct values, in the order of the given values
+     */
+    protected static <T> List<List<T>> inListChunks(Collection<T> values) {
+        if (values.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<T> distinct = new ArrayList<>(new LinkedHashSet<>(values));
+        List<List<T>> chunks = new ArrayList<>(distinct.size() / MAX_IN_LIST_SIZE + 1);
+        for (int from = 0; from < distinct.size(); from += MAX_IN_LIST_SIZE) {
+            chunks.add(distinct.subList(from, Math.min(distinct.size(), from + MAX_IN_LIST_SIZE)));
+        }
+        return chunks;
+    }
+
+    /**
+     * Returns the number of entities written per batch by {@link #persistInBatches(Iterable)} and
+     * {@link #mergeInBatches(Iterable)}. Defaults to {@link #DEFAULT_BATCH_SIZE}, and should match the JDBC statement
+     * batch size.
+     *
+     * @return the number of entities per batch
+     */
+    protected int getBatchSize() {
+        return DEFAULT_BATCH_SIZE;
+    }
+
+    /**
+     * Persists the given {@code entities} in batches of {@link #getBatchSize()} entities.
+     *
+     * @param entities the entities to persist
+     * @see #persistInBatches(Iterable, int)
+     */
+    public void persistInBatches(Iterable<Entity> entities) {
+        persistInBatches(entities, getBatchSize());
+    }
+
+    /**
+     * Persists the given {@code entities}, flushing and clearing the persistence context after every
+     * {@code batchSize} entities. All entities managed by the persistence context, including the given ones, are
+     * detached when this method returns.
+     *
+     * @param entities  the entities to persist
+     * @param batchSize the number of entities per batch
+     */
+    public void persistInBatches(Iterable<Entity> entities, int batchSize) {
+        Assert.isTrue(batchSize > 0, () -> "The batchSize must be positive");
+        EntityManager entityManager = getEntityManager();
+        int count = 0;
+        for (Entity entity : entities) {
+            entityManager.persist(entity);
+            if (++count % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /**
+     * Merges the given {@code entities} in batches of {@link #getBatchSize()} entities.
+     *
+     * @param entities the entities to merge
+     * @return the merged entities
+     * @see #mergeInBatches(Iterable, int)
+     */
+    public List<Entity> mergeInBatches(Iterable<Entity> entities) {
+        return mergeInBatches(entities, getBatchSize());
+    }
+
+    /**
+     * Merges the state of the given {@code entities} into the database, flushing and clearing the persistence context
+     * after every {@code batchSize} entities. The returned entities are detached.
+     *
+     * @param entities  the entities to merge
+     * @param batchSize the number of entities per batch
+     * @return the merged entities, in the order of the given entities
+     */
+    public List<Entity> mergeInBatches(Iterable<Entity> entities, int batchSize) {
+        Assert.isTrue(batchSize > 0, () -> "The batchSize must be positive");
+        EntityManager entityManager = getEntityManager();
+        List<Entity> merged = new ArrayList<>();
+        for (Entity entity : entities) {
+            merged.add(entityManager.merge(entity));
+            if (merged.size() % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return merged;
+    }
+
+    /**
+     * Updates all entities matching the given {@code whereClause} with a single JPQL statement, for example
+     * {@code updateWhere("e.label = :label", "e.tableRrn = :tableRrn", parameters)}. Entities that are managed by the
+     * persistence context are not updated, the persistence context should be cleared before they are used again.
+     *
+     * @param setClause   the assignments, without {@code set}
+     * @param whereClause the condition of the entities to update, without {@code where}
+     * @param parameters  the named parameters of both clauses
+     * @return the number of updated entities
+     */
+    public int updateWhere(String setClause, String whereClause, Map<String, ?> parameters) {
+        return executeBulk("update " + entityName + " e set " + setClause + " where " + whereClause, parameters);
+    }
+
+    /**
+     * Deletes all entities matching the given {@code whereClause} with a single JPQL statement. Cascades and entity
+     * listeners are not applied.
+     *
+     * @param whereClause the condition of the entities to delete, without {@code where}
+     * @param parameters  the named parameters of the clause
+     * @return the number of deleted entities
+     */
+    public int deleteWhere(String whereClause, Map<String, ?> parameters) {
+        return executeBulk("delete from " + entityName + " e where " + whereClause, parameters);
+    }
+
+    /**
+     * Deletes the entities with the given {@code ids}, with a statement per {@link #MAX_IN_LIST_SIZE} ids. Cascades
+     * and entity listeners are not applied.
+     *
+     * @param ids the ids of the entities to delete
+     * @return the number of deleted entities
+     */
+    public int deleteByIds(Collection<Id> ids) {
+        int deleted = 0;
+        for (List<Id> chunk : inListChunks(ids)) {
+            deleted += deleteWhere("e." + idAttribute + " in :ids", Collections.singletonMap("ids", chunk));
+        }
+        return deleted;
+    }
+
+    private int executeBulk(String jpql, Map<String, ?> parameters) {
+        Query query = getEntityManager().createQuery(jpql);
+        parameters.forEach(query::setParameter);
+        return query.executeUpdate();
+    }
+
+    /**
+     * Returns the first {@code pageSize} entities ordered by id, of which the id is greater than {@code lastId}.
+     *
+     * @param lastId   the id of the last entity of the previous page, or {@code null} for the first page
+     * @param pageSize the maximum number of entities of the page
+     * @return the entities of the page
+     * @see #findPageAfter(String, Map, Object, int, boolean)
+     */
+    public List<Entity> findPageAfter(Id lastId, int pageSize) {
+        return findPageAfter(null, Collections.emptyMap(), lastId, pageSize, false);
+    }
+
+    /**
+     * Returns the first {@code pageSize} entities matching the given {@code whereClause} ordered by id, of which the id
+     * is greater than {@code lastId}. The next page starts after the id of the last entity of this page, so that the
+     * database seeks to the page through the primary key index instead of skipping the entities of all previous pages,
+     * and entities inserted or deleted concurrently do not shift the pages.
+     *
+     * @param whereClause the condition of the entities, without {@code where}, or {@code null} for all entities
+     * @param parameters  the named parameters of the clause
+     * @param lastId      the id of the last entity of the previous page, or {@code null} for the first page
+     * @param pageSize    the maximum number of entities of the page
+     * @param readOnly    whether the entities are loaded read-only
+     * @return the entities of the page
+     */
+    public List<Entity> findPageAfter(String whereClause, Map<String, ?> parameters, Id lastId, int pageSize,
+                                      boolean readOnly) {
+        Assert.isTrue(pageSize > 0, () -> "The pageSize must be positive");
+        StringBuilder jpql = new StringBuilder("from ").append(entityName).append(" e");
+        String separator = " where ";
+        if (whereClause != null) {
+            jpql.append(separator).append('(').append(whereClause).append(')');
+            separator = " and ";
+        }
+        if (lastId != null) {
+            jpql.append(separator).append("e.").append(idAttribute).append(" > :lastId");
+        }
+        jpql.append(" order by e.").append(idAttribute);
+        TypedQuery<Entity> query = createQuery(jpql.toString(), entityClass, readOnly);
+        parameters.forEach(query::setParameter);
+        if (lastId != null) {
+            query.setParameter("lastId", lastId);
+        }
+        return query.setMaxResults(pageSize).getResultList();
+    }
+
+    /**
+     * Streams all entities ordered by id.
+     *
+     * @return the entities, the stream must be closed
+     * @see #stream(String, Map, int)
+     */
+    public Stream<Entity> streamAll() {
+        return stream(null, Collections.emptyMap(), DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Streams the entities matching the given {@code whereClause} ordered by id, through a {@link StatelessSession}
+     * that fetches {@code fetchSize} rows at once. The entities are not managed, and their lazy associations cannot be
+     * loaded. The stream holds a database connection until it is closed. PostgreSQL only honours the fetch size inside
+     * a transaction.
+     *
+     * @param whereClause the condition of the entities, without {@code where}, or {@code null} for all entities
+     * @param parameters  the named parameters of the clause
+     * @param fetchSize   the number of rows to fetch at once
+     * @return the entities, the stream must be closed
+     */
+    public Stream<Entity> stream(String whereClause, Map<String, ?> parameters, int fetchSize) {
+        String jpql = "from " + entityName + " e"
+                + (whereClause == null ? "" : " where " + whereClause)
+                + " order by e." + idAttribute;
+        return streamStateless(jpql, entityClass, parameters, fetchSize);
+    }
+
+    /**
+     * Streams the results of the given {@code jpql} query through a {@link StatelessSession}, that is closed when the
+     * stream is closed.
+     *
+     * @param jpql       the query
+     * @param resultType the type of the results
+     * @param parameters the named parameters of the query
+     * @param fetchSize  the number of rows to fetch at once
+     * @param <T>        the type of the results
+     * @return the results, the stream must be closed
+     */
+    protected <T> Stream<T> streamStateless(String jpql, Class<T> resultType, Map<String, ?> parameters,
+                                            int fetchSize) {
+        StatelessSession session = sessionFactory.openStatelessSession();
+        try {
+            org.hibernate.query.Query<T> query = session.createQuery(jpql, resultType);
+            parameters.forEach(query::setParameter);
+            return query.setFetchSize(fetchSize)
+                    .stream()
+                    .onClose(session::close);
+        } catch (RuntimeException e) {
+            session.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a query on the entity manager of this repository.
+     *
+     * @param jpql       the query
+     * @param resultType the type of the results
+     * @param readOnly   whether the entities are loaded read-only, so that Hibernate does not keep a snapshot of them
+     *                   for dirty checking
+     * @param <T>        the type of the results
+     * @return the query
+     */
+    protected <T> TypedQuery<T> createQuery(String jpql, Class<T> resultType, boolean readOnly) {
+        TypedQuery<T> query = getEntityManager().createQuery(jpql, resultType);
+        return readOnly ? query.setHint(QueryHints.READ_ONLY, true) : query;
+    }
+
+    /**
+     * Returns the type of the entity of this repository.
+     *
+     * @return the type of the entity
+     */
+    public Class<Entity> getEntityClass() {
+        return entityClass;
+    }
+
 }
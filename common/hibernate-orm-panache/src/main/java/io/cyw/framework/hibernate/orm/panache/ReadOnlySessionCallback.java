@@ -0,0 +1,29 @@
+package io.cyw.framework.hibernate.orm.panache;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+
+/**
+ * Applies the read-only hint of a transaction to its Hibernate session: entities are loaded read-only, so that
+ * Hibernate does not keep a snapshot of them for dirty checking, and the session is never flushed, neither before a
+ * query nor at commit. To be invoked on the thread of a transaction right after it began, e.g. as read-only callback
+ * of the {@code io.cyw.framework.common.transaction.JtaTransactionManager}.
+ */
+@ApplicationScoped
+public class ReadOnlySessionCallback implements Runnable {
+
+    @Inject
+    private EntityManager entityManager;
+
+    @Override
+    public void run() {
+        Session session = entityManager.unwrap(Session.class);
+        session.setDefaultReadOnly(true);
+        session.setHibernateFlushMode(FlushMode.MANUAL);
+    }
+
+}
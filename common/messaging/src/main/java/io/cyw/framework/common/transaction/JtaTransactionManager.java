@@ -0,0 +1,236 @@
+package io.cyw.framework.common.transaction;
+
+import io.cyw.framework.utils.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.transaction.HeuristicMixedException;
+import javax.transaction.HeuristicRollbackException;
+import javax.transaction.NotSupportedException;
+import javax.transaction.RollbackException;
+import javax.transaction.Status;
+import javax.transaction.SystemException;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+/**
+ * TransactionManager implementation that manages transactions through a JTA
+ * {@link javax.transaction.TransactionManager}, such as the Narayana transaction manager provided by Quarkus.
+ * <p>
+ * When a JTA transaction is already active on the current thread, the returned {@link Transaction} joins it instead
+ * of starting a new one. Committing a joined transaction does nothing, as the transaction is completed by whoever
+ * started it, and rolling it back marks it for rollback only. Only a transaction started by this manager is actually
+ * committed or rolled back. This avoids a begin/commit round-trip for every nested unit of work or handler.
+ * <p>
+ * JTA has no notion of a read-only transaction, so the read-only hint only takes effect on the resources the
+ * transaction uses. Right after a transaction is started with the hint, the configured {@link
+ * Builder#readOnlyCallback(Runnable) read-only callback} is invoked to apply it to them, e.g. to stop flushing the
+ * Hibernate session of the transaction. When a {@link TransactionSynchronizationRegistry} is configured, the
+ * transaction is also marked with the {@link #READ_ONLY_RESOURCE} resource, which can be checked through {@link
+ * #isReadOnly()} by other components that can avoid work for read-only transactions.
+ * <p>
+ * As JTA transactions are bound to a thread, the returned Transaction must be committed or rolled back on the thread
+ * that started it.
+ */
+public class JtaTransactionManager implements TransactionManager {
+
+    /**
+     * The key of the transaction resource that marks a JTA transaction as read-only.
+     */
+    public static final String READ_ONLY_RESOURCE = JtaTransactionManager.class.getName() + ".readOnly";
+
+    private static final Logger logger = LoggerFactory.getLogger(JtaTransactionManager.class);
+
+    private final javax.transaction.TransactionManager transactionManager;
+
+    private final TransactionSynchronizationRegistry synchronizationRegistry;
+
+    private final Runnable readOnlyCallback;
+
+    private final Transaction participatingTransaction = new ParticipatingTransaction();
+
+    public JtaTransactionManager(Builder builder) {
+        builder.validate();
+        this.transactionManager = builder.transactionManager;
+        this.synchronizationRegistry = builder.synchronizationRegistry;
+        this.readOnlyCallback = builder.readOnlyCallback;
+    }
+
+    @Override
+    public Transaction startTransaction() {
+        return startTransaction(false);
+    }
+
+    @Override
+    public Transaction startTransaction(boolean readOnly) {
+        int status = status();
+        switch (status) {
+            case Status.STATUS_NO_TRANSACTION:
+                begin();
+                OwnedTransaction transaction = new OwnedTransaction();
+                if (readOnly) {
+                    try {
+                        markReadOnly();
+                    } catch (RuntimeException e) {
+                        transaction.rollback();
+                        throw e;
+                    }
+                }
+                return transaction;
+            case Status.STATUS_ACTIVE:
+            case Status.STATUS_MARKED_ROLLBACK:
+                logger.debug("Joining the active JTA transaction");
+                return participatingTransaction;
+            default:
+                throw new TransactionException(
+                        "Cannot start a transaction while the current transaction is completing (status " + status
+                                + ")");
+        }
+    }
+
+    /**
+     * Indicates whether the JTA transaction active on the current thread was started with the read-only hint. Always
+     * returns {@code false} when no {@link TransactionSynchronizationRegistry} is configured.
+     *
+     * @return {@code true} if the current transaction is read-only, otherwise {@code false}
+     */
+    public boolean isReadOnly() {
+        return synchronizationRegistry != null
+                && synchronizationRegistry.getTransactionKey() != null
+                && Boolean.TRUE.equals(synchronizationRegistry.getResource(READ_ONLY_RESOURCE));
+    }
+
+    private void markReadOnly() {
+        if (synchronizationRegistry != null) {
+            synchronizationRegistry.putResource(READ_ONLY_RESOURCE, Boolean.TRUE);
+        }
+        if (readOnlyCallback != null) {
+            readOnlyCallback.run();
+        }
+    }
+
+    private int status() {
+        try {
+            return transactionManager.getStatus();
+        } catch (SystemException e) {
+            throw new TransactionException("Unable to read the status of the current transaction", e);
+        }
+    }
+
+    private void begin() {
+        try {
+            transactionManager.begin();
+        } catch (NotSupportedException | SystemException e) {
+            throw new TransactionException("Unable to start a transaction", e);
+        }
+    }
+
+    private final class OwnedTransaction implements Transaction {
+
+        @Override
+        public void commit() {
+            try {
+                if (transactionManager.getStatus() == Status.STATUS_MARKED_ROLLBACK) {
+                    transactionManager.rollback();
+                    throw new TransactionException("Transaction was rolled back because it was marked rollback-only");
+                }
+                transactionManager.commit();
+            } catch (RollbackException e) {
+                throw new TransactionException("Transaction was rolled back while committing", e);
+            } catch (HeuristicMixedException | HeuristicRollbackException | SystemException e) {
+                throw new TransactionException("Unable to commit the transaction", e);
+            }
+        }
+
+        @Override
+        public void rollback() {
+            try {
+                if (transactionManager.getStatus() != Status.STATUS_NO_TRANSACTION) {
+                    transactionManager.rollback();
+                }
+            } catch (SystemException e) {
+                throw new TransactionException("Unable to roll back the transaction", e);
+            }
+        }
+    }
+
+    private final class ParticipatingTransaction implements Transaction {
+
+        @Override
+        public void commit() {
+            // the transaction is completed by the party that started it
+        }
+
+        @Override
+        public void rollback() {
+            try {
+                if (transactionManager.getStatus() == Status.STATUS_ACTIVE) {
+                    transactionManager.setRollbackOnly();
+                }
+            } catch (SystemException e) {
+                throw new TransactionException("Unable to mark the transaction for rollback", e);
+            }
+        }
+    }
+
+    public static class Builder {
+
+        private javax.transaction.TransactionManager transactionManager;
+
+        private TransactionSynchronizationRegistry synchronizationRegistry;
+
+        private Runnable readOnlyCallback;
+
+        /**
+         * Sets the JTA {@link javax.transaction.TransactionManager} used to begin, commit and roll back
+         * transactions.
+         *
+         * @param transactionManager the JTA transaction manager to delegate to
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder transactionManager(javax.transaction.TransactionManager transactionManager) {
+            Assert.nonNull(transactionManager, () -> "TransactionManager may not be null");
+            this.transactionManager = transactionManager;
+            return this;
+        }
+
+        /**
+         * Sets the {@link TransactionSynchronizationRegistry} used to mark transactions as read-only. When not set,
+         * {@link JtaTransactionManager#isReadOnly()} always returns {@code false}.
+         *
+         * @param synchronizationRegistry the registry of the JTA transaction manager
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder synchronizationRegistry(TransactionSynchronizationRegistry synchronizationRegistry) {
+            this.synchronizationRegistry = synchronizationRegistry;
+            return this;
+        }
+
+        /**
+         * Sets the callback that applies the read-only hint to the resources of a transaction, invoked on the thread
+         * of the transaction right after a transaction is started with the hint, e.g. {@code
+         * io.cyw.framework.hibernate.orm.panache.ReadOnlySessionCallback}. When it throws, the transaction is rolled
+         * back. When not set, the read-only hint only marks the transaction, see {@link
+         * #synchronizationRegistry(TransactionSynchronizationRegistry)}.
+         *
+         * @param readOnlyCallback the callback applying the read-only hint
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder readOnlyCallback(Runnable readOnlyCallback) {
+            this.readOnlyCallback = readOnlyCallback;
+            return this;
+        }
+
+        /**
+         * Validate whether the fields contained in this Builder as set accordingly.
+         */
+        protected void validate() {
+            Assert.nonNull(transactionManager, () -> "The TransactionManager is a hard requirement and should be provided");
+        }
+
+        public JtaTransactionManager build() {
+            return new JtaTransactionManager(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,250 @@
+package io.cyw.framework.common.transaction;
+
+import javax.transaction.HeuristicMixedException;
+import javax.transaction.HeuristicRollbackException;
+import javax.transaction.InvalidTransactionException;
+import javax.transaction.NotSupportedException;
+import javax.transaction.RollbackException;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.SystemException;
+import javax.transaction.Transaction;
+import javax.transaction.TransactionManager;
+import javax.transaction.TransactionSynchronizationRegistry;
+import javax.transaction.xa.XAResource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory implementation of the JTA {@link TransactionManager} and {@link TransactionSynchronizationRegistry}
+ * contracts, to be used with the {@link JtaTransactionManager} where no platform transaction manager is available,
+ * e.g. in tests.
+ * <p>
+ * Transactions are bound to the thread that began them. Synchronizations and transaction resources are supported,
+ * enlisted {@link XAResource XAResources} are accepted but not driven through a two-phase commit. The number of
+ * begun, committed and rolled back transactions is counted, so that callers can verify how many transactions their
+ * code actually required.
+ */
+public class LocalJtaTransactionManager implements TransactionManager, TransactionSynchronizationRegistry {
+
+    private final ThreadLocal<LocalTransaction> current = new ThreadLocal<>();
+
+    private final AtomicLong begun = new AtomicLong();
+
+    private final AtomicLong committed = new AtomicLong();
+
+    private final AtomicLong rolledBack = new AtomicLong();
+
+    @Override
+    public void begin() throws NotSupportedException {
+        if (current.get() != null) {
+            throw new NotSupportedException("Nested transactions are not supported");
+        }
+        current.set(new LocalTransaction());
+        begun.incrementAndGet();
+    }
+
+    @Override
+    public void commit() throws RollbackException, HeuristicMixedException, HeuristicRollbackException,
+            SystemException {
+        requireTransaction().commit();
+    }
+
+    @Override
+    public void rollback() throws SystemException {
+        requireTransaction().rollback();
+    }
+
+    @Override
+    public int getStatus() {
+        LocalTransaction transaction = current.get();
+        return transaction == null ? Status.STATUS_NO_TRANSACTION : transaction.status;
+    }
+
+    @Override
+    public Transaction getTransaction() {
+        return current.get();
+    }
+
+    @Override
+    public void resume(Transaction transaction) throws InvalidTransactionException {
+        if (transaction != null && !(transaction instanceof LocalTransaction)) {
+            throw new InvalidTransactionException("Transaction was not created by this transaction manager");
+        }
+        if (current.get() != null) {
+            throw new IllegalStateException("A transaction is already associated with the current thread");
+        }
+        current.set((LocalTransaction) transaction);
+    }
+
+    @Override
+    public void setRollbackOnly() {
+        requireTransaction().setRollbackOnly();
+    }
+
+    @Override
+    public void setTransactionTimeout(int seconds) {
+        // transactions of this manager do not time out
+    }
+
+    @Override
+    public Transaction suspend() {
+        LocalTransaction transaction = current.get();
+        current.remove();
+        return transaction;
+    }
+
+    @Override
+    public Object getTransactionKey() {
+        return current.get();
+    }
+
+    @Override
+    public void putResource(Object key, Object value) {
+        requireTransaction().resources.put(key, value);
+    }
+
+    @Override
+    public Object getResource(Object key) {
+        return requireTransaction().resources.get(key);
+    }
+
+    @Override
+    public void registerInterposedSynchronization(Synchronization synchronization) {
+        requireTransaction().interposedSynchronizations.add(synchronization);
+    }
+
+    @Override
+    public int getTransactionStatus() {
+        return getStatus();
+    }
+
+    @Override
+    public boolean getRollbackOnly() {
+        return requireTransaction().status == Status.STATUS_MARKED_ROLLBACK;
+    }
+
+    /**
+     * Returns the number of transactions begun by this transaction manager.
+     *
+     * @return the number of begun transactions
+     */
+    public long beginCount() {
+        return begun.get();
+    }
+
+    /**
+     * Returns the number of transactions committed by this transaction manager.
+     *
+     * @return the number of committed transactions
+     */
+    public long commitCount() {
+        return committed.get();
+    }
+
+    /**
+     * Returns the number of transactions rolled back by this transaction manager.
+     *
+     * @return the number of rolled back transactions
+     */
+    public long rollbackCount() {
+        return rolledBack.get();
+    }
+
+    private LocalTransaction requireTransaction() {
+        LocalTransaction transaction = current.get();
+        if (transaction == null) {
+            throw new IllegalStateException("No transaction is associated with the current thread");
+        }
+        return transaction;
+    }
+
+    private final class LocalTransaction implements Transaction {
+
+        private final List<Synchronization> synchronizations = new ArrayList<>();
+
+        private final List<Synchronization> interposedSynchronizations = new ArrayList<>();
+
+        private final Map<Object, Object> resources = new HashMap<>();
+
+        private int status = Status.STATUS_ACTIVE;
+
+        @Override
+        public void commit() throws RollbackException {
+            requireActive();
+            if (status == Status.STATUS_ACTIVE) {
+                try {
+                    synchronizations.forEach(Synchronization::beforeCompletion);
+                    interposedSynchronizations.forEach(Synchronization::beforeCompletion);
+                } catch (RuntimeException e) {
+                    status = Status.STATUS_MARKED_ROLLBACK;
+                }
+            }
+            if (status == Status.STATUS_MARKED_ROLLBACK) {
+                complete(Status.STATUS_ROLLEDBACK);
+                rolledBack.incrementAndGet();
+                throw new RollbackException("Transaction was marked for rollback only");
+            }
+            complete(Status.STATUS_COMMITTED);
+            committed.incrementAndGet();
+        }
+
+        @Override
+        public void rollback() {
+            requireActive();
+            complete(Status.STATUS_ROLLEDBACK);
+            rolledBack.incrementAndGet();
+        }
+
+        @Override
+        public void setRollbackOnly() {
+            requireActive();
+            status = Status.STATUS_MARKED_ROLLBACK;
+        }
+
+        @Override
+        public int getStatus() {
+            return status;
+        }
+
+        @Override
+        public boolean enlistResource(XAResource xaResource) {
+            requireActive();
+            return true;
+        }
+
+        @Override
+        public boolean delistResource(XAResource xaResource, int flag) {
+            requireActive();
+            return true;
+        }
+
+        @Override
+        public void registerSynchronization(Synchronization synchronization) throws RollbackException {
+            requireActive();
+            if (status == Status.STATUS_MARKED_ROLLBACK) {
+                throw new RollbackException("Transaction is marked for rollback only");
+            }
+            synchronizations.add(synchronization);
+        }
+
+        private void requireActive() {
+            if (status != Status.STATUS_ACTIVE && status != Status.STATUS_MARKED_ROLLBACK) {
+                throw new IllegalStateException("Transaction has already completed");
+            }
+        }
+
+        private void complete(int outcome) {
+            status = outcome;
+            if (current.get() == this) {
+                current.remove();
+            }
+            interposedSynchronizations.forEach(s -> s.afterCompletion(outcome));
+            synchronizations.forEach(s -> s.afterCompletion(outcome));
+        }
+    }
+
+}
@@ -0,0 +1,32 @@
+package io.cyw.framework.common.transaction;
+
+import io.cyw.framework.core.exception.SystemIllegalException;
+
+/**
+ * Exception indicating that a transaction could not be started, committed or rolled back by the underlying
+ * transaction system.
+ */
+public class TransactionException extends SystemIllegalException {
+
+    private static final long serialVersionUID = 5823079530217414619L;
+
+    /**
+     * Initializes the exception using the given {@code message}.
+     *
+     * @param message The message describing the exception
+     */
+    public TransactionException(String message) {
+        super(message);
+    }
+
+    /**
+     * Initializes the exception using the given {@code message} and {@code cause}.
+     *
+     * @param message The message describing the exception
+     * @param cause   The underlying cause of the exception
+     */
+    public TransactionException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
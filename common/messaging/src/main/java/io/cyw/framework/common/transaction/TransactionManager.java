@@ -35,6 +35,21 @@ public interface TransactionManager {
      */
     Transaction startTransaction();
 
+    /**
+     * Starts a transaction, indicating whether the work done in it only reads data. A read-only transaction allows
+     * the underlying resources to skip work that is only required when data is modified, such as flushing pending
+     * changes before a query or at commit.
+     * <p>
+     * The read-only flag is a hint. Implementations that cannot make use of it start a regular transaction, which is
+     * what the default implementation does.
+     *
+     * @param readOnly whether the transaction will only be used to read data
+     * @return The object representing the transaction
+     */
+    default Transaction startTransaction(boolean readOnly) {
+        return startTransaction();
+    }
+
     /**
      * Executes the given {@code task} in a new {@link Transaction}. The transaction is committed when the task
      * completes normally, and rolled back when it throws an exception.
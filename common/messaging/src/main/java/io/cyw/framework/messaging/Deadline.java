@@ -0,0 +1,116 @@
+package io.cyw.framework.messaging;
+
+import io.cyw.framework.utils.ObjectUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.OptionalLong;
+
+/**
+ * Utility methods for the deadline of a message, carried in the {@link #META_DATA_KEY} meta data entry of the message
+ * as the number of milliseconds since the epoch. As the deadline is an absolute wall clock time, it remains meaningful
+ * when the message is sent to another JVM, provided the clocks of the nodes are synchronized.
+ * <p>
+ * Components dispatching a message do not dispatch it anymore once its deadline has passed, and handlers can check
+ * the deadline through the {@link io.cyw.framework.messaging.unitofwork.UnitOfWork} to stop working on a result
+ * nobody is waiting for anymore.
+ */
+public abstract class Deadline {
+
+    /**
+     * The key of the meta data entry holding the deadline of a message, in milliseconds since the epoch.
+     */
+    public static final String META_DATA_KEY = "deadline";
+
+    private Deadline() {
+        // prevent instantiation
+    }
+
+    /**
+     * Returns the meta data declaring a deadline the given {@code timeout} from now.
+     *
+     * @param timeout the time after which the deadline passes
+     * @return the meta data declaring the deadline
+     */
+    public static MetaData after(Duration timeout) {
+        return at(Instant.now().plus(timeout));
+    }
+
+    /**
+     * Returns the meta data declaring a deadline at the given {@code instant}.
+     *
+     * @param instant the moment the deadline passes
+     * @return the meta data declaring the deadline
+     */
+    public static MetaData at(Instant instant) {
+        return MetaData.with(META_DATA_KEY, instant.toEpochMilli());
+    }
+
+    /**
+     * Returns the deadline of the given {@code message}, in milliseconds since the epoch.
+     *
+     * @param message the message to return the deadline of
+     * @return the deadline of the message, or an empty OptionalLong if the message does not declare one
+     */
+    public static OptionalLong of(Message<?> message) {
+        Object value = message.getMetaData().get(META_DATA_KEY);
+        if (value instanceof Number) {
+            return OptionalLong.of(((Number) value).longValue());
+        }
+        if (value != null) {
+            try {
+                return OptionalLong.of(Long.parseLong(value.toString()));
+            } catch (NumberFormatException e) {
+                return OptionalLong.empty();
+            }
+        }
+        return OptionalLong.empty();
+    }
+
+    /**
+     * Returns the number of milliseconds left until the deadline of the given {@code message} passes.
+     *
+     * @param message the message to return the remaining time of
+     * @return the remaining milliseconds, {@code 0} if the deadline passed, or {@link Long#MAX_VALUE} if the message
+     * does not declare a deadline
+     */
+    public static long remainingMillis(Message<?> message) {
+        OptionalLong deadline = of(message);
+        return deadline.isPresent() ? ObjectUtils.getRemainingOfDeadline(deadline.getAsLong()) : Long.MAX_VALUE;
+    }
+
+    /**
+     * Indicates whether the deadline of the given {@code message} has passed.
+     *
+     * @param message the message to check
+     * @return {@code true} if the message declares a deadline that has passed, otherwise {@code false}
+     */
+    public static boolean isExpired(Message<?> message) {
+        return remainingMillis(message) == 0;
+    }
+
+    /**
+     * Throws a {@link DeadlineExceededException} if the deadline of the given {@code message} has passed.
+     *
+     * @param message the message to check
+     * @throws DeadlineExceededException if the deadline of the message has passed
+     */
+    public static void check(Message<?> message) {
+        if (isExpired(message)) {
+            throw exceeded(message);
+        }
+    }
+
+    /**
+     * Returns the exception reporting that the deadline of the given {@code message} has passed.
+     *
+     * @param message the message of which the deadline passed
+     * @return the exception reporting the passed deadline
+     */
+    public static DeadlineExceededException exceeded(Message<?> message) {
+        return new DeadlineExceededException(
+                "The deadline of message [" + message.getIdentifier() + "] passed at "
+                        + Instant.ofEpochMilli(of(message).orElse(0L)));
+    }
+
+}
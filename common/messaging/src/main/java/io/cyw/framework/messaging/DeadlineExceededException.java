@@ -0,0 +1,20 @@
+package io.cyw.framework.messaging;
+
+/**
+ * Exception indicating that a message was not handled, or its result no longer awaited, because its
+ * {@link Deadline deadline} passed.
+ */
+public class DeadlineExceededException extends SystemNonTransientException {
+
+    private static final long serialVersionUID = 4196510871903427650L;
+
+    /**
+     * Initialize the exception with given {@code message}
+     *
+     * @param message The message explaining the context of the exception
+     */
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2010-2018. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.cyw.framework.messaging;
+
+import io.cyw.framework.common.HandlerExecutionException;
+
+import java.util.List;
+
+/**
+ * Exception indicating that an error has occurred while remotely handling a message. As the exception itself could
+ * not be transferred to the node that sent the message, the exception describes the remote exception by means of a
+ * {@link RemoteExceptionDescription}.
+ *
+ * @author Steven van Beelen
+ * @since 4.0
+ */
+public class RemoteHandlingException extends HandlerExecutionException {
+
+    private static final long serialVersionUID = 7310513417002285205L;
+
+    private final List<String> exceptionDescriptions;
+
+    /**
+     * Initializes the exception using the given {@code exceptionDescription} describing the remote cause-chain.
+     *
+     * @param exceptionDescription a {@link String} describing the remote exceptions
+     */
+    public RemoteHandlingException(RemoteExceptionDescription exceptionDescription) {
+        super("An exception was thrown by the remote message handling component: " + exceptionDescription.toString());
+        this.exceptionDescriptions = exceptionDescription.getDescriptions();
+    }
+
+    /**
+     * Returns a {@link List} of {@link String}s describing the remote exception.
+     *
+     * @return a {@link List} of {@link String}s describing the remote exception
+     */
+    public List<String> getExceptionDescriptions() {
+        return exceptionDescriptions;
+    }
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2010-2020. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.cyw.framework.messaging;
+
+import io.cyw.framework.serialization.LazyDeserializingObject;
+import io.cyw.framework.serialization.SerializedObject;
+import io.cyw.framework.serialization.Serializer;
+
+/**
+ * A message containing serialized payload data and metadata. A SerializedMessage will deserialize the payload or
+ * metadata on demand when {@link #getPayload()} or {@link #getMetaData()} is called, and keeps the deserialized
+ * result for subsequent invocations. The payload type is resolved from the serialized type, so routing on the
+ * payload type or inspecting the metadata never causes the payload to be deserialized.
+ * <p>
+ * A SerializedMessage is typically not used as-is, but as the delegate of a {@link MessageDecorator} such as a
+ * {@link io.cyw.framework.queryhandling.GenericQueryMessage}, for messages that were received from a remote node or
+ * read from a store.
+ * <p>
+ * When the payload or metadata is serialized with the same serializer that produced this message, the original
+ * serialized data is returned, converted to the requested representation if necessary.
+ *
+ * @param <T> The type of payload contained in the message
+ * @author Allard Buijze
+ * @since 2.0
+ */
+public class SerializedMessage<T> extends AbstractMessage<T> {
+
+    private static final long serialVersionUID = 7021545732498706814L;
+
+    private final transient LazyDeserializingObject<MetaData> metaData;
+
+    private final transient LazyDeserializingObject<T> payload;
+
+    /**
+     * Initializes a {@link SerializedMessage} with given {@code identifier} from the given serialized payload and
+     * metadata. The given {@code serializer} will be used to deserialize the data, when requested.
+     *
+     * @param identifier         the message identifier
+     * @param serializedPayload  the serialized message payload
+     * @param serializedMetaData the serialized message metadata
+     * @param serializer         the serializer required when the data needs to be deserialized
+     */
+    public SerializedMessage(String identifier, SerializedObject<?> serializedPayload,
+                             SerializedObject<?> serializedMetaData, Serializer serializer) {
+        this(identifier, new LazyDeserializingObject<>(serializedPayload, serializer),
+             new LazyDeserializingObject<>(serializedMetaData, serializer));
+    }
+
+    /**
+     * Reconstructs a {@link SerializedMessage} using the given {@code identifier}, {@code payload} and
+     * {@code metaData}. Use this constructor when the payload still needs to be upcast, so that the upcasting only
+     * happens when the payload is actually requested.
+     *
+     * @param identifier the message identifier
+     * @param payload    the message payload as a lazy deserializing object
+     * @param metaData   the message metadata as a lazy deserializing object
+     */
+    public SerializedMessage(String identifier, LazyDeserializingObject<T> payload,
+                             LazyDeserializingObject<MetaData> metaData) {
+        super(identifier);
+        this.payload = payload;
+        this.metaData = metaData;
+    }
+
+    private SerializedMessage(SerializedMessage<T> message, LazyDeserializingObject<MetaData> newMetaData) {
+        super(message.getIdentifier());
+        this.payload = message.payload;
+        this.metaData = newMetaData;
+    }
+
+    @Override
+    public T getPayload() {
+        return payload.getObject();
+    }
+
+    @Override
+    public MetaData getMetaData() {
+        MetaData result = metaData.getObject();
+        return result == null ? MetaData.emptyInstance() : result;
+    }
+
+    @Override
+    public Class<T> getPayloadType() {
+        return payload.getType();
+    }
+
+    @Override
+    public <R> SerializedObject<R> serializePayload(Serializer serializer, Class<R> expectedRepresentation) {
+        if (serializer.equals(payload.getSerializer())) {
+            return serializer.getConverter().convert(payload.getSerializedObject(), expectedRepresentation);
+        }
+        return serializer.serialize(getPayload(), expectedRepresentation);
+    }
+
+    @Override
+    public <R> SerializedObject<R> serializeMetaData(Serializer serializer, Class<R> expectedRepresentation) {
+        if (serializer.equals(metaData.getSerializer())) {
+            return serializer.getConverter().convert(metaData.getSerializedObject(), expectedRepresentation);
+        }
+        return serializer.serialize(getMetaData(), expectedRepresentation);
+    }
+
+    @Override
+    protected Message<T> withMetaData(MetaData metaData) {
+        if (getMetaData().equals(metaData)) {
+            return this;
+        }
+        return new SerializedMessage<>(this, new LazyDeserializingObject<>(metaData));
+    }
+
+    /**
+     * Indicates whether the payload of this message has already been deserialized.
+     *
+     * @return {@code true} if the payload is deserialized, otherwise {@code false}
+     */
+    public boolean isPayloadDeserialized() {
+        return payload.isDeserialized();
+    }
+
+    /**
+     * Indicates whether the metadata of this message has already been deserialized.
+     *
+     * @return {@code true} if the metadata is deserialized, otherwise {@code false}
+     */
+    public boolean isMetaDataDeserialized() {
+        return metaData.isDeserialized();
+    }
+
+    /**
+     * Java Serialization API Method that provides a replacement to serialize, as the fields contained in this
+     * instance are not serializable themselves.
+     *
+     * @return the GenericMessage to use as a replacement when serializing
+     */
+    protected Object writeReplace() {
+        return new GenericMessage<>(getIdentifier(), getPayloadType(), getPayload(), getMetaData());
+    }
+
+    @Override
+    public String toString() {
+        return "SerializedMessage{payloadType={" + getPayloadType().getName() + "}, payloadDeserialized="
+                + isPayloadDeserialized() + ", messageIdentifier='" + getIdentifier() + "'}";
+    }
+
+}
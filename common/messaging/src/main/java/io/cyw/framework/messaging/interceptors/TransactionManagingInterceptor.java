@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2010-2018. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.cyw.framework.messaging.interceptors;
+
+import io.cyw.framework.common.transaction.TransactionManager;
+import io.cyw.framework.messaging.InterceptorChain;
+import io.cyw.framework.messaging.Message;
+import io.cyw.framework.messaging.MessageHandlerInterceptor;
+import io.cyw.framework.messaging.unitofwork.UnitOfWork;
+import io.cyw.framework.utils.Assert;
+
+/**
+ * Interceptor that uses a {@link TransactionManager} to start a new transaction before a Message is handled. When the
+ * Unit of Work of the Message is committed, the transaction is committed, and when it is rolled back, so is the
+ * transaction.
+ * <p>
+ * Handlers that only read data, such as query handlers, should be intercepted with a read-only interceptor, e.g.
+ * {@code queryBus.registerHandlerInterceptor(new TransactionManagingInterceptor<>(transactionManager, true))}, so that
+ * the transaction manager can apply the read-only hint, see {@link TransactionManager#startTransaction(boolean)}.
+ *
+ * @param <T> The message type intercepted by this interceptor
+ * @author Allard Buijze
+ * @since 2.0
+ */
+public class TransactionManagingInterceptor<T extends Message<?>> implements MessageHandlerInterceptor<T> {
+
+    private final TransactionManager transactionManager;
+
+    private final boolean readOnly;
+
+    /**
+     * Initializes the interceptor to start read-write transactions using the given {@code transactionManager}.
+     *
+     * @param transactionManager the transaction manager to start transactions with
+     */
+    public TransactionManagingInterceptor(TransactionManager transactionManager) {
+        this(transactionManager, false);
+    }
+
+    /**
+     * Initializes the interceptor to start transactions using the given {@code transactionManager}.
+     *
+     * @param transactionManager the transaction manager to start transactions with
+     * @param readOnly           whether the intercepted handlers only read data
+     */
+    public TransactionManagingInterceptor(TransactionManager transactionManager, boolean readOnly) {
+        Assert.nonNull(transactionManager, () -> "TransactionManager may not be null");
+        this.transactionManager = transactionManager;
+        this.readOnly = readOnly;
+    }
+
+    @Override
+    public Object handle(UnitOfWork<? extends T> unitOfWork, InterceptorChain interceptorChain) throws Exception {
+        unitOfWork.attachTransaction(transactionManager, readOnly);
+        return interceptorChain.proceed();
+    }
+
+}
@@ -47,6 +47,8 @@ public abstract class AbstractUnitOfWork<T extends Message<?>> implements UnitOf
 
     private boolean rolledBack;
 
+    private MetaData correlationData;
+
     @Override
     public void start() {
         if (logger.isDebugEnabled()) {
@@ -54,7 +56,6 @@ public abstract class AbstractUnitOfWork<T extends Message<?>> implements UnitOf
         }
         Assert.state(Phase.NOT_STARTED.equals(phase()), () -> "UnitOfWork is already started");
         rolledBack = false;
-        onRollback(u -> rolledBack = true);
         CurrentUnitOfWork.ifStarted(parent -> {
             // we're nesting.
             this.parentUnitOfWork = parent;
@@ -142,24 +143,37 @@ public abstract class AbstractUnitOfWork<T extends Message<?>> implements UnitOf
         return Optional.ofNullable(parentUnitOfWork);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The correlation data is computed once and the same {@link MetaData} instance is returned until the message is
+     * transformed or another Correlation Data Provider is registered.
+     */
     @Override
     public MetaData getCorrelationData() {
         if (correlationDataProviders.isEmpty()) {
             return MetaData.emptyInstance();
         }
-        Map<String, Object> result = new HashMap<>();
-        for (CorrelationDataProvider correlationDataProvider : correlationDataProviders) {
-            final Map<String, ?> extraData = correlationDataProvider.correlationDataFor(getMessage());
-            if (extraData != null) {
-                result.putAll(extraData);
+        MetaData result = correlationData;
+        if (result == null) {
+            Map<String, Object> data = new HashMap<>();
+            for (CorrelationDataProvider correlationDataProvider : correlationDataProviders) {
+                final Map<String, ?> extraData = correlationDataProvider.correlationDataFor(getMessage());
+                if (extraData != null) {
+                    data.putAll(extraData);
+                }
             }
+            result = MetaData.from(data);
+            correlationData = result;
         }
-        return MetaData.from(result);
+        return result;
     }
 
     @Override
     public void registerCorrelationDataProvider(CorrelationDataProvider correlationDataProvider) {
-        correlationDataProviders.add(correlationDataProvider);
+        if (correlationDataProviders.add(correlationDataProvider)) {
+            invalidateCorrelationData();
+        }
     }
 
     @Override
@@ -225,13 +239,46 @@ public abstract class AbstractUnitOfWork<T extends Message<?>> implements UnitOf
     protected void changePhase(Phase... phases) {
         for (Phase phase : phases) {
             setPhase(phase);
-            notifyHandlers(phase);
+            try {
+                notifyHandlers(phase);
+            } finally {
+                if (phase == Phase.ROLLBACK) {
+                    rolledBack = true;
+                }
+            }
         }
     }
 
+    /**
+     * Resets the state of this Unit of Work, so that it can be started again. This clears the resources, the
+     * registered Correlation Data Providers and the reference to the parent Unit of Work, and moves the Unit of Work
+     * back to the {@link Phase#NOT_STARTED} phase.
+     * <p/>
+     * Only Units of Work that have not been started or that have been {@link Phase#CLOSED closed} may be reset.
+     */
+    protected void reset() {
+        Assert.state(phase == Phase.NOT_STARTED || phase == Phase.CLOSED,
+                     () -> String.format("Cannot reset a UnitOfWork in phase: %s", phase));
+        resources.clear();
+        correlationDataProviders.clear();
+        parentUnitOfWork = null;
+        phase = Phase.NOT_STARTED;
+        rolledBack = false;
+        correlationData = null;
+    }
+
+    /**
+     * Discards the correlation data computed by {@link #getCorrelationData()}, so that it is computed again on the
+     * next request. Implementations must invoke this method whenever the message being processed changes.
+     */
+    protected void invalidateCorrelationData() {
+        correlationData = null;
+    }
+
     /**
      * Provides the collection of registered Correlation Data Providers of this Unit of Work. The returned collection is a live view of the providers
-     * registered. Any changes in the registration are reflected in the returned collection.
+     * registered. Any changes in the registration are reflected in the returned collection. Callers that modify the
+     * returned collection should {@link #invalidateCorrelationData() invalidate} the correlation data afterwards.
      *
      * @return The Correlation Data Providers registered with this Unit of Work.
      */
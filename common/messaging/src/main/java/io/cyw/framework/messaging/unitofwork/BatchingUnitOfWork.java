@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2010-2020. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.cyw.framework.messaging.unitofwork;
+
+import io.cyw.framework.messaging.GenericResultMessage;
+import io.cyw.framework.messaging.Message;
+import io.cyw.framework.messaging.ResultMessage;
+import io.cyw.framework.utils.Assert;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static io.cyw.framework.messaging.GenericResultMessage.asResultMessage;
+
+/**
+ * Unit of Work implementation that is able to process a batch of Messages instead of just a single Message.
+ * <p/>
+ * The task passed to {@link #executeWithResult(Callable, RollbackConfiguration)} is invoked once for every message in
+ * the batch, with {@link #getMessage()} returning the message being processed. All messages are processed within
+ * the same Unit of Work, so a transaction {@link #attachTransaction(io.cyw.framework.common.transaction.TransactionManager)
+ * attached} to this Unit of Work covers the entire batch, and phase handlers registered before or during the
+ * processing of a message are invoked only once when the batch commits or rolls back.
+ * <p/>
+ * The result of processing each message is recorded separately and available through {@link #getExecutionResults()}.
+ * A failure that should cause a rollback according to the {@link RollbackConfiguration} rolls back the entire batch.
+ * Other failures are only recorded as the execution result of the failing message, after which processing continues
+ * with the next message and the batch is committed.
+ *
+ * @author Rene de Waele
+ * @since 3.0
+ */
+public class BatchingUnitOfWork<T extends Message<?>> extends AbstractUnitOfWork<T> {
+
+    private final List<MessageProcessingContext<T>> processingContexts;
+
+    private MessageProcessingContext<T> processingContext;
+
+    /**
+     * Initializes a BatchingUnitOfWork for processing the given batch of {@code messages}.
+     *
+     * @param messages batch of messages to process
+     */
+    @SafeVarargs
+    public BatchingUnitOfWork(T... messages) {
+        this(Arrays.asList(messages));
+    }
+
+    /**
+     * Initializes a BatchingUnitOfWork for processing the given list of {@code messages}.
+     *
+     * @param messages batch of messages to process
+     */
+    public BatchingUnitOfWork(List<T> messages) {
+        Assert.isFalse(messages.isEmpty(), () -> "The list of Messages to process is empty");
+        processingContexts = new ArrayList<>(messages.size());
+        for (T message : messages) {
+            processingContexts.add(new MessageProcessingContext<>(message));
+        }
+        processingContext = processingContexts.get(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The given {@code task} is invoked for every message in the batch. The returned result message is the result of
+     * the last processed message, or the exceptional result that caused the batch to be rolled back. Use
+     * {@link #getExecutionResults()} to obtain the result of each message.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <R> ResultMessage<R> executeWithResult(Callable<R> task, RollbackConfiguration rollbackConfiguration) {
+        if (phase() == Phase.NOT_STARTED) {
+            start();
+        }
+        Assert.state(phase() == Phase.STARTED,
+                     () -> String.format("The UnitOfWork has an incompatible phase: %s", phase()));
+        ResultMessage<R> resultMessage = null;
+        for (MessageProcessingContext<T> context : processingContexts) {
+            switchTo(context);
+            try {
+                R result = task.call();
+                if (result instanceof ResultMessage) {
+                    resultMessage = (ResultMessage<R>) result;
+                } else if (result instanceof Message) {
+                    resultMessage = new GenericResultMessage<>(result, ((Message<?>) result).getMetaData());
+                } else {
+                    resultMessage = new GenericResultMessage<>(result);
+                }
+            } catch (Error | Exception e) {
+                resultMessage = asResultMessage(e);
+                if (rollbackConfiguration.rollBackOn(e)) {
+                    rollback(e);
+                    return resultMessage;
+                }
+            }
+            setExecutionResult(new ExecutionResult(resultMessage));
+        }
+        try {
+            commit();
+        } catch (Exception e) {
+            resultMessage = asResultMessage(e);
+        }
+        return resultMessage;
+    }
+
+    /**
+     * Returns a Map of {@link ExecutionResult} per Message. If the Unit of Work has not been given a task to execute,
+     * the ExecutionResult is {@code null} for each Message.
+     *
+     * @return a Map of ExecutionResult per Message processed by this Unit of Work, in the order of the batch
+     */
+    public Map<Message<?>, ExecutionResult> getExecutionResults() {
+        Map<Message<?>, ExecutionResult> results = new LinkedHashMap<>();
+        for (MessageProcessingContext<T> context : processingContexts) {
+            results.put(context.getMessage(), context.getExecutionResult());
+        }
+        return results;
+    }
+
+    @Override
+    public T getMessage() {
+        return processingContext.getMessage();
+    }
+
+    @Override
+    public UnitOfWork<T> transformMessage(Function<T, ? extends Message<?>> transformOperator) {
+        processingContext.transformMessage(transformOperator);
+        invalidateCorrelationData();
+        return this;
+    }
+
+    @Override
+    public ExecutionResult getExecutionResult() {
+        return processingContext.getExecutionResult();
+    }
+
+    @Override
+    protected void setRollbackCause(Throwable cause) {
+        for (MessageProcessingContext<T> context : processingContexts) {
+            context.setExecutionResult(new ExecutionResult(asResultMessage(cause)));
+        }
+    }
+
+    @Override
+    protected void notifyHandlers(Phase phase) {
+        if (phase.isReverseCallbackOrder()) {
+            ListIterator<MessageProcessingContext<T>> iterator =
+                    processingContexts.listIterator(processingContexts.size());
+            while (iterator.hasPrevious()) {
+                switchTo(iterator.previous()).notifyHandlers(this, phase);
+            }
+        } else {
+            for (MessageProcessingContext<T> context : processingContexts) {
+                switchTo(context).notifyHandlers(this, phase);
+            }
+        }
+    }
+
+    @Override
+    protected void addHandler(Phase phase, Consumer<UnitOfWork<T>> handler) {
+        Assert.state(!phase.isBefore(phase()), () -> "Cannot register a listener for phase: " + phase
+                + " because the Unit of Work is already in a later phase: " + phase());
+        processingContext.addHandler(phase, handler);
+    }
+
+    @Override
+    protected void setExecutionResult(ExecutionResult executionResult) {
+        processingContext.setExecutionResult(executionResult);
+    }
+
+    /**
+     * Get the batch of messages that is being processed (or has been processed) by this unit of work.
+     *
+     * @return the message batch
+     */
+    public List<? extends T> getMessages() {
+        List<T> messages = new ArrayList<>(processingContexts.size());
+        for (MessageProcessingContext<T> context : processingContexts) {
+            messages.add(context.getMessage());
+        }
+        return Collections.unmodifiableList(messages);
+    }
+
+    /**
+     * Checks if the given {@code message} is the last of the batch being processed in this unit of work.
+     *
+     * @param message the message to check for
+     * @return {@code true} if the message is the last of this batch, {@code false} otherwise
+     */
+    public boolean isLastMessage(Message<?> message) {
+        return processingContexts.get(processingContexts.size() - 1).getMessage().equals(message);
+    }
+
+    /**
+     * Checks if the message being processed now is the last of the batch being processed in this unit of work.
+     *
+     * @return {@code true} if the message is the last of this batch, {@code false} otherwise
+     */
+    public boolean isLastMessage() {
+        return isLastMessage(getMessage());
+    }
+
+    /**
+     * Checks if the given {@code message} is the first of the batch being processed in this unit of work.
+     *
+     * @param message the message to check
+     * @return {@code true} if the message is the first of this batch, {@code false} otherwise
+     */
+    public boolean isFirstMessage(Message<?> message) {
+        return processingContexts.get(0).getMessage().equals(message);
+    }
+
+    /**
+     * Checks if the message being processed now is the first of the batch being processed in this unit of work.
+     *
+     * @return {@code true} if the message is the first of this batch, {@code false} otherwise
+     */
+    public boolean isFirstMessage() {
+        return isFirstMessage(getMessage());
+    }
+
+    private MessageProcessingContext<T> switchTo(MessageProcessingContext<T> context) {
+        if (processingContext != context) {
+            processingContext = context;
+            invalidateCorrelationData();
+        }
+        return context;
+    }
+
+}
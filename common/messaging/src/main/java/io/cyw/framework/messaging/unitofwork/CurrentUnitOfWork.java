@@ -19,8 +19,7 @@ package io.cyw.framework.messaging.unitofwork;
 
 import io.cyw.framework.messaging.MetaData;
 
-import java.util.Deque;
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.Optional;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -28,10 +27,14 @@ import java.util.function.Function;
 /**
  * Default entry point to gain access to the current UnitOfWork. Components managing transactional boundaries can
  * register and clear UnitOfWork instances, which components can use.
+ * <p/>
+ * The Units of Work of a thread are kept in an array based stack that is created once per thread and retained when the
+ * last Unit of Work is cleared, so starting and clearing Units of Work does not allocate. All accessors resolve the
+ * stack of the current thread only once.
  */
 public abstract class CurrentUnitOfWork {
 
-    private static final ThreadLocal<Deque<UnitOfWork<?>>> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<UnitOfWorkStack> CURRENT = ThreadLocal.withInitial(UnitOfWorkStack::new);
 
     private CurrentUnitOfWork() {
     }
@@ -43,7 +46,7 @@ public abstract class CurrentUnitOfWork {
      * @return whether a UnitOfWork has already been started.
      */
     public static boolean isStarted() {
-        return CURRENT.get() != null && !CURRENT.get().isEmpty();
+        return CURRENT.get().peek() != null;
     }
 
     /**
@@ -54,8 +57,9 @@ public abstract class CurrentUnitOfWork {
      * @return {@code true} if a unit of work is active, {@code false} otherwise
      */
     public static boolean ifStarted(Consumer<UnitOfWork<?>> consumer) {
-        if (isStarted()) {
-            consumer.accept(get());
+        UnitOfWork<?> current = CURRENT.get().peek();
+        if (current != null) {
+            consumer.accept(current);
             return true;
         }
         return false;
@@ -72,7 +76,8 @@ public abstract class CurrentUnitOfWork {
      * @throws NullPointerException when a Unit of Work is present and the function returns null
      */
     public static <T> Optional<T> map(Function<UnitOfWork<?>, T> function) {
-        return isStarted() ? Optional.of(function.apply(get())) : Optional.empty();
+        UnitOfWork<?> current = CURRENT.get().peek();
+        return current != null ? Optional.of(function.apply(current)) : Optional.empty();
     }
 
     /**
@@ -85,15 +90,11 @@ public abstract class CurrentUnitOfWork {
      * @throws IllegalStateException if no UnitOfWork is active
      */
     public static UnitOfWork<?> get() {
-        if (isEmpty()) {
+        UnitOfWork<?> current = CURRENT.get().peek();
+        if (current == null) {
             throw new IllegalStateException("No UnitOfWork is currently started for this thread.");
         }
-        return CURRENT.get().peek();
-    }
-
-    private static boolean isEmpty() {
-        Deque<UnitOfWork<?>> unitsOfWork = CURRENT.get();
-        return unitsOfWork == null || unitsOfWork.isEmpty();
+        return current;
     }
 
     /**
@@ -113,9 +114,6 @@ public abstract class CurrentUnitOfWork {
      * @param unitOfWork The UnitOfWork to bind to the current thread.
      */
     public static void set(UnitOfWork<?> unitOfWork) {
-        if (CURRENT.get() == null) {
-            CURRENT.set(new LinkedList<>());
-        }
         CURRENT.get().push(unitOfWork);
     }
 
@@ -128,14 +126,13 @@ public abstract class CurrentUnitOfWork {
      *                               indicates a potentially wrong nesting of Units Of Work.
      */
     public static void clear(UnitOfWork<?> unitOfWork) {
-        if (!isStarted()) {
+        UnitOfWorkStack unitsOfWork = CURRENT.get();
+        UnitOfWork<?> current = unitsOfWork.peek();
+        if (current == null) {
             throw new IllegalStateException("Could not clear this UnitOfWork. There is no UnitOfWork active.");
         }
-        if (CURRENT.get().peek() == unitOfWork) {
-            CURRENT.get().pop();
-            if (CURRENT.get().isEmpty()) {
-                CURRENT.remove();
-            }
+        if (current == unitOfWork) {
+            unitsOfWork.pop();
         } else {
             throw new IllegalStateException("Could not clear this UnitOfWork. It is not the active one.");
         }
@@ -143,14 +140,45 @@ public abstract class CurrentUnitOfWork {
 
     /**
      * Returns the Correlation Data attached to the current Unit of Work, or an empty {@link MetaData} instance
-     * if no Unit of Work is started.
+     * if no Unit of Work is started. When no Unit of Work is bound to the current thread, the correlation data of the
+     * current {@link ReactiveUnitOfWork}, if any, is returned.
      *
      * @return a MetaData instance representing the current Unit of Work's correlation data, or an empty MetaData
      * instance if no Unit of Work is started.
      * @see UnitOfWork#getCorrelationData()
+     * @see ReactiveCurrentUnitOfWork#correlationData()
      */
     public static MetaData correlationData() {
-        return CurrentUnitOfWork.map(UnitOfWork::getCorrelationData).orElse(MetaData.emptyInstance());
+        UnitOfWork<?> current = CURRENT.get().peek();
+        return current != null ? current.getCorrelationData() : ReactiveCurrentUnitOfWork.correlationData();
+    }
+
+    /**
+     * Array based stack of the Units of Work bound to a single thread. The initial capacity covers the nesting depth
+     * of virtually all handlers; the array only grows for deeper nesting and never shrinks.
+     */
+    private static final class UnitOfWorkStack {
+
+        private static final int INITIAL_CAPACITY = 8;
+
+        private UnitOfWork<?>[] elements = new UnitOfWork<?>[INITIAL_CAPACITY];
+
+        private int size;
+
+        private UnitOfWork<?> peek() {
+            return size == 0 ? null : elements[size - 1];
+        }
+
+        private void push(UnitOfWork<?> unitOfWork) {
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, size * 2);
+            }
+            elements[size++] = unitOfWork;
+        }
+
+        private void pop() {
+            elements[--size] = null;
+        }
     }
 
 }
@@ -64,6 +64,18 @@ public class DefaultUnitOfWork<T extends Message<?>> extends AbstractUnitOfWork<
         return uow;
     }
 
+    /**
+     * Resets this Unit of Work so that it can be reused to process the given {@code message}. The internal structures
+     * of this Unit of Work and its processing context are cleared, but retained for reuse.
+     *
+     * @param message the message that will be processed in the context of the unit of work
+     * @see AbstractUnitOfWork#reset()
+     */
+    protected void reset(T message) {
+        reset();
+        processingContext.reset(message);
+    }
+
     @Override
     protected void notifyHandlers(Phase phase) {
         processingContext.notifyHandlers(this, phase);
@@ -84,6 +96,7 @@ public class DefaultUnitOfWork<T extends Message<?>> extends AbstractUnitOfWork<
     @Override
     public UnitOfWork<T> transformMessage(Function<T, ? extends Message<?>> transformOperator) {
         processingContext.transformMessage(transformOperator);
+        invalidateCorrelationData();
         return this;
     }
 
@@ -152,14 +152,19 @@ public class MessageProcessingContext<T extends Message<?>> {
     }
 
     /**
-     * Reset the processing context. This clears the execution result and map with registered handlers, and replaces
-     * the current Message with the given {@code message}.
+     * Reset the processing context. This clears the execution result and the registered handlers, and replaces the
+     * current Message with the given {@code message}.
+     * <p/>
+     * The handler queues themselves are retained, so a context that is reused for many messages does not allocate
+     * new queues for every message.
      *
      * @param message The new message that is being processed
      */
     public void reset(T message) {
         this.message = message;
-        handlers.clear();
+        for (Deque<Consumer<UnitOfWork<T>>> consumers : handlers.values()) {
+            consumers.clear();
+        }
         executionResult = null;
     }
 
@@ -0,0 +1,261 @@
+package io.cyw.framework.messaging.unitofwork;
+
+import io.cyw.framework.messaging.Message;
+import io.cyw.framework.utils.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Factory of {@link UnitOfWork} instances that keeps closed Units of Work in a per-thread pool and reuses them for
+ * subsequent messages. A pooled Unit of Work retains its processing context, handler queues, resource map and
+ * correlation provider set, so creating a Unit of Work for a message on a thread that processed messages before does
+ * not allocate these structures again.
+ * <p>
+ * A Unit of Work is returned to the pool of the thread that created it as soon as it reaches the
+ * {@link UnitOfWork.Phase#CLOSED} phase, and it is reset when it is handed out again. References to a Unit of Work
+ * must therefore not be kept after it has been closed. Its state, e.g. the {@link UnitOfWork#getExecutionResult()
+ * execution result}, remains readable until the next Unit of Work is created on the same thread. A Unit of Work that
+ * is closed on another thread is no longer counted as outstanding by its thread, but it is not reused.
+ * <p>
+ * When leak detection is enabled, which is the default when debug logging is enabled for this class, the factory
+ * records where each Unit of Work was created and logs a warning with these locations when the number of Units of
+ * Work that were created but never closed on a thread exceeds the configured threshold.
+ */
+public class PooledUnitOfWorkFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(PooledUnitOfWorkFactory.class);
+
+    private final int maxPoolSize;
+
+    private final boolean leakDetection;
+
+    private final int leakThreshold;
+
+    private final ThreadLocal<Pool> pools = ThreadLocal.withInitial(this::newPool);
+
+    public PooledUnitOfWorkFactory(Builder builder) {
+        builder.validate();
+        this.maxPoolSize = builder.maxPoolSize;
+        this.leakDetection = builder.leakDetection;
+        this.leakThreshold = builder.leakThreshold;
+    }
+
+    /**
+     * Creates a Unit of Work (without starting it) to process the given {@code message}. If the pool of the current
+     * thread contains a closed Unit of Work, that instance is reset and reused.
+     *
+     * @param message the message that will be processed in the context of the unit of work
+     * @param <T>     the type of message processed by the unit of work
+     * @return a Unit of Work in the {@link UnitOfWork.Phase#NOT_STARTED} phase
+     */
+    public <T extends Message<?>> UnitOfWork<T> createUnitOfWork(T message) {
+        return pools.get().acquire(message);
+    }
+
+    /**
+     * Creates a Unit of Work to process the given {@code message} and starts it, registering it as the
+     * {@link CurrentUnitOfWork}.
+     *
+     * @param message the message that will be processed in the context of the unit of work
+     * @param <T>     the type of message processed by the unit of work
+     * @return the started Unit of Work
+     * @see #createUnitOfWork(Message)
+     */
+    public <T extends Message<?>> UnitOfWork<T> startAndGet(T message) {
+        UnitOfWork<T> unitOfWork = createUnitOfWork(message);
+        unitOfWork.start();
+        return unitOfWork;
+    }
+
+    /**
+     * Returns the number of Units of Work in the pool of the current thread that are available for reuse.
+     *
+     * @return the number of pooled Units of Work of the current thread
+     */
+    public int pooledCount() {
+        return pools.get().size;
+    }
+
+    /**
+     * Returns the number of Units of Work that were created on the current thread and have not been closed yet.
+     *
+     * @return the number of outstanding Units of Work of the current thread
+     */
+    public int outstandingCount() {
+        return pools.get().outstanding.get();
+    }
+
+    private Pool newPool() {
+        return new Pool(Thread.currentThread());
+    }
+
+    private final class Pool {
+
+        private final Thread owner;
+
+        private final PooledUnitOfWork<?>[] elements = new PooledUnitOfWork<?>[maxPoolSize];
+
+        private final Set<PooledUnitOfWork<?>> unclosed = leakDetection
+                ? Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()))
+                : Collections.emptySet();
+
+        private final AtomicInteger outstanding = new AtomicInteger();
+
+        private int size;
+
+        private boolean leakReported;
+
+        private Pool(Thread owner) {
+            this.owner = owner;
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T extends Message<?>> PooledUnitOfWork<T> acquire(T message) {
+            PooledUnitOfWork<T> unitOfWork;
+            if (size > 0) {
+                unitOfWork = (PooledUnitOfWork<T>) elements[--size];
+                elements[size] = null;
+                unitOfWork.reuse(message);
+            } else {
+                unitOfWork = new PooledUnitOfWork<>(message, this);
+            }
+            outstanding.incrementAndGet();
+            if (leakDetection) {
+                unitOfWork.allocationSite = new Throwable("UnitOfWork created here");
+                unclosed.add(unitOfWork);
+                detectLeaks();
+            }
+            return unitOfWork;
+        }
+
+        private void release(PooledUnitOfWork<?> unitOfWork) {
+            if (!unitOfWork.outstanding.compareAndSet(true, false)) {
+                // released twice
+                return;
+            }
+            outstanding.decrementAndGet();
+            if (leakDetection) {
+                unclosed.remove(unitOfWork);
+                unitOfWork.allocationSite = null;
+            }
+            // the elements are only accessed by the owner, so one closed on another thread is left to the garbage
+            // collector
+            if (Thread.currentThread() == owner && size < elements.length) {
+                elements[size++] = unitOfWork;
+            }
+        }
+
+        private void detectLeaks() {
+            int count = outstanding.get();
+            if (count <= leakThreshold) {
+                leakReported = false;
+            } else if (!leakReported) {
+                leakReported = true;
+                logger.warn("{} Units of Work were created on thread [{}] without being closed. "
+                                    + "Units of Work that are never committed or rolled back are leaked.",
+                            count, owner.getName());
+                synchronized (unclosed) {
+                    for (PooledUnitOfWork<?> unitOfWork : unclosed) {
+                        logger.warn("Unclosed UnitOfWork in phase {}", unitOfWork.phase(), unitOfWork.allocationSite);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class PooledUnitOfWork<T extends Message<?>> extends DefaultUnitOfWork<T> {
+
+        private final Pool pool;
+
+        private final AtomicBoolean outstanding = new AtomicBoolean(true);
+
+        private volatile Throwable allocationSite;
+
+        private PooledUnitOfWork(T message, Pool pool) {
+            super(message);
+            this.pool = pool;
+        }
+
+        private void reuse(T message) {
+            reset(message);
+            outstanding.set(true);
+        }
+
+        @Override
+        protected void changePhase(Phase... phases) {
+            try {
+                super.changePhase(phases);
+            } finally {
+                if (phase() == Phase.CLOSED) {
+                    pool.release(this);
+                }
+            }
+        }
+    }
+
+    public static class Builder {
+
+        private int maxPoolSize = 16;
+
+        private boolean leakDetection = logger.isDebugEnabled();
+
+        private int leakThreshold = 64;
+
+        /**
+         * Sets the maximum number of closed Units of Work kept for reuse per thread. Defaults to {@code 16}, which
+         * covers the nesting depth of most handlers.
+         *
+         * @param maxPoolSize the maximum number of pooled Units of Work per thread
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder maxPoolSize(int maxPoolSize) {
+            Assert.isTrue(maxPoolSize >= 0, () -> "The maxPoolSize may not be negative");
+            this.maxPoolSize = maxPoolSize;
+            return this;
+        }
+
+        /**
+         * Enables or disables the detection of Units of Work that are created but never closed. Defaults to
+         * {@code true} when debug logging is enabled for {@link PooledUnitOfWorkFactory}.
+         *
+         * @param leakDetection whether leak detection should be enabled
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder leakDetection(boolean leakDetection) {
+            this.leakDetection = leakDetection;
+            return this;
+        }
+
+        /**
+         * Sets the number of unclosed Units of Work on a single thread above which a leak is reported. Defaults to
+         * {@code 64}.
+         *
+         * @param leakThreshold the number of unclosed Units of Work tolerated per thread
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder leakThreshold(int leakThreshold) {
+            Assert.isTrue(leakThreshold > 0, () -> "The leakThreshold must be positive");
+            this.leakThreshold = leakThreshold;
+            return this;
+        }
+
+        /**
+         * Validate whether the fields contained in this Builder as set accordingly.
+         */
+        protected void validate() {
+            // all fields have valid defaults
+        }
+
+        public PooledUnitOfWorkFactory build() {
+            return new PooledUnitOfWorkFactory(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,69 @@
+package io.cyw.framework.messaging.unitofwork;
+
+import io.cyw.framework.messaging.MetaData;
+
+import java.util.Optional;
+
+/**
+ * Entry point to gain access to the {@link ReactiveUnitOfWork} in which the current code is executed.
+ * <p>
+ * The reference is held in a slot of the executing thread only while code of the Unit of Work runs on it. When a
+ * reactive pipeline continues on another thread, the slot is restored on that thread by the
+ * {@link ReactiveUnitOfWorkContextProvider}, as part of MicroProfile Context Propagation. Code that is executed
+ * within a Unit of Work therefore sees the same Unit of Work, regardless of the thread it runs on.
+ */
+public abstract class ReactiveCurrentUnitOfWork {
+
+    private static final ThreadLocal<ReactiveUnitOfWork<?>> CURRENT = new ThreadLocal<>();
+
+    private ReactiveCurrentUnitOfWork() {
+    }
+
+    /**
+     * Indicates whether the current code is executed within a reactive Unit of Work.
+     *
+     * @return whether a reactive Unit of Work is current
+     */
+    public static boolean isStarted() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Returns the reactive Unit of Work in which the current code is executed, if any.
+     *
+     * @return an optional containing the current Unit of Work, or an empty optional if there is none
+     */
+    public static Optional<ReactiveUnitOfWork<?>> get() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    /**
+     * Returns the Correlation Data attached to the current reactive Unit of Work, or an empty {@link MetaData}
+     * instance if there is no current reactive Unit of Work.
+     *
+     * @return a MetaData instance representing the current Unit of Work's correlation data
+     * @see ReactiveUnitOfWork#getCorrelationData()
+     */
+    public static MetaData correlationData() {
+        ReactiveUnitOfWork<?> unitOfWork = CURRENT.get();
+        return unitOfWork == null ? MetaData.emptyInstance() : unitOfWork.getCorrelationData();
+    }
+
+    /**
+     * Makes the given {@code unitOfWork} current for the executing thread, returning the Unit of Work that was current
+     * before. Callers must restore the returned Unit of Work when the executed code completes.
+     *
+     * @param unitOfWork the Unit of Work to make current, or {@code null} to clear the current Unit of Work
+     * @return the Unit of Work that was current before, or {@code null} if there was none
+     */
+    static ReactiveUnitOfWork<?> swap(ReactiveUnitOfWork<?> unitOfWork) {
+        ReactiveUnitOfWork<?> previous = CURRENT.get();
+        if (unitOfWork == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(unitOfWork);
+        }
+        return previous;
+    }
+
+}
@@ -0,0 +1,424 @@
+package io.cyw.framework.messaging.unitofwork;
+
+import io.cyw.framework.messaging.GenericResultMessage;
+import io.cyw.framework.messaging.Message;
+import io.cyw.framework.messaging.MetaData;
+import io.cyw.framework.messaging.ResultMessage;
+import io.cyw.framework.messaging.correlation.CorrelationDataProvider;
+import io.cyw.framework.messaging.unitofwork.UnitOfWork.Phase;
+import io.cyw.framework.utils.Assert;
+import io.smallrye.mutiny.Uni;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static io.cyw.framework.messaging.GenericResultMessage.asResultMessage;
+
+/**
+ * Unit of Work for handlers that return a {@link Uni}. Where the {@link DefaultUnitOfWork} is bound to the thread that
+ * started it, the phases of this Unit of Work ({@link Phase#PREPARE_COMMIT PREPARE_COMMIT}, {@link Phase#COMMIT
+ * COMMIT}, {@link Phase#AFTER_COMMIT AFTER_COMMIT} and {@link Phase#CLEANUP CLEANUP}) are composed as {@link Uni}
+ * stages, and phase handlers return a {@link Uni} themselves. The processing of a message may therefore continue on
+ * any thread, e.g. on the event loop, without blocking.
+ * <p>
+ * While a task is executed, the Unit of Work is available through {@link ReactiveCurrentUnitOfWork}. The reference is
+ * carried along with the reactive pipeline by MicroProfile Context Propagation (see
+ * {@link ReactiveUnitOfWorkContextProvider}), instead of being tied to the thread that started the Unit of Work.
+ *
+ * @param <T> The type of message handled by this Unit of Work
+ */
+public class ReactiveUnitOfWork<T extends Message<?>> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveUnitOfWork.class);
+
+    private final EnumMap<Phase, Deque<Function<ReactiveUnitOfWork<T>, Uni<Void>>>> handlers =
+            new EnumMap<>(Phase.class);
+
+    private final Map<String, Object> resources = new ConcurrentHashMap<>();
+
+    private final Collection<CorrelationDataProvider> correlationDataProviders = new CopyOnWriteArraySet<>();
+
+    private final ReactiveUnitOfWork<?> parentUnitOfWork;
+
+    private volatile T message;
+
+    private volatile Phase phase = Phase.NOT_STARTED;
+
+    private volatile boolean rolledBack;
+
+    private volatile MetaData correlationData;
+
+    /**
+     * Initializes a Unit of Work (without starting it) for the given {@code message}. If a reactive Unit of Work is
+     * current while this instance is created, that Unit of Work becomes the parent of this one.
+     *
+     * @param message the message that will be processed in the context of the unit of work
+     */
+    public ReactiveUnitOfWork(T message) {
+        this.message = message;
+        this.parentUnitOfWork = ReactiveCurrentUnitOfWork.get().orElse(null);
+        for (Phase handlerPhase : Phase.values()) {
+            handlers.put(handlerPhase, new ConcurrentLinkedDeque<>());
+        }
+    }
+
+    /**
+     * Executes the given {@code task} in the context of this Unit of Work, rolling back on any exception. See
+     * {@link #executeWithResult(Function, RollbackConfiguration)}.
+     *
+     * @param task the task to execute
+     * @param <R>  the type of result of the task
+     * @return a {@link Uni} of the result of the task wrapped in a result message
+     */
+    public <R> Uni<ResultMessage<R>> executeWithResult(Function<ReactiveUnitOfWork<T>, Uni<R>> task) {
+        return executeWithResult(task, RollbackConfigurationType.ANY_THROWABLE);
+    }
+
+    /**
+     * Executes the given {@code task} in the context of this Unit of Work. Nothing happens until the returned
+     * {@link Uni} is subscribed to. Upon subscription the Unit of Work is started and the task is invoked. When the
+     * {@link Uni} returned by the task completes successfully, the Unit of Work is committed. When it fails, the
+     * Unit of Work is rolled back if the given {@code rollbackConfiguration} says so, and committed otherwise.
+     * <p>
+     * The returned {@link Uni} does not fail when the task fails. Instead, it emits an exceptional result message.
+     *
+     * @param task                  the task to execute
+     * @param rollbackConfiguration configuration that decides whether a failure of the task causes a rollback
+     * @param <R>                   the type of result of the task
+     * @return a {@link Uni} of the result of the task wrapped in a result message
+     */
+    public <R> Uni<ResultMessage<R>> executeWithResult(Function<ReactiveUnitOfWork<T>, Uni<R>> task,
+                                                       RollbackConfiguration rollbackConfiguration) {
+        return Uni.createFrom().<R>deferred(() -> {
+            start();
+            return withCurrent(() -> task.apply(this));
+        }).map(this::<R>asResult)
+                  .onFailure().recoverWithItem(GenericResultMessage::<R>asResultMessage)
+                  .flatMap(result -> {
+                      if (result.isExceptional() && rollbackConfiguration.rollBackOn(result.exceptionResult())) {
+                          return rollback(result.exceptionResult()).map(v -> result);
+                      }
+                      return commit().map(v -> result)
+                                     .onFailure().recoverWithItem(GenericResultMessage::<R>asResultMessage);
+                  });
+    }
+
+    /**
+     * Starts this Unit of Work. Prefer {@link #executeWithResult(Function, RollbackConfiguration)}, which also
+     * makes this Unit of Work current for the duration of the task.
+     */
+    public void start() {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Starting reactive Unit Of Work");
+        }
+        Assert.state(Phase.NOT_STARTED.equals(phase), () -> "UnitOfWork is already started");
+        if (parentUnitOfWork != null) {
+            parentUnitOfWork.root().onCleanup(r -> changePhase(Phase.CLEANUP)
+                    .onItem().invoke(v -> phase = Phase.CLOSED));
+        }
+        phase = Phase.STARTED;
+    }
+
+    /**
+     * Commits this Unit of Work. The returned {@link Uni} runs the {@link Phase#PREPARE_COMMIT PREPARE_COMMIT} and
+     * {@link Phase#COMMIT COMMIT} phases and, when this is the root Unit of Work, the
+     * {@link Phase#AFTER_COMMIT AFTER_COMMIT} and {@link Phase#CLEANUP CLEANUP} phases. A nested Unit of Work runs
+     * the latter phases when its root does.
+     * <p>
+     * When a handler of the prepare commit or commit phase fails, the Unit of Work is rolled back and the returned
+     * {@link Uni} fails with that exception.
+     *
+     * @return a {@link Uni} completing when the commit has been processed
+     */
+    public Uni<Void> commit() {
+        return Uni.createFrom().deferred(() -> {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Committing reactive Unit Of Work");
+            }
+            Assert.state(phase == Phase.STARTED,
+                         () -> String.format("The UnitOfWork is in an incompatible phase: %s", phase));
+            Uni<Void> committed = changePhase(Phase.PREPARE_COMMIT)
+                    .flatMap(v -> changePhase(Phase.COMMIT))
+                    .onFailure().recoverWithUni(failure -> changePhase(Phase.ROLLBACK)
+                            .onItem().invoke(v -> rolledBack = true)
+                            .flatMap(v -> isRoot() ? closeAsRoot() : Uni.createFrom().voidItem())
+                            .flatMap(v -> Uni.createFrom().failure(failure)));
+            if (!isRoot()) {
+                return committed.onItem().invoke(v -> {
+                    root().onAfterCommit(r -> changePhase(Phase.AFTER_COMMIT));
+                    parentUnitOfWork.onRollback(r -> changePhase(Phase.ROLLBACK).onItem().invoke(x -> rolledBack = true));
+                });
+            }
+            return committed.flatMap(v -> phase == Phase.COMMIT
+                    ? changePhase(Phase.AFTER_COMMIT)
+                    : Uni.createFrom().voidItem())
+                            .flatMap(v -> closeAsRoot());
+        });
+    }
+
+    /**
+     * Rolls back this Unit of Work, running the {@link Phase#ROLLBACK ROLLBACK} phase and, when this is the root Unit
+     * of Work, the {@link Phase#CLEANUP CLEANUP} phase.
+     *
+     * @param cause the cause of the rollback, may be {@code null}
+     * @return a {@link Uni} completing when the rollback has been processed
+     */
+    public Uni<Void> rollback(Throwable cause) {
+        return Uni.createFrom().deferred(() -> {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Rolling back reactive Unit Of Work.", cause);
+            }
+            Assert.state(phase.isStarted() && phase.isBefore(Phase.ROLLBACK),
+                         () -> String.format("The UnitOfWork is in an incompatible phase: %s", phase));
+            Uni<Void> rollback = changePhase(Phase.ROLLBACK).onItem().invoke(v -> rolledBack = true);
+            return isRoot() ? rollback.flatMap(v -> closeAsRoot()) : rollback;
+        });
+    }
+
+    /**
+     * Registers a handler that is invoked when this Unit of Work is preparing to commit.
+     *
+     * @param handler the handler to register
+     */
+    public void onPrepareCommit(Function<ReactiveUnitOfWork<T>, Uni<Void>> handler) {
+        addHandler(Phase.PREPARE_COMMIT, handler);
+    }
+
+    /**
+     * Registers a handler that is invoked when this Unit of Work commits.
+     *
+     * @param handler the handler to register
+     */
+    public void onCommit(Function<ReactiveUnitOfWork<T>, Uni<Void>> handler) {
+        addHandler(Phase.COMMIT, handler);
+    }
+
+    /**
+     * Registers a handler that is invoked after this Unit of Work has been committed.
+     *
+     * @param handler the handler to register
+     */
+    public void onAfterCommit(Function<ReactiveUnitOfWork<T>, Uni<Void>> handler) {
+        addHandler(Phase.AFTER_COMMIT, handler);
+    }
+
+    /**
+     * Registers a handler that is invoked when this Unit of Work is rolled back.
+     *
+     * @param handler the handler to register
+     */
+    public void onRollback(Function<ReactiveUnitOfWork<T>, Uni<Void>> handler) {
+        addHandler(Phase.ROLLBACK, handler);
+    }
+
+    /**
+     * Registers a handler that is invoked when this Unit of Work cleans up, after it has been committed or rolled
+     * back.
+     *
+     * @param handler the handler to register
+     */
+    public void onCleanup(Function<ReactiveUnitOfWork<T>, Uni<Void>> handler) {
+        addHandler(Phase.CLEANUP, handler);
+    }
+
+    /**
+     * Returns the current phase of this Unit of Work.
+     *
+     * @return the current phase
+     */
+    public Phase phase() {
+        return phase;
+    }
+
+    /**
+     * Indicates whether this Unit of Work has been rolled back.
+     *
+     * @return {@code true} if this Unit of Work was rolled back, {@code false} otherwise
+     */
+    public boolean isRolledBack() {
+        return rolledBack;
+    }
+
+    /**
+     * Returns an optional with the parent Unit of Work, or an empty optional if this is the root Unit of Work.
+     *
+     * @return the parent Unit of Work, if any
+     */
+    public Optional<ReactiveUnitOfWork<?>> parent() {
+        return Optional.ofNullable(parentUnitOfWork);
+    }
+
+    /**
+     * Check that returns {@code true} if this Unit of Work has not got a parent.
+     *
+     * @return {@code true} if this Unit of Work has no parent
+     */
+    public boolean isRoot() {
+        return parentUnitOfWork == null;
+    }
+
+    /**
+     * Returns the root of this Unit of Work. If this Unit of Work has no parent it returns itself.
+     *
+     * @return the root Unit of Work
+     */
+    public ReactiveUnitOfWork<?> root() {
+        return parentUnitOfWork == null ? this : parentUnitOfWork.root();
+    }
+
+    /**
+     * Get the message that is being processed by this Unit of Work.
+     *
+     * @return the message being processed
+     */
+    public T getMessage() {
+        return message;
+    }
+
+    /**
+     * Transform the message being processed using the given operator.
+     *
+     * @param transformOperator the transform operator to apply to the stored message
+     * @return this Unit of Work
+     */
+    @SuppressWarnings("unchecked")
+    public ReactiveUnitOfWork<T> transformMessage(Function<T, ? extends Message<?>> transformOperator) {
+        message = (T) transformOperator.apply(message);
+        correlationData = null;
+        return this;
+    }
+
+    /**
+     * Get the correlation data of this Unit of Work, as provided by the registered
+     * {@link CorrelationDataProvider}s for the message being processed. The correlation data is computed once and the
+     * same {@link MetaData} instance is returned until the message is transformed or another Correlation Data
+     * Provider is registered.
+     *
+     * @return the correlation data of this Unit of Work
+     */
+    public MetaData getCorrelationData() {
+        if (correlationDataProviders.isEmpty()) {
+            return MetaData.emptyInstance();
+        }
+        MetaData result = correlationData;
+        if (result == null) {
+            Map<String, Object> data = new HashMap<>();
+            for (CorrelationDataProvider correlationDataProvider : correlationDataProviders) {
+                final Map<String, ?> extraData = correlationDataProvider.correlationDataFor(message);
+                if (extraData != null) {
+                    data.putAll(extraData);
+                }
+            }
+            result = MetaData.from(data);
+            correlationData = result;
+        }
+        return result;
+    }
+
+    /**
+     * Register given {@code correlationDataProvider} with this Unit of Work.
+     *
+     * @param correlationDataProvider the correlation data provider to register
+     */
+    public void registerCorrelationDataProvider(CorrelationDataProvider correlationDataProvider) {
+        if (correlationDataProviders.add(correlationDataProvider)) {
+            correlationData = null;
+        }
+    }
+
+    /**
+     * Returns a mutable, thread safe map of resources registered with this Unit of Work.
+     *
+     * @return the resources of this Unit of Work
+     */
+    public Map<String, Object> resources() {
+        return resources;
+    }
+
+    /**
+     * Returns the resource attached under given {@code name}, or {@code null} if no such resource is available.
+     *
+     * @param name the name under which the resource was attached
+     * @param <R>  the type of resource
+     * @return the resource mapped to the given {@code name}, or {@code null} if no resource was found
+     */
+    @SuppressWarnings("unchecked")
+    public <R> R getResource(String name) {
+        return (R) resources.get(name);
+    }
+
+    private void addHandler(Phase handlerPhase, Function<ReactiveUnitOfWork<T>, Uni<Void>> handler) {
+        Assert.state(!handlerPhase.isBefore(phase), () -> "Cannot register a listener for phase: " + handlerPhase
+                + " because the Unit of Work is already in a later phase: " + phase);
+        Deque<Function<ReactiveUnitOfWork<T>, Uni<Void>>> consumers = handlers.get(handlerPhase);
+        if (handlerPhase.isReverseCallbackOrder()) {
+            consumers.addFirst(handler);
+        } else {
+            consumers.add(handler);
+        }
+    }
+
+    private Uni<Void> changePhase(Phase newPhase) {
+        return Uni.createFrom().deferred(() -> {
+            phase = newPhase;
+            if (logger.isDebugEnabled()) {
+                logger.debug("Notifying handlers for phase {}", newPhase);
+            }
+            return notifyHandlers(newPhase);
+        });
+    }
+
+    private Uni<Void> notifyHandlers(Phase handlerPhase) {
+        Function<ReactiveUnitOfWork<T>, Uni<Void>> handler = handlers.get(handlerPhase).poll();
+        if (handler == null) {
+            return Uni.createFrom().voidItem();
+        }
+        Uni<Void> invocation = withCurrent(() -> handler.apply(this));
+        if (handlerPhase.isSuppressHandlerErrors()) {
+            invocation = invocation.onFailure().recoverWithItem(e -> {
+                logger.info("An error occurred while executing a lifecycle phase handler for phase {}",
+                            handlerPhase, e);
+                return null;
+            });
+        }
+        return invocation.flatMap(v -> notifyHandlers(handlerPhase));
+    }
+
+    private Uni<Void> closeAsRoot() {
+        return changePhase(Phase.CLEANUP).onItem().invoke(v -> phase = Phase.CLOSED);
+    }
+
+    private <R> Uni<R> withCurrent(Supplier<Uni<R>> action) {
+        ReactiveUnitOfWork<?> previous = ReactiveCurrentUnitOfWork.swap(this);
+        try {
+            Uni<R> result = action.get();
+            return result == null ? Uni.createFrom().nullItem() : result;
+        } catch (Exception e) {
+            return Uni.createFrom().failure(e);
+        } finally {
+            ReactiveCurrentUnitOfWork.swap(previous);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R> ResultMessage<R> asResult(Object result) {
+        if (result instanceof ResultMessage) {
+            return (ResultMessage<R>) result;
+        } else if (result instanceof Message) {
+            return new GenericResultMessage<>((R) result, ((Message<?>) result).getMetaData());
+        }
+        return new GenericResultMessage<>((R) result);
+    }
+
+}
@@ -0,0 +1,46 @@
+package io.cyw.framework.messaging.unitofwork;
+
+import org.eclipse.microprofile.context.spi.ThreadContextController;
+import org.eclipse.microprofile.context.spi.ThreadContextProvider;
+import org.eclipse.microprofile.context.spi.ThreadContextSnapshot;
+
+import java.util.Map;
+
+/**
+ * MicroProfile Context Propagation provider that propagates the {@link ReactiveCurrentUnitOfWork current reactive
+ * Unit of Work}. Mutiny captures the context when a pipeline is assembled and restores it around every callback, so
+ * the Unit of Work in which a {@link io.smallrye.mutiny.Uni} was created is current again when its continuation runs,
+ * even if that happens on another thread.
+ * <p>
+ * The provider is registered through {@code META-INF/services}.
+ */
+public class ReactiveUnitOfWorkContextProvider implements ThreadContextProvider {
+
+    /**
+     * The thread context type under which the reactive Unit of Work is propagated.
+     */
+    public static final String UNIT_OF_WORK_CONTEXT = "io.cyw.framework.UnitOfWork";
+
+    @Override
+    public ThreadContextSnapshot currentContext(Map<String, String> props) {
+        return snapshotOf(ReactiveCurrentUnitOfWork.get().orElse(null));
+    }
+
+    @Override
+    public ThreadContextSnapshot clearedContext(Map<String, String> props) {
+        return snapshotOf(null);
+    }
+
+    @Override
+    public String getThreadContextType() {
+        return UNIT_OF_WORK_CONTEXT;
+    }
+
+    private ThreadContextSnapshot snapshotOf(ReactiveUnitOfWork<?> unitOfWork) {
+        return () -> {
+            ReactiveUnitOfWork<?> previous = ReactiveCurrentUnitOfWork.swap(unitOfWork);
+            return (ThreadContextController) () -> ReactiveCurrentUnitOfWork.swap(previous);
+        };
+    }
+
+}
@@ -2,6 +2,7 @@ package io.cyw.framework.messaging.unitofwork;
 
 import io.cyw.framework.common.transaction.Transaction;
 import io.cyw.framework.common.transaction.TransactionManager;
+import io.cyw.framework.messaging.Deadline;
 import io.cyw.framework.messaging.Message;
 import io.cyw.framework.messaging.MetaData;
 import io.cyw.framework.messaging.ResultMessage;
@@ -9,12 +10,18 @@ import io.cyw.framework.messaging.correlation.CorrelationDataProvider;
 
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.concurrent.Callable;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
 public interface UnitOfWork<T extends Message<?>> {
 
+    /**
+     * The name of the resource holding the {@link TransactionManager} of the transaction attached to a Unit of Work.
+     */
+    String TRANSACTION_MANAGER_RESOURCE = UnitOfWork.class.getName() + ".transactionManager";
+
     /**
      * 开始当前的工作单元。 UnitOfWork实例已在CurrentUnitOfWork中注册
      */
@@ -73,6 +80,34 @@ public interface UnitOfWork<T extends Message<?>> {
 
     T getMessage();
 
+    /**
+     * Returns the {@link Deadline deadline} of the message of this Unit of Work, in milliseconds since the epoch.
+     *
+     * @return the deadline of the message, or an empty OptionalLong if the message does not declare one
+     */
+    default OptionalLong getDeadline() {
+        return Deadline.of(getMessage());
+    }
+
+    /**
+     * Indicates whether the deadline of the message of this Unit of Work has passed, in which case the sender of the
+     * message no longer waits for its result. Long running handlers may check this between steps, to stop consuming
+     * resources for a result that is discarded.
+     *
+     * @return {@code true} if the message declares a deadline that has passed, otherwise {@code false}
+     */
+    default boolean isDeadlineExceeded() {
+        return Deadline.isExpired(getMessage());
+    }
+
+    /**
+     * Throws a {@link io.cyw.framework.messaging.DeadlineExceededException} when the deadline of the message of this
+     * Unit of Work has passed, rolling back this Unit of Work when it is thrown from a task it executes.
+     */
+    default void checkDeadline() {
+        Deadline.check(getMessage());
+    }
+
     UnitOfWork<T> transformMessage(Function<T, ? extends Message<?>> transformOperator);
 
     MetaData getCorrelationData();
@@ -94,8 +129,28 @@ public interface UnitOfWork<T extends Message<?>> {
     }
 
     default void attachTransaction(TransactionManager transactionManager) {
+        attachTransaction(transactionManager, false);
+    }
+
+    /**
+     * Attach a transaction to this Unit of Work, using the given {@code transactionManager}. The transaction will be
+     * managed in the lifecycle of this Unit of Work. Failure to start a transaction will cause this Unit of Work to be
+     * rolled back.
+     * <p>
+     * A nested Unit of Work that attaches the same {@code transactionManager} as its root reuses the transaction of
+     * the root instead of starting one of its own. Its work is then committed or rolled back together with the root.
+     *
+     * @param transactionManager The Transaction Manager to create, commit and/or rollback the transaction
+     * @param readOnly           whether the transaction will only be used to read data, see
+     *                           {@link TransactionManager#startTransaction(boolean)}
+     */
+    default void attachTransaction(TransactionManager transactionManager, boolean readOnly) {
+        if (!isRoot() && root().getResource(TRANSACTION_MANAGER_RESOURCE) == transactionManager) {
+            return;
+        }
         try {
-            Transaction transaction = transactionManager.startTransaction();
+            Transaction transaction = transactionManager.startTransaction(readOnly);
+            resources().put(TRANSACTION_MANAGER_RESOURCE, transactionManager);
             onCommit(u -> transaction.commit());
             onRollback(u -> transaction.rollback());
         } catch (Throwable t) {
@@ -0,0 +1,49 @@
+package io.cyw.framework.queryhandling;
+
+import io.cyw.framework.utils.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * RoutingStrategy that uses the value of the field or method of the query payload annotated with {@link RoutingKey}
+ * as routing key. The annotated member is looked up once per payload type. Queries of which the payload has no
+ * annotated member, or of which the annotated member holds {@code null}, have no routing key.
+ */
+public class AnnotationRoutingStrategy implements RoutingStrategy {
+
+    private final Map<Class<?>, Optional<Member>> routingKeyMembers = new ConcurrentHashMap<>();
+
+    @Override
+    public String getRoutingKey(QueryMessage<?, ?> query) {
+        Object payload = query.getPayload();
+        if (payload == null) {
+            return null;
+        }
+        Optional<Member> member = routingKeyMembers.computeIfAbsent(payload.getClass(), this::findRoutingKeyMember);
+        if (!member.isPresent()) {
+            return null;
+        }
+        Object routingKey = ReflectionUtils.getMemberValue(member.get(), payload);
+        return routingKey == null ? null : routingKey.toString();
+    }
+
+    private Optional<Member> findRoutingKeyMember(Class<?> payloadType) {
+        for (Field field : ReflectionUtils.fieldsOf(payloadType)) {
+            if (field.isAnnotationPresent(RoutingKey.class)) {
+                return Optional.of(ReflectionUtils.ensureAccessible(field));
+            }
+        }
+        for (Method method : ReflectionUtils.methodsOf(payloadType)) {
+            if (method.isAnnotationPresent(RoutingKey.class) && method.getParameterCount() == 0) {
+                return Optional.of(ReflectionUtils.ensureAccessible(method));
+            }
+        }
+        return Optional.empty();
+    }
+
+}
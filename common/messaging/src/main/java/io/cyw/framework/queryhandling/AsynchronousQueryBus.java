@@ -0,0 +1,337 @@
+package io.cyw.framework.queryhandling;
+
+import io.cyw.framework.common.Registration;
+import io.cyw.framework.core.exception.SystemIllegalException;
+import io.cyw.framework.messaging.Deadline;
+import io.cyw.framework.messaging.MessageDispatchInterceptor;
+import io.cyw.framework.messaging.MessageHandler;
+import io.cyw.framework.messaging.MessageHandlerInterceptor;
+import io.cyw.framework.utils.Assert;
+import io.cyw.framework.utils.FutureUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * QueryBus implementation that hands point-to-point queries over to a fixed set of consumer threads through a
+ * pre-allocated ring buffer, and answers them through the {@link CompletableFuture} returned by
+ * {@link #query(QueryMessage)}. The queries are handled by the configured {@code localSegment}, which also holds the
+ * handler subscriptions and interceptors.
+ * <p>
+ * The ring buffer is a bounded multi-producer, multi-consumer queue in which every slot carries a sequence number.
+ * Dispatching threads claim a slot by advancing the producer cursor, and consumer threads claim a batch of up to
+ * {@code batchSize} published slots at once by advancing the consumer cursor, so that a busy consumer pays for a
+ * single claim per batch. The slots are allocated once, a dispatch allocates nothing but the returned future.
+ * <p>
+ * When the ring buffer is full, dispatching threads wait for capacity using the configured {@link WaitStrategy}, which
+ * is also used by consumer threads waiting for queries. Scatter-gather and subscription queries are not queued, but
+ * passed directly to the {@code localSegment}.
+ * <p>
+ * Queries that were cancelled by their caller while queued are skipped, and queries of which the {@link Deadline}
+ * passed while queued are completed with a {@link io.cyw.framework.messaging.DeadlineExceededException} instead of
+ * being handled. Cancelling the returned future once the query is handled cancels the future of the
+ * {@code localSegment}.
+ * <p>
+ * The consumer threads are started when the bus is created, and stopped by {@link #shutdown()}.
+ */
+public class AsynchronousQueryBus implements QueryBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsynchronousQueryBus.class);
+
+    private final QueryBus localSegment;
+
+    private final WaitStrategy waitStrategy;
+
+    private final int batchSize;
+
+    private final int mask;
+
+    private final AtomicLongArray sequences;
+
+    private final QueryMessage<?, ?>[] queries;
+
+    private final CompletableFuture<?>[] futures;
+
+    private final AtomicLong producerCursor = new AtomicLong();
+
+    private final AtomicLong consumerCursor = new AtomicLong();
+
+    private final Thread[] consumers;
+
+    private volatile boolean running = true;
+
+    public AsynchronousQueryBus(Builder builder) {
+        builder.validate();
+        this.localSegment = builder.localSegment;
+        this.waitStrategy = builder.waitStrategy;
+        this.batchSize = builder.batchSize;
+        this.mask = builder.bufferSize - 1;
+        this.sequences = new AtomicLongArray(builder.bufferSize);
+        for (int i = 0; i < builder.bufferSize; i++) {
+            sequences.set(i, i);
+        }
+        this.queries = new QueryMessage<?, ?>[builder.bufferSize];
+        this.futures = new CompletableFuture<?>[builder.bufferSize];
+        this.consumers = new Thread[builder.consumerCount];
+        for (int i = 0; i < consumers.length; i++) {
+            consumers[i] = builder.threadFactory.newThread(this::consume);
+            consumers[i].start();
+        }
+    }
+
+    @Override
+    public <R> Registration subscribe(String queryName, Type responseType,
+                                      MessageHandler<? super QueryMessage<?, R>> handler) {
+        return localSegment.subscribe(queryName, responseType, handler);
+    }
+
+    @Override
+    public <Q, R> CompletableFuture<QueryResponseMessage<R>> query(QueryMessage<Q, R> query) {
+        CompletableFuture<QueryResponseMessage<R>> result = new CompletableFuture<>();
+        int idle = 0;
+        while (running) {
+            long position = producerCursor.get();
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (producerCursor.compareAndSet(position, position + 1)) {
+                    queries[index] = query;
+                    futures[index] = result;
+                    sequences.set(index, position + 1);
+                    return result;
+                }
+            } else if (difference < 0) {
+                // the buffer is full, wait for the consumers to free a slot
+                idle = waitStrategy.idle(idle);
+            }
+        }
+        result.completeExceptionally(new SystemIllegalException("The AsynchronousQueryBus has been shut down"));
+        return result;
+    }
+
+    @Override
+    public <Q, R> Stream<QueryResponseMessage<R>> scatterGather(QueryMessage<Q, R> query, long timeout,
+                                                                TimeUnit unit) {
+        return localSegment.scatterGather(query, timeout, unit);
+    }
+
+    @Override
+    public <Q, I, U> SubscriptionQueryResult<QueryResponseMessage<I>, SubscriptionQueryUpdateMessage<U>> subscriptionQuery(
+            SubscriptionQueryMessage<Q, I, U> query, int updateBufferSize) {
+        return localSegment.subscriptionQuery(query, updateBufferSize);
+    }
+
+    @Override
+    public QueryUpdateEmitter queryUpdateEmitter() {
+        return localSegment.queryUpdateEmitter();
+    }
+
+    @Override
+    public Registration registerHandlerInterceptor(MessageHandlerInterceptor<? super QueryMessage<?, ?>> handlerInterceptor) {
+        return localSegment.registerHandlerInterceptor(handlerInterceptor);
+    }
+
+    @Override
+    public Registration registerDispatchInterceptor(MessageDispatchInterceptor<QueryMessage<?, ?>> dispatchInterceptor) {
+        return localSegment.registerDispatchInterceptor(dispatchInterceptor);
+    }
+
+    /**
+     * Returns the number of queries that were dispatched but not yet picked up by a consumer thread.
+     *
+     * @return the number of queued queries
+     */
+    public long queuedCount() {
+        return Math.max(0, producerCursor.get() - consumerCursor.get());
+    }
+
+    /**
+     * Stops accepting queries and stops the consumer threads once they have handed the queued queries over to the
+     * local segment. Blocks until the consumer threads have stopped.
+     */
+    public void shutdown() {
+        running = false;
+        for (Thread consumer : consumers) {
+            try {
+                consumer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void consume() {
+        int idle = 0;
+        while (running || queuedCount() > 0) {
+            long position = consumerCursor.get();
+            int available = 0;
+            while (available < batchSize
+                    && sequences.get((int) (position + available) & mask) == position + available + 1) {
+                available++;
+            }
+            if (available == 0) {
+                idle = waitStrategy.idle(idle);
+            } else if (consumerCursor.compareAndSet(position, position + available)) {
+                idle = 0;
+                for (int i = 0; i < available; i++) {
+                    dispatch(position + i);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void dispatch(long sequence) {
+        int index = (int) sequence & mask;
+        QueryMessage<Object, Object> query = (QueryMessage<Object, Object>) queries[index];
+        CompletableFuture<QueryResponseMessage<Object>> future =
+                (CompletableFuture<QueryResponseMessage<Object>>) futures[index];
+        queries[index] = null;
+        futures[index] = null;
+        sequences.set(index, sequence + mask + 1);
+        if (future.isDone()) {
+            // the caller cancelled the query while it was queued
+            return;
+        }
+        if (Deadline.isExpired(query)) {
+            future.completeExceptionally(Deadline.exceeded(query));
+            return;
+        }
+        try {
+            CompletableFuture<QueryResponseMessage<Object>> result = localSegment.query(query);
+            FutureUtils.propagateCancellation(future, result);
+            result.whenComplete((response, failure) -> {
+                if (failure != null) {
+                    future.completeExceptionally(failure);
+                } else {
+                    future.complete(response);
+                }
+            });
+        } catch (Exception e) {
+            logger.debug("Local segment failed to dispatch query [{}]", query.getQueryName(), e);
+            future.completeExceptionally(e);
+        }
+    }
+
+    public static class Builder {
+
+        private QueryBus localSegment;
+
+        private int bufferSize = 1024;
+
+        private int batchSize = 32;
+
+        private int consumerCount = Runtime.getRuntime().availableProcessors();
+
+        private WaitStrategy waitStrategy = WaitStrategy.PARKING;
+
+        private ThreadFactory threadFactory = new ThreadFactory() {
+
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "AsynchronousQueryBus-" + counter.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+
+        /**
+         * Sets the {@link QueryBus} that holds the query handlers and handles the queued queries.
+         *
+         * @param localSegment the QueryBus handling the queries
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder localSegment(QueryBus localSegment) {
+            Assert.nonNull(localSegment, () -> "Local segment may not be null");
+            this.localSegment = localSegment;
+            return this;
+        }
+
+        /**
+         * Sets the number of slots in the ring buffer, which must be a power of two. Defaults to {@code 1024}.
+         *
+         * @param bufferSize the number of slots in the ring buffer
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder bufferSize(int bufferSize) {
+            Assert.isTrue(bufferSize > 0 && Integer.bitCount(bufferSize) == 1,
+                          () -> "The bufferSize must be a positive power of two");
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of queries a consumer thread claims at once. Defaults to {@code 32}.
+         *
+         * @param batchSize the maximum number of queries claimed at once
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder batchSize(int batchSize) {
+            Assert.isTrue(batchSize > 0, () -> "The batchSize must be positive");
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * Sets the number of consumer threads. Defaults to the number of available processors.
+         *
+         * @param consumerCount the number of consumer threads
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder consumerCount(int consumerCount) {
+            Assert.isTrue(consumerCount > 0, () -> "The consumerCount must be positive");
+            this.consumerCount = consumerCount;
+            return this;
+        }
+
+        /**
+         * Sets the {@link WaitStrategy} of consumer threads waiting for queries and of dispatching threads waiting for
+         * capacity. Defaults to {@link WaitStrategy#PARKING}.
+         *
+         * @param waitStrategy the strategy used by waiting threads
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder waitStrategy(WaitStrategy waitStrategy) {
+            Assert.nonNull(waitStrategy, () -> "WaitStrategy may not be null");
+            this.waitStrategy = waitStrategy;
+            return this;
+        }
+
+        /**
+         * Sets the {@link ThreadFactory} creating the consumer threads. Defaults to a factory creating daemon threads
+         * named {@code AsynchronousQueryBus-n}.
+         *
+         * @param threadFactory the factory creating the consumer threads
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder threadFactory(ThreadFactory threadFactory) {
+            Assert.nonNull(threadFactory, () -> "ThreadFactory may not be null");
+            this.threadFactory = threadFactory;
+            return this;
+        }
+
+        /**
+         * Validate whether the fields contained in this Builder as set accordingly.
+         */
+        protected void validate() {
+            Assert.nonNull(localSegment, () -> "The local segment is a hard requirement and should be provided");
+        }
+
+        public AsynchronousQueryBus build() {
+            return new AsynchronousQueryBus(this);
+        }
+
+    }
+
+}
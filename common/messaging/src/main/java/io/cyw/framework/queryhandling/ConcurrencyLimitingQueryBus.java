@@ -0,0 +1,328 @@
+package io.cyw.framework.queryhandling;
+
+import io.cyw.framework.common.Registration;
+import io.cyw.framework.messaging.Deadline;
+import io.cyw.framework.messaging.MessageDispatchInterceptor;
+import io.cyw.framework.messaging.MessageHandler;
+import io.cyw.framework.messaging.MessageHandlerInterceptor;
+import io.cyw.framework.utils.Assert;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * QueryBus decorator that limits the number of point-to-point queries with the same query name that are handled
+ * concurrently, and rejects queries exceeding the limit with a {@link QueryRejectedException} instead of queueing
+ * them.
+ * <p>
+ * The limit of every query name adapts to the observed latency of its queries. The latency of every completed query is
+ * compared to a long term average: as long as queries are not slower than the average, the limit grows by about the
+ * square root of the limit, and when queries get slower, which indicates that they queue up somewhere, the limit is
+ * reduced proportionally. The limit does not grow while fewer than half of the allowed queries are in flight.
+ * <p>
+ * {@link QueryPriority#BATCH Batch} queries may only use a share of the limit, so that under load they are rejected
+ * while {@link QueryPriority#INTERACTIVE interactive} queries are still accepted.
+ * <p>
+ * Admitting and completing a query only involves compare-and-set operations, no locks are taken. As a
+ * {@link MessageDispatchInterceptor} cannot observe when a query completes, the limiter is implemented as a decorator
+ * of the QueryBus. Scatter-gather and subscription queries are not limited.
+ * <p>
+ * Queries of which the {@link Deadline} has passed are not admitted, and the future of the delegate is returned as is,
+ * so that cancelling it stops the delegate and frees the share of the limit of the abandoned query.
+ */
+public class ConcurrencyLimitingQueryBus implements QueryBus {
+
+    private final QueryBus delegate;
+
+    private final int initialLimit;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double smoothing;
+
+    private final double batchShare;
+
+    private final Map<String, Limiter> limiters = new ConcurrentHashMap<>();
+
+    private final LongAdder rejected = new LongAdder();
+
+    public ConcurrencyLimitingQueryBus(Builder builder) {
+        builder.validate();
+        this.delegate = builder.delegate;
+        this.initialLimit = builder.initialLimit;
+        this.minLimit = builder.minLimit;
+        this.maxLimit = builder.maxLimit;
+        this.smoothing = builder.smoothing;
+        this.batchShare = builder.batchShare;
+    }
+
+    @Override
+    public <R> Registration subscribe(String queryName, Type responseType,
+                                      MessageHandler<? super QueryMessage<?, R>> handler) {
+        return delegate.subscribe(queryName, responseType, handler);
+    }
+
+    @Override
+    public <Q, R> CompletableFuture<QueryResponseMessage<R>> query(QueryMessage<Q, R> query) {
+        if (Deadline.isExpired(query)) {
+            CompletableFuture<QueryResponseMessage<R>> result = new CompletableFuture<>();
+            result.completeExceptionally(Deadline.exceeded(query));
+            return result;
+        }
+        Limiter limiter = limiterOf(query.getQueryName());
+        double share = QueryPriority.of(query) == QueryPriority.BATCH ? batchShare : 1.0;
+        if (!limiter.tryAcquire(share)) {
+            rejected.increment();
+            CompletableFuture<QueryResponseMessage<R>> result = new CompletableFuture<>();
+            result.completeExceptionally(new QueryRejectedException(
+                    "Query [" + query.getQueryName() + "] was rejected, the concurrency limit of "
+                            + limiter.getLimit() + " has been reached"));
+            return result;
+        }
+        long start = System.nanoTime();
+        CompletableFuture<QueryResponseMessage<R>> result;
+        try {
+            result = delegate.query(query);
+        } catch (RuntimeException e) {
+            limiter.release(0, false);
+            throw e;
+        }
+        // the future of the delegate is returned, so that cancelling it stops the delegate and releases the limit
+        result.whenComplete((response, failure) -> limiter.release(
+                System.nanoTime() - start, failure == null && !response.isExceptional()));
+        return result;
+    }
+
+    @Override
+    public <Q, R> Stream<QueryResponseMessage<R>> scatterGather(QueryMessage<Q, R> query, long timeout,
+                                                                TimeUnit unit) {
+        return delegate.scatterGather(query, timeout, unit);
+    }
+
+    @Override
+    public <Q, I, U> SubscriptionQueryResult<QueryResponseMessage<I>, SubscriptionQueryUpdateMessage<U>> subscriptionQuery(
+            SubscriptionQueryMessage<Q, I, U> query, int updateBufferSize) {
+        return delegate.subscriptionQuery(query, updateBufferSize);
+    }
+
+    @Override
+    public QueryUpdateEmitter queryUpdateEmitter() {
+        return delegate.queryUpdateEmitter();
+    }
+
+    @Override
+    public Registration registerHandlerInterceptor(MessageHandlerInterceptor<? super QueryMessage<?, ?>> handlerInterceptor) {
+        return delegate.registerHandlerInterceptor(handlerInterceptor);
+    }
+
+    @Override
+    public Registration registerDispatchInterceptor(MessageDispatchInterceptor<QueryMessage<?, ?>> dispatchInterceptor) {
+        return delegate.registerDispatchInterceptor(dispatchInterceptor);
+    }
+
+    /**
+     * Returns the current concurrency limit of queries with the given {@code queryName}.
+     *
+     * @param queryName the name of the query
+     * @return the current concurrency limit
+     */
+    public int getLimit(String queryName) {
+        return limiterOf(queryName).getLimit();
+    }
+
+    /**
+     * Returns the number of queries with the given {@code queryName} that are currently being handled.
+     *
+     * @param queryName the name of the query
+     * @return the number of queries in flight
+     */
+    public int getInFlight(String queryName) {
+        return limiterOf(queryName).inFlight.get();
+    }
+
+    /**
+     * Returns the number of queries rejected since this bus was created.
+     *
+     * @return the number of rejected queries
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    private Limiter limiterOf(String queryName) {
+        Limiter limiter = limiters.get(queryName);
+        return limiter != null ? limiter : limiters.computeIfAbsent(queryName, name -> new Limiter());
+    }
+
+    private final class Limiter {
+
+        private static final double LONG_WINDOW = 600;
+
+        private static final double TOLERANCE = 1.5;
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private final AtomicLong limit = new AtomicLong(Double.doubleToRawLongBits(initialLimit));
+
+        private final AtomicLong longRtt = new AtomicLong(Double.doubleToRawLongBits(0));
+
+        private boolean tryAcquire(double share) {
+            int allowed = Math.max(1, (int) (Double.longBitsToDouble(limit.get()) * share));
+            int current;
+            do {
+                current = inFlight.get();
+                if (current >= allowed) {
+                    return false;
+                }
+            } while (!inFlight.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        private void release(long rttNanos, boolean sample) {
+            int inFlightAtCompletion = inFlight.getAndDecrement();
+            if (!sample || rttNanos <= 0) {
+                return;
+            }
+            double shortRtt = rttNanos;
+            double averageRtt = updateLongRtt(shortRtt);
+            double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * averageRtt / shortRtt));
+            long currentBits = limit.get();
+            double current = Double.longBitsToDouble(currentBits);
+            if (gradient >= 1.0 && inFlightAtCompletion < current / 2) {
+                // the limit is not what restricts throughput, growing it would not be backed by measurements
+                return;
+            }
+            double newLimit = current * gradient + Math.sqrt(current);
+            newLimit = current * (1 - smoothing) + newLimit * smoothing;
+            newLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+            // when another completion updated the limit concurrently, its update wins
+            limit.compareAndSet(currentBits, Double.doubleToRawLongBits(newLimit));
+        }
+
+        private double updateLongRtt(double sample) {
+            long currentBits;
+            double updated;
+            do {
+                currentBits = longRtt.get();
+                double current = Double.longBitsToDouble(currentBits);
+                if (current == 0) {
+                    updated = sample;
+                } else {
+                    updated = current + (sample - current) / LONG_WINDOW;
+                    if (updated / sample > 2) {
+                        // latency dropped for good, let the average follow quickly
+                        updated = updated * 0.95;
+                    }
+                }
+            } while (!longRtt.compareAndSet(currentBits, Double.doubleToRawLongBits(updated)));
+            return updated;
+        }
+
+        private int getLimit() {
+            return (int) Double.longBitsToDouble(limit.get());
+        }
+    }
+
+    public static class Builder {
+
+        private QueryBus delegate;
+
+        private int initialLimit = 20;
+
+        private int minLimit = 1;
+
+        private int maxLimit = 1000;
+
+        private double smoothing = 0.2;
+
+        private double batchShare = 0.5;
+
+        /**
+         * Sets the {@link QueryBus} handling the admitted queries.
+         *
+         * @param delegate the QueryBus handling the queries
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder delegate(QueryBus delegate) {
+            Assert.nonNull(delegate, () -> "Delegate QueryBus may not be null");
+            this.delegate = delegate;
+            return this;
+        }
+
+        /**
+         * Sets the limit of every query name before any latency was observed. Defaults to {@code 20}.
+         *
+         * @param initialLimit the initial concurrency limit
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder initialLimit(int initialLimit) {
+            Assert.isTrue(initialLimit > 0, () -> "The initialLimit must be positive");
+            this.initialLimit = initialLimit;
+            return this;
+        }
+
+        /**
+         * Sets the lower and upper bounds of the limit of every query name. Defaults to {@code 1} and {@code 1000}.
+         *
+         * @param minLimit the minimum concurrency limit
+         * @param maxLimit the maximum concurrency limit
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder limitBounds(int minLimit, int maxLimit) {
+            Assert.isTrue(minLimit > 0 && minLimit <= maxLimit,
+                          () -> "The minLimit must be positive and may not exceed the maxLimit");
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        /**
+         * Sets the weight of a new measurement in the limit, between {@code 0} (exclusive) and {@code 1}. Higher
+         * values make the limit react faster, and fluctuate more. Defaults to {@code 0.2}.
+         *
+         * @param smoothing the weight of a new measurement
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder smoothing(double smoothing) {
+            Assert.isTrue(smoothing > 0 && smoothing <= 1, () -> "The smoothing must be in the range (0, 1]");
+            this.smoothing = smoothing;
+            return this;
+        }
+
+        /**
+         * Sets the share of the limit {@link QueryPriority#BATCH batch} queries may use. Defaults to {@code 0.5}.
+         *
+         * @param batchShare the share of the limit available to batch queries
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder batchShare(double batchShare) {
+            Assert.isTrue(batchShare > 0 && batchShare <= 1, () -> "The batchShare must be in the range (0, 1]");
+            this.batchShare = batchShare;
+            return this;
+        }
+
+        /**
+         * Validate whether the fields contained in this Builder as set accordingly.
+         */
+        protected void validate() {
+            Assert.nonNull(delegate, () -> "The delegate QueryBus is a hard requirement and should be provided");
+            Assert.isTrue(initialLimit >= minLimit && initialLimit <= maxLimit,
+                          () -> "The initialLimit must be within the limit bounds");
+        }
+
+        public ConcurrencyLimitingQueryBus build() {
+            return new ConcurrencyLimitingQueryBus(this);
+        }
+
+    }
+
+}
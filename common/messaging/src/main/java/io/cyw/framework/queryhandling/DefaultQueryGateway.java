@@ -1,6 +1,8 @@
 package io.cyw.framework.queryhandling;
 
 import io.cyw.framework.common.Registration;
+import io.cyw.framework.messaging.Deadline;
+import io.cyw.framework.messaging.DeadlineExceededException;
 import io.cyw.framework.messaging.MessageDispatchInterceptor;
 import io.cyw.framework.messaging.MessageResultHandlerInterceptor;
 import io.cyw.framework.messaging.ResultMessage;
@@ -13,6 +15,7 @@ import io.smallrye.mutiny.tuples.Tuple2;
 import java.time.Duration;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
@@ -28,9 +31,12 @@ public class DefaultQueryGateway implements QueryGateway {
 
     private final QueryBus queryBus;
 
+    private final QueryCoalescer queryCoalescer;
+
     public DefaultQueryGateway(Builder builder) {
         builder.validate();
         this.queryBus = builder.queryBus;
+        this.queryCoalescer = builder.queryCoalescer;
         this.dispatchInterceptors = new CopyOnWriteArrayList<>(builder.dispatchInterceptors);
         this.resultInterceptors = new CopyOnWriteArrayList<>(builder.resultInterceptors);
     }
@@ -51,6 +57,20 @@ public class DefaultQueryGateway implements QueryGateway {
                 .transformToMulti(this::processResultsInterceptors).<R>plug(this::getPayload).toUni();
     }
 
+    @Override
+    public <R, Q> Uni<R> query(String queryName, Q query, ResponseType<R> responseType, Duration timeout) {
+        return Uni.createFrom().<QueryMessage<?, ?>>item(
+                () -> new GenericQueryMessage<>(asMessage(query).andMetaData(Deadline.after(timeout)),
+                                                queryName, responseType)).plug(
+                this::processDispatchInterceptors)
+                .flatMap(this::dispatchQuery)
+                .onItem()
+                .transformToMulti(this::processResultsInterceptors).<R>plug(this::getPayload).toUni()
+                .ifNoItem().after(timeout)
+                .failWith(() -> new DeadlineExceededException(
+                        "No response to query [" + queryName + "] within " + timeout));
+    }
+
     @Override
     public <R, Q> Multi<R> scatterGather(String queryName, Q query, ResponseType<R> responseType, Duration timeout) {
         return Uni.createFrom().<QueryMessage<?, ?>>item(
@@ -142,8 +162,18 @@ public class DefaultQueryGateway implements QueryGateway {
 
     private Uni<Tuple2<QueryMessage<?, ?>, ResultMessage<?>>> dispatchQuery(QueryMessage<?, ?> queryMessage) {
         Uni<ResultMessage<?>> results = Uni.createFrom()
-                .deferred(() -> Uni.createFrom()
-                        .completionStage(queryBus.query(queryMessage)));
+                .deferred(() -> {
+                    if (Deadline.isExpired(queryMessage)) {
+                        return Uni.createFrom().failure(Deadline.exceeded(queryMessage));
+                    }
+                    CompletableFuture<? extends ResultMessage<?>> result =
+                            queryCoalescer == null
+                                    ? queryBus.query(queryMessage)
+                                    : queryCoalescer.coalesce(queryMessage, queryBus::query);
+                    // a subscriber that gives up, for example on timeout, cancels the dispatched query
+                    return Uni.createFrom().<ResultMessage<?>>completionStage(result)
+                            .onCancellation().invoke(() -> result.cancel(true));
+                });
 
         return Uni.combine()
                 .all()
@@ -176,6 +206,8 @@ public class DefaultQueryGateway implements QueryGateway {
 
         private List<MessageResultHandlerInterceptor<QueryMessage<?, ?>, ResultMessage<?>>> resultInterceptors = new CopyOnWriteArrayList<>();
 
+        private QueryCoalescer queryCoalescer;
+
         /**
          * Sets the {@link QueryBus} used to dispatch queries.
          *
@@ -238,6 +270,17 @@ public class DefaultQueryGateway implements QueryGateway {
             return this;
         }
 
+        /**
+         * Sets the {@link QueryCoalescer} used to dispatch identical point-to-point queries that are in flight at the
+         * same time only once. Defaults to {@code null}, dispatching every query.
+         *
+         * @param queryCoalescer the coalescer of identical in-flight queries
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder queryCoalescer(QueryCoalescer queryCoalescer) {
+            this.queryCoalescer = queryCoalescer;
+            return this;
+        }
 
         /**
          * Validate whether the fields contained in this Builder as set accordingly.
@@ -0,0 +1,36 @@
+package io.cyw.framework.queryhandling;
+
+/**
+ * Policy deciding whether, and after which delay, a {@link HedgingQueryBus} dispatches a second attempt of a query
+ * that has not been answered yet. The policy learns from the latencies of the queries that were answered, which the
+ * bus reports through {@link #recordLatency(QueryMessage, long)}.
+ * <p>
+ * Policies receive the complete {@link QueryMessage}, so that they can take the query name and the
+ * {@link io.cyw.framework.messaging.responsetypes.ResponseType response type} into account: a query expecting a single
+ * instance and one expecting a list of instances usually have very different latencies, and only queries without
+ * side effects should be hedged.
+ */
+public interface HedgingPolicy {
+
+    /**
+     * The value returned by {@link #hedgeDelayNanos(QueryMessage)} for queries that must not be hedged.
+     */
+    long NO_HEDGE = -1;
+
+    /**
+     * Returns the time to wait for the response to the given {@code query} before a second attempt is dispatched.
+     *
+     * @param query the query about to be dispatched
+     * @return the delay in nanoseconds, or {@link #NO_HEDGE} if the query must not be hedged
+     */
+    long hedgeDelayNanos(QueryMessage<?, ?> query);
+
+    /**
+     * Records the latency of a successful attempt of the given {@code query}.
+     *
+     * @param query        the query that was answered
+     * @param latencyNanos the time between dispatching the attempt and receiving its response, in nanoseconds
+     */
+    void recordLatency(QueryMessage<?, ?> query, long latencyNanos);
+
+}
@@ -0,0 +1,312 @@
+package io.cyw.framework.queryhandling;
+
+import io.cyw.framework.common.Registration;
+import io.cyw.framework.messaging.Deadline;
+import io.cyw.framework.messaging.GenericMessage;
+import io.cyw.framework.messaging.Message;
+import io.cyw.framework.messaging.MessageDispatchInterceptor;
+import io.cyw.framework.messaging.MessageHandler;
+import io.cyw.framework.messaging.MessageHandlerInterceptor;
+import io.cyw.framework.utils.Assert;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * QueryBus decorator that hedges point-to-point queries: when a query has not been answered after the delay given by
+ * the {@link HedgingPolicy}, a second attempt of the query is dispatched, and the first successful response of either
+ * attempt is returned. The other attempt is then cancelled. An attempt that fails while the other one is still in
+ * flight is ignored, the query only fails when both attempts failed.
+ * <p>
+ * The second attempt is a copy of the query with a new identifier, carrying the number of the attempt in the
+ * {@link #ATTEMPT_META_DATA_KEY} meta data entry. Routing buses use it to send the attempt to another handler, the
+ * {@link io.cyw.framework.queryhandling.distributed.DistributedQueryBus} for example routes it to the next member
+ * handling the query. Queries are not hedged when their {@link Deadline} passes before the hedging delay.
+ * <p>
+ * The latencies of successful attempts, and of the responses of scatter-gather queries as they are consumed, are
+ * reported to the policy. Scatter-gather queries already reach every handler and are not hedged themselves.
+ */
+public class HedgingQueryBus implements QueryBus {
+
+    /**
+     * The key of the meta data entry holding the number of the attempt of a hedged query. The first attempt does not
+     * carry the entry.
+     */
+    public static final String ATTEMPT_META_DATA_KEY = "hedgeAttempt";
+
+    private final QueryBus delegate;
+
+    private final HedgingPolicy hedgingPolicy;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final boolean ownsScheduler;
+
+    private final LongAdder hedged = new LongAdder();
+
+    private final LongAdder hedgeWins = new LongAdder();
+
+    public HedgingQueryBus(Builder builder) {
+        builder.validate();
+        this.delegate = builder.delegate;
+        this.hedgingPolicy = builder.hedgingPolicy;
+        this.ownsScheduler = builder.scheduler == null;
+        this.scheduler = !ownsScheduler ? builder.scheduler : Executors.newSingleThreadScheduledExecutor(
+                runnable -> {
+                    Thread thread = new Thread(runnable, "HedgingQueryBus");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Returns the number of the attempt of the given {@code message}.
+     *
+     * @param message the message to return the attempt of
+     * @return the number of the attempt, {@code 0} for the first attempt
+     */
+    public static int attemptOf(Message<?> message) {
+        Object value = message.getMetaData().get(ATTEMPT_META_DATA_KEY);
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        return value == null ? 0 : Integer.parseInt(value.toString());
+    }
+
+    @Override
+    public <R> Registration subscribe(String queryName, Type responseType,
+                                      MessageHandler<? super QueryMessage<?, R>> handler) {
+        return delegate.subscribe(queryName, responseType, handler);
+    }
+
+    @Override
+    public <Q, R> CompletableFuture<QueryResponseMessage<R>> query(QueryMessage<Q, R> query) {
+        long delay = hedgingPolicy.hedgeDelayNanos(query);
+        if (delay != HedgingPolicy.NO_HEDGE && TimeUnit.MILLISECONDS.toNanos(Deadline.remainingMillis(query)) <= delay) {
+            delay = HedgingPolicy.NO_HEDGE;
+        }
+        if (delay == HedgingPolicy.NO_HEDGE) {
+            long start = System.nanoTime();
+            CompletableFuture<QueryResponseMessage<R>> result = delegate.query(query);
+            result.whenComplete((response, failure) -> recordLatency(query, start, response, failure));
+            return result;
+        }
+        HedgedQuery<Q, R> hedgedQuery = new HedgedQuery<>(query);
+        hedgedQuery.dispatch(query);
+        ScheduledFuture<?> timer = scheduler.schedule(hedgedQuery::hedge, delay, TimeUnit.NANOSECONDS);
+        hedgedQuery.result.whenComplete((response, failure) -> {
+            timer.cancel(false);
+            hedgedQuery.cancelAttempts();
+        });
+        return hedgedQuery.result;
+    }
+
+    @Override
+    public <Q, R> Stream<QueryResponseMessage<R>> scatterGather(QueryMessage<Q, R> query, long timeout,
+                                                                TimeUnit unit) {
+        long start = System.nanoTime();
+        return delegate.scatterGather(query, timeout, unit)
+                       .peek(response -> recordLatency(query, start, response, null));
+    }
+
+    @Override
+    public <Q, I, U> SubscriptionQueryResult<QueryResponseMessage<I>, SubscriptionQueryUpdateMessage<U>> subscriptionQuery(
+            SubscriptionQueryMessage<Q, I, U> query, int updateBufferSize) {
+        return delegate.subscriptionQuery(query, updateBufferSize);
+    }
+
+    @Override
+    public QueryUpdateEmitter queryUpdateEmitter() {
+        return delegate.queryUpdateEmitter();
+    }
+
+    @Override
+    public Registration registerHandlerInterceptor(MessageHandlerInterceptor<? super QueryMessage<?, ?>> handlerInterceptor) {
+        return delegate.registerHandlerInterceptor(handlerInterceptor);
+    }
+
+    @Override
+    public Registration registerDispatchInterceptor(MessageDispatchInterceptor<QueryMessage<?, ?>> dispatchInterceptor) {
+        return delegate.registerDispatchInterceptor(dispatchInterceptor);
+    }
+
+    /**
+     * Returns the number of queries for which a second attempt was dispatched.
+     *
+     * @return the number of hedged queries
+     */
+    public long getHedgedCount() {
+        return hedged.sum();
+    }
+
+    /**
+     * Returns the number of hedged queries that were answered by the second attempt.
+     *
+     * @return the number of queries answered by the second attempt
+     */
+    public long getHedgeWinCount() {
+        return hedgeWins.sum();
+    }
+
+    /**
+     * Stops the scheduler of this bus, when it was created by the bus. Queries that are in flight are no longer
+     * hedged.
+     */
+    public void shutdown() {
+        if (ownsScheduler) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void recordLatency(QueryMessage<?, ?> query, long start, QueryResponseMessage<?> response,
+                               Throwable failure) {
+        if (failure == null && !response.isExceptional()) {
+            hedgingPolicy.recordLatency(query, System.nanoTime() - start);
+        }
+    }
+
+    private final class HedgedQuery<Q, R> {
+
+        private final QueryMessage<Q, R> query;
+
+        private final CompletableFuture<QueryResponseMessage<R>> result = new CompletableFuture<>();
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private volatile CompletableFuture<QueryResponseMessage<R>> primary;
+
+        private volatile CompletableFuture<QueryResponseMessage<R>> secondary;
+
+        private HedgedQuery(QueryMessage<Q, R> query) {
+            this.query = query;
+        }
+
+        private CompletableFuture<QueryResponseMessage<R>> dispatch(QueryMessage<Q, R> attempt) {
+            long start = System.nanoTime();
+            inFlight.incrementAndGet();
+            CompletableFuture<QueryResponseMessage<R>> future;
+            try {
+                future = delegate.query(attempt);
+            } catch (RuntimeException e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+            if (attempt == query) {
+                primary = future;
+            } else {
+                secondary = future;
+            }
+            boolean secondAttempt = attempt != query;
+            future.whenComplete((response, failure) -> {
+                if (failure == null && !response.isExceptional()) {
+                    hedgingPolicy.recordLatency(query, System.nanoTime() - start);
+                    if (result.complete(response) && secondAttempt) {
+                        hedgeWins.increment();
+                    }
+                } else if (inFlight.decrementAndGet() == 0) {
+                    if (failure != null) {
+                        result.completeExceptionally(failure);
+                    } else {
+                        result.complete(response);
+                    }
+                }
+            });
+            return future;
+        }
+
+        private void hedge() {
+            if (result.isDone()) {
+                return;
+            }
+            hedged.increment();
+            CompletableFuture<QueryResponseMessage<R>> future = dispatch(secondAttempt());
+            if (result.isDone()) {
+                // answered while the second attempt was dispatched
+                future.cancel(true);
+            }
+        }
+
+        private QueryMessage<Q, R> secondAttempt() {
+            Message<Q> message = new GenericMessage<>(query.getPayloadType(), query.getPayload(),
+                                                      query.getMetaData().and(ATTEMPT_META_DATA_KEY, 1));
+            return new GenericQueryMessage<>(message, query.getQueryName(), query.getResponseType());
+        }
+
+        private void cancelAttempts() {
+            CompletableFuture<QueryResponseMessage<R>> first = primary;
+            CompletableFuture<QueryResponseMessage<R>> second = secondary;
+            if (first != null) {
+                first.cancel(true);
+            }
+            if (second != null) {
+                second.cancel(true);
+            }
+        }
+    }
+
+    public static class Builder {
+
+        private QueryBus delegate;
+
+        private HedgingPolicy hedgingPolicy = new PercentileHedgingPolicy.Builder().build();
+
+        private ScheduledExecutorService scheduler;
+
+        /**
+         * Sets the {@link QueryBus} dispatching the attempts of the queries.
+         *
+         * @param delegate the QueryBus dispatching the queries
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder delegate(QueryBus delegate) {
+            Assert.nonNull(delegate, () -> "Delegate QueryBus may not be null");
+            this.delegate = delegate;
+            return this;
+        }
+
+        /**
+         * Sets the {@link HedgingPolicy} deciding when queries are hedged. Defaults to a
+         * {@link PercentileHedgingPolicy} hedging queries after the 95th percentile of their latency.
+         *
+         * @param hedgingPolicy the policy deciding when queries are hedged
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder hedgingPolicy(HedgingPolicy hedgingPolicy) {
+            Assert.nonNull(hedgingPolicy, () -> "HedgingPolicy may not be null");
+            this.hedgingPolicy = hedgingPolicy;
+            return this;
+        }
+
+        /**
+         * Sets the scheduler dispatching the second attempts. Defaults to a single daemon thread created by the bus.
+         *
+         * @param scheduler the scheduler dispatching the second attempts
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder scheduler(ScheduledExecutorService scheduler) {
+            Assert.nonNull(scheduler, () -> "Scheduler may not be null");
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        /**
+         * Validate whether the fields contained in this Builder as set accordingly.
+         */
+        protected void validate() {
+            Assert.nonNull(delegate, () -> "The delegate QueryBus is a hard requirement and should be provided");
+        }
+
+        public HedgingQueryBus build() {
+            return new HedgingQueryBus(this);
+        }
+
+    }
+
+}
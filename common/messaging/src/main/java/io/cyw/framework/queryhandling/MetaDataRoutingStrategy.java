@@ -0,0 +1,40 @@
+package io.cyw.framework.queryhandling;
+
+import io.cyw.framework.utils.Assert;
+
+/**
+ * RoutingStrategy that uses the value of a {@link io.cyw.framework.messaging.MetaData} entry of the query as routing
+ * key. When the query does not contain the entry, the routing key is resolved by the {@code fallback} strategy.
+ */
+public class MetaDataRoutingStrategy implements RoutingStrategy {
+
+    /**
+     * The default key of the meta data entry holding the routing key.
+     */
+    public static final String ROUTING_KEY = "routingKey";
+
+    private final String metaDataKey;
+
+    private final RoutingStrategy fallback;
+
+    /**
+     * Initializes a strategy that reads the routing key from the meta data entry with the given {@code metaDataKey},
+     * and falls back to the given {@code fallback} strategy for queries without that entry.
+     *
+     * @param metaDataKey the key of the meta data entry holding the routing key
+     * @param fallback    the strategy resolving the routing key of queries without the entry
+     */
+    public MetaDataRoutingStrategy(String metaDataKey, RoutingStrategy fallback) {
+        Assert.nonNull(metaDataKey, () -> "The metaDataKey may not be null");
+        Assert.nonNull(fallback, () -> "The fallback RoutingStrategy may not be null");
+        this.metaDataKey = metaDataKey;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public String getRoutingKey(QueryMessage<?, ?> query) {
+        Object value = query.getMetaData().get(metaDataKey);
+        return value == null ? fallback.getRoutingKey(query) : value.toString();
+    }
+
+}
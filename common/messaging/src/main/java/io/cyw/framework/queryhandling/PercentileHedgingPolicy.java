@@ -0,0 +1,281 @@
+package io.cyw.framework.queryhandling;
+
+import io.cyw.framework.messaging.responsetypes.ResponseType;
+import io.cyw.framework.utils.Assert;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Predicate;
+
+/**
+ * {@link HedgingPolicy} that hedges a query once it takes longer than a given percentile of the recent latencies of
+ * queries with the same query name and response payload type, for example the 95th percentile. Only about one in
+ * twenty queries is then dispatched twice, while the tail latency drops to about the latency of the percentile plus
+ * that of a second attempt.
+ * <p>
+ * Latencies are recorded in a histogram per query name and response payload type, with buckets growing exponentially
+ * in eight steps per power of two, so that every bucket is about 12 percent wide. Recording a latency increments a
+ * single bucket. To follow changes in latency, the counts of all buckets are halved every {@code window} samples, and
+ * the percentile is recalculated every sixteenth of a window. Queries are not hedged until {@code minSamples} latencies
+ * have been recorded.
+ */
+public class PercentileHedgingPolicy implements HedgingPolicy {
+
+    private static final int SUB_BUCKET_BITS = 3;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) << SUB_BUCKET_BITS;
+
+    private final double percentile;
+
+    private final long minDelayNanos;
+
+    private final long maxDelayNanos;
+
+    private final int minSamples;
+
+    private final int window;
+
+    private final Predicate<? super ResponseType<?>> hedgedResponseTypes;
+
+    private final Map<Key, Histogram> histograms = new ConcurrentHashMap<>();
+
+    public PercentileHedgingPolicy(Builder builder) {
+        builder.validate();
+        this.percentile = builder.percentile;
+        this.minDelayNanos = builder.minDelay.toNanos();
+        this.maxDelayNanos = builder.maxDelay.toNanos();
+        this.minSamples = builder.minSamples;
+        this.window = builder.window;
+        this.hedgedResponseTypes = builder.hedgedResponseTypes;
+    }
+
+    @Override
+    public long hedgeDelayNanos(QueryMessage<?, ?> query) {
+        if (!hedgedResponseTypes.test(query.getResponseType())) {
+            return NO_HEDGE;
+        }
+        Histogram histogram = histograms.get(new Key(query));
+        if (histogram == null || histogram.recorded.get() < minSamples) {
+            return NO_HEDGE;
+        }
+        return Math.max(minDelayNanos, Math.min(maxDelayNanos, histogram.percentileNanos));
+    }
+
+    @Override
+    public void recordLatency(QueryMessage<?, ?> query, long latencyNanos) {
+        Key key = new Key(query);
+        Histogram histogram = histograms.get(key);
+        if (histogram == null) {
+            histogram = histograms.computeIfAbsent(key, k -> new Histogram());
+        }
+        histogram.record(latencyNanos);
+    }
+
+    /**
+     * Returns the current percentile latency of queries with the given {@code queryName} and response payload type.
+     *
+     * @param queryName           the name of the query
+     * @param responsePayloadType the payload type of the responses to the query
+     * @return the percentile latency in nanoseconds, or {@code 0} if no latency was recorded yet
+     */
+    public long getPercentileNanos(String queryName, Class<?> responsePayloadType) {
+        Histogram histogram = histograms.get(new Key(queryName, responsePayloadType));
+        return histogram == null ? 0 : histogram.percentileNanos;
+    }
+
+    static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) Math.max(0, nanos);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) | subBucket;
+    }
+
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+        long lowerBound = (long) (SUB_BUCKETS | (bucket & (SUB_BUCKETS - 1))) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+
+    private final class Histogram {
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+        private final AtomicLong recorded = new AtomicLong();
+
+        private volatile long percentileNanos;
+
+        private void record(long latencyNanos) {
+            counts.incrementAndGet(bucketOf(latencyNanos));
+            long sample = recorded.incrementAndGet();
+            if (sample % window == 0) {
+                // concurrent increments may be halved or not, the histogram only needs to be approximate
+                for (int i = 0; i < BUCKETS; i++) {
+                    long count = counts.get(i);
+                    if (count != 0) {
+                        counts.addAndGet(i, -(count >>> 1));
+                    }
+                }
+            }
+            if (sample % Math.max(1, window / 16) == 0 || sample == minSamples) {
+                percentileNanos = calculatePercentile();
+            }
+        }
+
+        private long calculatePercentile() {
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                total += counts.get(i);
+            }
+            long threshold = (long) Math.ceil(total * percentile);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts.get(i);
+                if (seen >= threshold && seen > 0) {
+                    return upperBoundOf(i);
+                }
+            }
+            return 0;
+        }
+    }
+
+    private static final class Key {
+
+        private final String queryName;
+
+        private final Class<?> responsePayloadType;
+
+        private Key(QueryMessage<?, ?> query) {
+            this(query.getQueryName(), query.getResponseType().responseMessagePayloadType());
+        }
+
+        private Key(String queryName, Class<?> responsePayloadType) {
+            this.queryName = queryName;
+            this.responsePayloadType = responsePayloadType;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * queryName.hashCode() + Objects.hashCode(responsePayloadType);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key that = (Key) o;
+            return queryName.equals(that.queryName) && Objects.equals(responsePayloadType, that.responsePayloadType);
+        }
+    }
+
+    public static class Builder {
+
+        private double percentile = 0.95;
+
+        private Duration minDelay = Duration.ofMillis(1);
+
+        private Duration maxDelay = Duration.ofSeconds(1);
+
+        private int minSamples = 100;
+
+        private int window = 1000;
+
+        private Predicate<? super ResponseType<?>> hedgedResponseTypes = responseType -> true;
+
+        /**
+         * Sets the percentile of the recent latencies after which a query is hedged, between {@code 0} and {@code 1}
+         * (exclusive). Defaults to {@code 0.95}.
+         *
+         * @param percentile the percentile of the latencies after which a query is hedged
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder percentile(double percentile) {
+            Assert.isTrue(percentile > 0 && percentile < 1, () -> "The percentile must be in the range (0, 1)");
+            this.percentile = percentile;
+            return this;
+        }
+
+        /**
+         * Sets the bounds of the delay after which a query is hedged. Defaults to {@code 1} millisecond and
+         * {@code 1} second.
+         *
+         * @param minDelay the minimum delay before a query is hedged
+         * @param maxDelay the maximum delay before a query is hedged
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder delayBounds(Duration minDelay, Duration maxDelay) {
+            Assert.nonNull(minDelay, () -> "The minDelay may not be null");
+            Assert.nonNull(maxDelay, () -> "The maxDelay may not be null");
+            Assert.isTrue(!minDelay.isNegative() && minDelay.compareTo(maxDelay) <= 0,
+                          () -> "The minDelay may not be negative and may not exceed the maxDelay");
+            this.minDelay = minDelay;
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        /**
+         * Sets the number of latencies to record for a query name and response payload type before its queries are
+         * hedged. Defaults to {@code 100}.
+         *
+         * @param minSamples the number of latencies to record before hedging
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder minSamples(int minSamples) {
+            Assert.isTrue(minSamples > 0, () -> "The minSamples must be positive");
+            this.minSamples = minSamples;
+            return this;
+        }
+
+        /**
+         * Sets the number of samples after which the counts of a histogram are halved. Defaults to {@code 1000}.
+         *
+         * @param window the number of samples after which older latencies weigh half as much
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder window(int window) {
+            Assert.isTrue(window > 0, () -> "The window must be positive");
+            this.window = window;
+            return this;
+        }
+
+        /**
+         * Sets the predicate selecting the {@link ResponseType response types} of the queries that may be hedged.
+         * Defaults to hedging queries of every response type.
+         *
+         * @param hedgedResponseTypes the predicate selecting the response types of hedged queries
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder hedgedResponseTypes(Predicate<? super ResponseType<?>> hedgedResponseTypes) {
+            Assert.nonNull(hedgedResponseTypes, () -> "The hedgedResponseTypes predicate may not be null");
+            this.hedgedResponseTypes = hedgedResponseTypes;
+            return this;
+        }
+
+        /**
+         * Validate whether the fields contained in this Builder as set accordingly.
+         */
+        protected void validate() {
+            // all fields have valid defaults
+        }
+
+        public PercentileHedgingPolicy build() {
+            return new PercentileHedgingPolicy(this);
+        }
+
+    }
+
+}
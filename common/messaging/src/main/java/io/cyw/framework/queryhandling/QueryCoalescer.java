@@ -0,0 +1,289 @@
+package io.cyw.framework.queryhandling;
+
+import io.cyw.framework.messaging.MetaData;
+import io.cyw.framework.messaging.responsetypes.ResponseType;
+import io.cyw.framework.utils.Assert;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Coalesces identical queries that are in flight at the same time, so that they are dispatched only once. Two queries
+ * are identical when they have the same query name, equal payloads, equal {@link ResponseType response types} and
+ * equal meta data, apart from the {@link Builder#ignoredMetaDataKeys(String...) ignored} entries that identify a single
+ * message, such as its trace and correlation id. Queries with a different {@link io.cyw.framework.messaging.Deadline
+ * deadline} are therefore not coalesced, so that no query fails on the shorter deadline of another one. Queries that
+ * carry {@link Builder#exclusiveMetaDataKeys(String...) exclusive} meta data, such as the identity of a user or
+ * tenant, are never coalesced, so that no caller receives a result computed for another one.
+ * <p>
+ * The first of a set of identical queries is dispatched, and all queries that arrive before its response is
+ * available receive the same response. Once the response is available, the next identical query is dispatched again.
+ * Coalescing does not keep any response after it has been delivered, and therefore also helps for queries of which
+ * the results cannot be cached. Payload types of queries that should be coalesced must implement {@link
+ * Object#equals(Object)} and {@link Object#hashCode()}, other payloads are only considered identical to themselves.
+ */
+public class QueryCoalescer {
+
+    private final Set<String> ignoredMetaDataKeys;
+
+    private final Set<String> exclusiveMetaDataKeys;
+
+    private final Map<Key, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Instantiates a coalescer with the default {@link Builder#ignoredMetaDataKeys(String...) ignored} and {@link
+     * Builder#exclusiveMetaDataKeys(String...) exclusive} meta data keys.
+     */
+    public QueryCoalescer() {
+        this(new Builder());
+    }
+
+    public QueryCoalescer(Builder builder) {
+        builder.validate();
+        this.ignoredMetaDataKeys = builder.ignoredMetaDataKeys;
+        this.exclusiveMetaDataKeys = builder.exclusiveMetaDataKeys;
+    }
+
+    /**
+     * Dispatches the given {@code query} through the given {@code dispatcher}, unless an identical query is in flight
+     * already, in which case the response of that query is returned. A query carrying exclusive meta data is always
+     * dispatched.
+     * <p>
+     * Every invocation returns its own future, so that cancelling it does not affect the other callers. Only when all
+     * callers waiting for a query in flight cancelled their futures, the future returned by the dispatcher is
+     * cancelled as well, and the next identical query is dispatched again. A query that joins a query in flight shares
+     * its outcome, including a {@link io.cyw.framework.messaging.DeadlineExceededException} caused by the {@link
+     * io.cyw.framework.messaging.Deadline deadline} of the query that was dispatched.
+     *
+     * @param query      the query to dispatch
+     * @param dispatcher the function dispatching the query
+     * @param <Q>        the payload type of the query
+     * @param <R>        the response type of the query
+     * @return a future completed with the response to the query, or to an identical query
+     */
+    public <Q, R> CompletableFuture<QueryResponseMessage<R>> coalesce(
+            QueryMessage<Q, R> query, Function<QueryMessage<Q, R>, CompletableFuture<QueryResponseMessage<R>>> dispatcher) {
+        MetaData metaData = query.getMetaData();
+        for (String exclusiveKey : exclusiveMetaDataKeys) {
+            if (metaData.containsKey(exclusiveKey)) {
+                try {
+                    return dispatcher.apply(query);
+                } catch (RuntimeException e) {
+                    CompletableFuture<QueryResponseMessage<R>> failed = new CompletableFuture<>();
+                    failed.completeExceptionally(e);
+                    return failed;
+                }
+            }
+        }
+        Key key = new Key(query, metaData.withoutKeys(ignoredMetaDataKeys));
+        InFlight dispatching = new InFlight(key);
+        InFlight current = inFlight.compute(key, (k, existing) -> existing != null && existing.join()
+                ? existing : dispatching);
+        if (current != dispatching) {
+            coalesced.increment();
+            return current.waiter();
+        }
+        CompletableFuture<QueryResponseMessage<R>> waiter = dispatching.waiter();
+        try {
+            CompletableFuture<QueryResponseMessage<R>> dispatched = dispatcher.apply(query);
+            dispatching.dispatched(dispatched);
+            dispatched.whenComplete((result, failure) -> {
+                inFlight.remove(key, dispatching);
+                if (failure != null) {
+                    dispatching.response.completeExceptionally(failure);
+                } else {
+                    dispatching.response.complete(result);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, dispatching);
+            dispatching.response.completeExceptionally(e);
+        }
+        return waiter;
+    }
+
+    /**
+     * Returns the number of queries that were answered with the response of an identical query.
+     *
+     * @return the number of coalesced queries
+     */
+    public long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Returns the number of distinct queries that are currently in flight.
+     *
+     * @return the number of queries in flight
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * A dispatched query and the number of callers waiting for its response, each through a copy of the shared
+     * response. A copy that is cancelled leaves the query, and the last one to leave cancels the dispatched future.
+     * A query that all callers left cannot be joined anymore.
+     */
+    private final class InFlight {
+
+        private final Key key;
+
+        private final CompletableFuture<QueryResponseMessage<?>> response = new CompletableFuture<>();
+
+        private int waiters = 1;
+
+        private CompletableFuture<?> dispatched;
+
+        private InFlight(Key key) {
+            this.key = key;
+        }
+
+        private synchronized boolean join() {
+            if (waiters == 0) {
+                return false;
+            }
+            waiters++;
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        private <R> CompletableFuture<QueryResponseMessage<R>> waiter() {
+            CompletableFuture<QueryResponseMessage<?>> waiter = response.copy();
+            waiter.whenComplete((result, failure) -> {
+                if (waiter.isCancelled()) {
+                    leave();
+                }
+            });
+            return (CompletableFuture<QueryResponseMessage<R>>) (CompletableFuture<?>) waiter;
+        }
+
+        private void dispatched(CompletableFuture<?> future) {
+            synchronized (this) {
+                if (waiters > 0) {
+                    dispatched = future;
+                    return;
+                }
+            }
+            future.cancel(true);
+        }
+
+        private void leave() {
+            CompletableFuture<?> future;
+            synchronized (this) {
+                if (--waiters > 0) {
+                    return;
+                }
+                future = dispatched;
+            }
+            inFlight.remove(key, this);
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private static final class Key {
+
+        private final String queryName;
+
+        private final Object payload;
+
+        private final ResponseType<?> responseType;
+
+        private final MetaData metaData;
+
+        private final int hashCode;
+
+        private Key(QueryMessage<?, ?> query, MetaData metaData) {
+            this.queryName = query.getQueryName();
+            this.payload = query.getPayload();
+            this.responseType = query.getResponseType();
+            this.metaData = metaData;
+            this.hashCode = Objects.hash(queryName, payload, responseType, metaData);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key that = (Key) o;
+            return hashCode == that.hashCode
+                    && Objects.equals(queryName, that.queryName)
+                    && Objects.equals(payload, that.payload)
+                    && Objects.equals(responseType, that.responseType)
+                    && Objects.equals(metaData, that.metaData);
+        }
+    }
+
+    public static class Builder {
+
+        private Set<String> ignoredMetaDataKeys = keys("traceId", "correlationId");
+
+        private Set<String> exclusiveMetaDataKeys = keys("userId", "tenantId", "principal", "authorization");
+
+        /**
+         * Sets the keys of the meta data entries that only identify a single message, and are ignored when comparing
+         * queries. Defaults to {@code traceId} and {@code correlationId}. The {@link
+         * io.cyw.framework.messaging.Deadline#META_DATA_KEY deadline} should not be ignored, as a query would then
+         * share the deadline of the query it joins.
+         *
+         * @param ignoredMetaDataKeys the keys of the meta data entries to ignore
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder ignoredMetaDataKeys(String... ignoredMetaDataKeys) {
+            this.ignoredMetaDataKeys = keys(ignoredMetaDataKeys);
+            return this;
+        }
+
+        /**
+         * Sets the keys of the meta data entries that make a query exclusive to its caller, such as the identity of a
+         * user or tenant, so that it is never coalesced. Defaults to {@code userId}, {@code tenantId}, {@code
+         * principal} and {@code authorization}.
+         *
+         * @param exclusiveMetaDataKeys the keys of the meta data entries of exclusive queries
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder exclusiveMetaDataKeys(String... exclusiveMetaDataKeys) {
+            this.exclusiveMetaDataKeys = keys(exclusiveMetaDataKeys);
+            return this;
+        }
+
+        private static Set<String> keys(String... keys) {
+            Assert.nonNull(keys, () -> "The meta data keys may not be null");
+            return Collections.unmodifiableSet(new HashSet<>(Arrays.asList(keys)));
+        }
+
+        /**
+         * Validate whether the fields contained in this Builder as set accordingly.
+         */
+        protected void validate() {
+            // all fields have valid defaults
+        }
+
+        public QueryCoalescer build() {
+            return new QueryCoalescer(this);
+        }
+
+    }
+
+}
@@ -16,6 +16,8 @@
 package io.cyw.framework.queryhandling;
 
 
+import io.cyw.framework.messaging.Deadline;
+import io.cyw.framework.messaging.DeadlineExceededException;
 import io.cyw.framework.messaging.MessageDispatchInterceptorSupport;
 import io.cyw.framework.messaging.MessageResultHandlerInterceptorSupport;
 import io.cyw.framework.messaging.ResultMessage;
@@ -107,6 +109,65 @@ public interface QueryGateway extends MessageDispatchInterceptorSupport<QueryMes
      */
     <R, Q> Uni<R> query(String queryName, Q query, ResponseType<R> responseType);
 
+    /**
+     * Sends the given {@code query} over the {@link QueryBus}, expecting a response with the given {@code responseType}
+     * from a single source within the given {@code timeout}. The query name will be derived from the provided {@code
+     * query}.
+     *
+     * @param query        The {@code query} to be sent
+     * @param responseType A {@link Class} describing the desired response type
+     * @param timeout      The time to wait for the response
+     * @param <R>          The response class contained in the given {@code responseType}
+     * @param <Q>          The query class
+     * @return A {@link Uni} containing the query result, or failing with a {@link DeadlineExceededException}
+     * @see #query(String, Object, ResponseType, Duration)
+     */
+    default <R, Q> Uni<R> query(Q query, Class<R> responseType, Duration timeout) {
+        return query(QueryMessage.queryName(query), query, ResponseTypes.instanceOf(responseType), timeout);
+    }
+
+    /**
+     * Sends the given {@code query} over the {@link QueryBus}, expecting a response in the form of {@code responseType}
+     * from a single source within the given {@code timeout}. The query name will be derived from the provided {@code
+     * query}.
+     *
+     * @param query        The {@code query} to be sent
+     * @param responseType The {@link ResponseType} used for this query
+     * @param timeout      The time to wait for the response
+     * @param <R>          The response class contained in the given {@code responseType}
+     * @param <Q>          The query class
+     * @return A {@link Uni} containing the query result, or failing with a {@link DeadlineExceededException}
+     * @see #query(String, Object, ResponseType, Duration)
+     */
+    default <R, Q> Uni<R> query(Q query, ResponseType<R> responseType, Duration timeout) {
+        return query(QueryMessage.queryName(query), query, responseType, timeout);
+    }
+
+    /**
+     * Sends the given {@code query} over the {@link QueryBus}, expecting a response in the form of {@code responseType}
+     * from a single source within the given {@code timeout}. The resulting {@link Uni} fails with a {@link
+     * DeadlineExceededException} when no response arrived in time.
+     * <p>
+     * Implementations should carry the {@link Deadline} in the meta data of the query, so that the bus does not
+     * dispatch a query nobody waits for anymore, and handlers can check it through the unit of work. Cancelling the
+     * subscription to the resulting Uni, or the timeout, cancels the dispatched query. The default implementation
+     * only applies the timeout to the result of {@link #query(String, Object, ResponseType)}.
+     *
+     * @param queryName    A {@link String} describing the query to be executed
+     * @param query        The {@code query} to be sent
+     * @param responseType The {@link ResponseType} used for this query
+     * @param timeout      The time to wait for the response
+     * @param <R>          The response class contained in the given {@code responseType}
+     * @param <Q>          The query class
+     * @return A {@link Uni} containing the query result, or failing with a {@link DeadlineExceededException}
+     */
+    default <R, Q> Uni<R> query(String queryName, Q query, ResponseType<R> responseType, Duration timeout) {
+        return query(queryName, query, responseType)
+                .ifNoItem().after(timeout)
+                .failWith(() -> new DeadlineExceededException(
+                        "No response to query [" + queryName + "] within " + timeout));
+    }
+
     /**
      * Use the given {@link Publisher} of {@link QueryMessage}s to send the incoming queries away. Queries will be sent sequentially. Once the
      * result of the Nth query arrives, the (N + 1)th query is dispatched.
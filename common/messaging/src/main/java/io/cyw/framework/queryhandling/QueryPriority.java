@@ -0,0 +1,51 @@
+package io.cyw.framework.queryhandling;
+
+import io.cyw.framework.messaging.Message;
+import io.cyw.framework.messaging.MetaData;
+
+/**
+ * The priority of a query, carried in the {@link #META_DATA_KEY} meta data entry of the query. Components that shed
+ * load, such as the {@link ConcurrencyLimitingQueryBus}, reject {@link #BATCH} queries before
+ * {@link #INTERACTIVE} ones. Queries without the entry are {@link #INTERACTIVE}.
+ */
+public enum QueryPriority {
+
+    /**
+     * Queries a user is waiting for, such as the queries of a UI. These are rejected last.
+     */
+    INTERACTIVE,
+
+    /**
+     * Queries of background work, such as reports, which can be retried later. These are rejected first.
+     */
+    BATCH;
+
+    /**
+     * The key of the meta data entry holding the name of the priority of a query.
+     */
+    public static final String META_DATA_KEY = "priority";
+
+    /**
+     * Returns the priority of the given {@code message}.
+     *
+     * @param message the message to return the priority of
+     * @return the priority of the message, {@link #INTERACTIVE} if the message does not declare one
+     */
+    public static QueryPriority of(Message<?> message) {
+        Object value = message.getMetaData().get(META_DATA_KEY);
+        if (value instanceof QueryPriority) {
+            return (QueryPriority) value;
+        }
+        return value != null && BATCH.name().equalsIgnoreCase(value.toString()) ? BATCH : INTERACTIVE;
+    }
+
+    /**
+     * Returns the meta data declaring this priority, to be added to a query.
+     *
+     * @return the meta data declaring this priority
+     */
+    public MetaData asMetaData() {
+        return MetaData.with(META_DATA_KEY, name());
+    }
+
+}
@@ -0,0 +1,22 @@
+package io.cyw.framework.queryhandling;
+
+import io.cyw.framework.messaging.SystemNonTransientException;
+
+/**
+ * Exception indicating that a query was not dispatched, because the number of queries with the same name that are
+ * being handled concurrently has reached its limit. Callers may retry the query after backing off.
+ */
+public class QueryRejectedException extends SystemNonTransientException {
+
+    private static final long serialVersionUID = -2853651342210983529L;
+
+    /**
+     * Initialize the exception with given {@code message}
+     *
+     * @param message The message explaining the context of the exception
+     */
+    public QueryRejectedException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,21 @@
+package io.cyw.framework.queryhandling;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the field or the no-arg method of a query payload that provides the routing key of the query. Queries with
+ * the same routing key are handled on the same shard by the {@link ShardedQueryBus}. The {@link Object#toString()}
+ * value of the field or method result is used as routing key.
+ *
+ * @see AnnotationRoutingStrategy
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface RoutingKey {
+
+}
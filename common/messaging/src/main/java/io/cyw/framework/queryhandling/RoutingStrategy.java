@@ -0,0 +1,18 @@
+package io.cyw.framework.queryhandling;
+
+/**
+ * Interface describing a mechanism that resolves the routing key of a query. Queries with the same routing key are
+ * expected to be handled by the same handler instance, thread or node.
+ */
+@FunctionalInterface
+public interface RoutingStrategy {
+
+    /**
+     * Returns the routing key of the given {@code query}.
+     *
+     * @param query the query to resolve the routing key of
+     * @return the routing key of the query, or {@code null} if the query has no routing key
+     */
+    String getRoutingKey(QueryMessage<?, ?> query);
+
+}
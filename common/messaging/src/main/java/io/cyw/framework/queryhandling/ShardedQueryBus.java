@@ -0,0 +1,276 @@
+package io.cyw.framework.queryhandling;
+
+import io.cyw.framework.common.Registration;
+import io.cyw.framework.messaging.MessageDispatchInterceptor;
+import io.cyw.framework.messaging.MessageHandler;
+import io.cyw.framework.messaging.MessageHandlerInterceptor;
+import io.cyw.framework.utils.Assert;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * QueryBus decorator that handles point-to-point queries on one of a fixed number of shards, each of which is served
+ * by a single thread. The shard of a query is selected by hashing its routing key, as resolved by the configured
+ * {@link RoutingStrategy}, so that all queries with the same routing key are handled one after the other on the same
+ * thread. Handlers can therefore keep per-entity caches warm on a single core and keep state per shard, see
+ * {@link #currentShard()}, without locking. Queries without a routing key are handled on a random shard.
+ * <p>
+ * Each shard is an {@link AsynchronousQueryBus} with a single consumer thread in front of the {@code delegate}, which
+ * holds the handler subscriptions and interceptors. Scatter-gather and subscription queries are passed directly to
+ * the {@code delegate}.
+ * <p>
+ * The number of shards, and the number of dispatched and queued queries per shard, are exposed to be published as
+ * metrics.
+ */
+public class ShardedQueryBus implements QueryBus {
+
+    private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+    private final QueryBus delegate;
+
+    private final RoutingStrategy routingStrategy;
+
+    private final AsynchronousQueryBus[] shards;
+
+    private final LongAdder[] dispatched;
+
+    private final LongAdder unrouted = new LongAdder();
+
+    public ShardedQueryBus(Builder builder) {
+        builder.validate();
+        this.delegate = builder.delegate;
+        this.routingStrategy = builder.routingStrategy;
+        this.shards = new AsynchronousQueryBus[builder.shardCount];
+        this.dispatched = new LongAdder[builder.shardCount];
+        for (int i = 0; i < shards.length; i++) {
+            int shard = i;
+            shards[i] = new AsynchronousQueryBus.Builder()
+                    .localSegment(delegate)
+                    .consumerCount(1)
+                    .bufferSize(builder.bufferSize)
+                    .waitStrategy(builder.waitStrategy)
+                    .threadFactory(runnable -> {
+                        Thread thread = new Thread(() -> {
+                            CURRENT_SHARD.set(shard);
+                            runnable.run();
+                        }, "ShardedQueryBus-shard-" + shard);
+                        thread.setDaemon(true);
+                        return thread;
+                    })
+                    .build();
+            dispatched[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Returns the index of the shard served by the current thread, allowing query handlers to select state kept per
+     * shard.
+     *
+     * @return the index of the shard of the current thread, or {@code -1} if the current thread does not serve a shard
+     */
+    public static int currentShard() {
+        Integer shard = CURRENT_SHARD.get();
+        return shard == null ? -1 : shard;
+    }
+
+    @Override
+    public <R> Registration subscribe(String queryName, Type responseType,
+                                      MessageHandler<? super QueryMessage<?, R>> handler) {
+        return delegate.subscribe(queryName, responseType, handler);
+    }
+
+    @Override
+    public <Q, R> CompletableFuture<QueryResponseMessage<R>> query(QueryMessage<Q, R> query) {
+        String routingKey = routingStrategy.getRoutingKey(query);
+        int shard;
+        if (routingKey == null) {
+            unrouted.increment();
+            shard = ThreadLocalRandom.current().nextInt(shards.length);
+        } else {
+            shard = shardOf(routingKey);
+        }
+        dispatched[shard].increment();
+        return shards[shard].query(query);
+    }
+
+    /**
+     * Returns the index of the shard that handles queries with the given {@code routingKey}.
+     *
+     * @param routingKey the routing key of a query
+     * @return the index of the shard handling queries with the given routing key
+     */
+    public int shardOf(String routingKey) {
+        int hash = routingKey.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), shards.length);
+    }
+
+    @Override
+    public <Q, R> Stream<QueryResponseMessage<R>> scatterGather(QueryMessage<Q, R> query, long timeout,
+                                                                TimeUnit unit) {
+        return delegate.scatterGather(query, timeout, unit);
+    }
+
+    @Override
+    public <Q, I, U> SubscriptionQueryResult<QueryResponseMessage<I>, SubscriptionQueryUpdateMessage<U>> subscriptionQuery(
+            SubscriptionQueryMessage<Q, I, U> query, int updateBufferSize) {
+        return delegate.subscriptionQuery(query, updateBufferSize);
+    }
+
+    @Override
+    public QueryUpdateEmitter queryUpdateEmitter() {
+        return delegate.queryUpdateEmitter();
+    }
+
+    @Override
+    public Registration registerHandlerInterceptor(MessageHandlerInterceptor<? super QueryMessage<?, ?>> handlerInterceptor) {
+        return delegate.registerHandlerInterceptor(handlerInterceptor);
+    }
+
+    @Override
+    public Registration registerDispatchInterceptor(MessageDispatchInterceptor<QueryMessage<?, ?>> dispatchInterceptor) {
+        return delegate.registerDispatchInterceptor(dispatchInterceptor);
+    }
+
+    /**
+     * Returns the number of shards of this bus.
+     *
+     * @return the number of shards
+     */
+    public int shardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Returns the number of queries dispatched to the given {@code shard} since this bus was created.
+     *
+     * @param shard the index of the shard
+     * @return the number of queries dispatched to the shard
+     */
+    public long dispatchedCount(int shard) {
+        return dispatched[shard].sum();
+    }
+
+    /**
+     * Returns the number of queries dispatched to the given {@code shard} that are waiting to be handled.
+     *
+     * @param shard the index of the shard
+     * @return the number of queued queries of the shard
+     */
+    public long queuedCount(int shard) {
+        return shards[shard].queuedCount();
+    }
+
+    /**
+     * Returns the number of queries without routing key dispatched since this bus was created.
+     *
+     * @return the number of queries without routing key
+     */
+    public long unroutedCount() {
+        return unrouted.sum();
+    }
+
+    /**
+     * Stops the threads of all shards, after the queued queries have been handed over to the {@code delegate}.
+     */
+    public void shutdown() {
+        for (AsynchronousQueryBus shard : shards) {
+            shard.shutdown();
+        }
+    }
+
+    public static class Builder {
+
+        private QueryBus delegate;
+
+        private int shardCount = Runtime.getRuntime().availableProcessors();
+
+        private RoutingStrategy routingStrategy =
+                new MetaDataRoutingStrategy(MetaDataRoutingStrategy.ROUTING_KEY, new AnnotationRoutingStrategy());
+
+        private int bufferSize = 1024;
+
+        private WaitStrategy waitStrategy = WaitStrategy.PARKING;
+
+        /**
+         * Sets the {@link QueryBus} that holds the query handlers and handles the queries of all shards.
+         *
+         * @param delegate the QueryBus handling the queries
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder delegate(QueryBus delegate) {
+            Assert.nonNull(delegate, () -> "Delegate QueryBus may not be null");
+            this.delegate = delegate;
+            return this;
+        }
+
+        /**
+         * Sets the number of shards. Defaults to the number of available processors.
+         *
+         * @param shardCount the number of shards
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder shardCount(int shardCount) {
+            Assert.isTrue(shardCount > 0, () -> "The shardCount must be positive");
+            this.shardCount = shardCount;
+            return this;
+        }
+
+        /**
+         * Sets the {@link RoutingStrategy} resolving the routing key of queries. Defaults to the
+         * {@link MetaDataRoutingStrategy#ROUTING_KEY} meta data entry, falling back to the member of the payload
+         * annotated with {@link RoutingKey}.
+         *
+         * @param routingStrategy the strategy resolving routing keys
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder routingStrategy(RoutingStrategy routingStrategy) {
+            Assert.nonNull(routingStrategy, () -> "RoutingStrategy may not be null");
+            this.routingStrategy = routingStrategy;
+            return this;
+        }
+
+        /**
+         * Sets the number of slots in the ring buffer of each shard, which must be a power of two. Defaults to
+         * {@code 1024}.
+         *
+         * @param bufferSize the number of slots per shard
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder bufferSize(int bufferSize) {
+            Assert.isTrue(bufferSize > 0 && Integer.bitCount(bufferSize) == 1,
+                          () -> "The bufferSize must be a positive power of two");
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * Sets the {@link WaitStrategy} of the shard threads. Defaults to {@link WaitStrategy#PARKING}.
+         *
+         * @param waitStrategy the strategy used by waiting threads
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder waitStrategy(WaitStrategy waitStrategy) {
+            Assert.nonNull(waitStrategy, () -> "WaitStrategy may not be null");
+            this.waitStrategy = waitStrategy;
+            return this;
+        }
+
+        /**
+         * Validate whether the fields contained in this Builder as set accordingly.
+         */
+        protected void validate() {
+            Assert.nonNull(delegate, () -> "The delegate QueryBus is a hard requirement and should be provided");
+        }
+
+        public ShardedQueryBus build() {
+            return new ShardedQueryBus(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,77 @@
+package io.cyw.framework.queryhandling;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Strategies for threads that wait for a ring buffer slot to become available, such as the consumer threads of the
+ * {@link AsynchronousQueryBus} waiting for queries, or dispatching threads waiting for free capacity. The strategies
+ * trade CPU usage for latency.
+ */
+public enum WaitStrategy {
+
+    /**
+     * Spins on the CPU without ever giving it up. Provides the lowest latency, but occupies a core per waiting thread.
+     * Only suitable when the number of waiting threads is smaller than the number of available cores.
+     */
+    BUSY_SPIN {
+        @Override
+        public int idle(int counter) {
+            Thread.onSpinWait();
+            return counter + 1;
+        }
+    },
+
+    /**
+     * Spins for a short while and then yields the CPU to other threads on every attempt. Keeps latency low while
+     * allowing other threads to run, at the cost of a core that appears busy.
+     */
+    YIELDING {
+        @Override
+        public int idle(int counter) {
+            if (counter < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+            return counter + 1;
+        }
+    },
+
+    /**
+     * Spins and yields for a short while, and then parks the thread for a short period on every attempt. Uses little
+     * CPU when idle, at the cost of up to {@link #PARK_NANOS} additional latency for the first item after an idle
+     * period.
+     */
+    PARKING {
+        @Override
+        public int idle(int counter) {
+            if (counter < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else if (counter < SPIN_TRIES * 2) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+            return counter + 1;
+        }
+    };
+
+    /**
+     * The maximum time a thread using the {@link #PARKING} strategy is parked for a single attempt.
+     */
+    public static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private static final int SPIN_TRIES = 100;
+
+    /**
+     * Waits once, for an amount of time depending on the strategy and the number of attempts that were made already.
+     * Callers start with a {@code counter} of {@code 0}, pass the returned value to the next invocation, and reset it
+     * to {@code 0} once the awaited condition was met.
+     *
+     * @param counter the number of attempts made so far
+     * @return the counter to pass to the next invocation
+     */
+    public abstract int idle(int counter);
+
+}
@@ -0,0 +1,154 @@
+package io.cyw.framework.queryhandling.distributed;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable consistent hash ring of the members of a distributed query bus. Every member is placed on the ring a
+ * number of times, at positions derived from the MD5 hash of its name, and declares the names of the queries it has
+ * handlers for. A query is routed to the first member found walking clockwise from the position of the hash of its
+ * query name that has a handler for it. Adding or removing a member therefore only moves the queries that member
+ * handles, or is going to handle.
+ * <p>
+ * The routing of a query name is computed once per ring and cached, as rings are replaced rather than modified when
+ * members join, leave or change their query handlers.
+ */
+public class ConsistentHash {
+
+    private static final ConsistentHash EMPTY = new ConsistentHash(new TreeMap<>(), Collections.emptyMap());
+
+    private final NavigableMap<Long, String> ring;
+
+    private final Map<String, Set<String>> members;
+
+    private final Map<String, List<String>> routes = new ConcurrentHashMap<>();
+
+    private ConsistentHash(NavigableMap<Long, String> ring, Map<String, Set<String>> members) {
+        this.ring = ring;
+        this.members = members;
+    }
+
+    /**
+     * Returns a ring without any members.
+     *
+     * @return an empty ring
+     */
+    public static ConsistentHash empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns a ring that contains the members of this ring and the given {@code member}, which is placed on the ring
+     * {@code segments} times and handles queries with the given {@code queryNames}. When the member is part of this
+     * ring already, its query names are replaced.
+     *
+     * @param member     the name of the member
+     * @param segments   the number of positions of the member on the ring
+     * @param queryNames the names of the queries handled by the member
+     * @return a ring containing the given member
+     */
+    public ConsistentHash with(String member, int segments, Set<String> queryNames) {
+        ConsistentHash without = without(member);
+        NavigableMap<Long, String> newRing = new TreeMap<>(without.ring);
+        for (int i = 0; i < segments; i++) {
+            newRing.put(hash(member + "#" + i), member);
+        }
+        Map<String, Set<String>> newMembers = new HashMap<>(without.members);
+        newMembers.put(member, Set.copyOf(queryNames));
+        return new ConsistentHash(newRing, newMembers);
+    }
+
+    /**
+     * Returns a ring that contains the members of this ring, except the given {@code member}.
+     *
+     * @param member the name of the member to remove
+     * @return a ring without the given member
+     */
+    public ConsistentHash without(String member) {
+        if (!members.containsKey(member)) {
+            return this;
+        }
+        NavigableMap<Long, String> newRing = new TreeMap<>(ring);
+        newRing.values().removeIf(member::equals);
+        Map<String, Set<String>> newMembers = new HashMap<>(members);
+        newMembers.remove(member);
+        return new ConsistentHash(newRing, newMembers);
+    }
+
+    /**
+     * Returns the member that should handle queries with the given {@code queryName}, if any.
+     *
+     * @param queryName the name of the query
+     * @return the name of the member to route the query to, or {@code null} if no member handles the query
+     */
+    public String getMember(String queryName) {
+        List<String> candidates = getMembers(queryName);
+        return candidates.isEmpty() ? null : candidates.get(0);
+    }
+
+    /**
+     * Returns all members that handle queries with the given {@code queryName}, in the order in which they are found
+     * walking the ring from the position of the query name. The first member is the one queries are routed to, the
+     * next ones take over when it leaves.
+     *
+     * @param queryName the name of the query
+     * @return the names of the members handling the query, in ring order
+     */
+    public List<String> getMembers(String queryName) {
+        return routes.computeIfAbsent(queryName, this::route);
+    }
+
+    /**
+     * Returns the names of the members of this ring.
+     *
+     * @return the names of the members of this ring
+     */
+    public Set<String> getMemberNames() {
+        return Collections.unmodifiableSet(members.keySet());
+    }
+
+    private List<String> route(String queryName) {
+        List<String> candidates = new ArrayList<>();
+        if (ring.isEmpty()) {
+            return candidates;
+        }
+        long position = hash(queryName);
+        for (String member : ring.tailMap(position, true).values()) {
+            addCandidate(candidates, member, queryName);
+        }
+        for (String member : ring.headMap(position, false).values()) {
+            addCandidate(candidates, member, queryName);
+        }
+        return Collections.unmodifiableList(candidates);
+    }
+
+    private void addCandidate(List<String> candidates, String member, String queryName) {
+        if (members.get(member).contains(queryName) && !candidates.contains(member)) {
+            candidates.add(member);
+        }
+    }
+
+    private static long hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                hash = (hash << 8) | (digest[i] & 0xFF);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not supported by this JVM", e);
+        }
+    }
+
+}
@@ -0,0 +1,721 @@
+package io.cyw.framework.queryhandling.distributed;
+
+import io.cyw.framework.common.Registration;
+import io.cyw.framework.messaging.Deadline;
+import io.cyw.framework.messaging.DeadlineExceededException;
+import io.cyw.framework.messaging.GenericMessage;
+import io.cyw.framework.messaging.MessageDispatchInterceptor;
+import io.cyw.framework.messaging.MessageHandler;
+import io.cyw.framework.messaging.MessageHandlerInterceptor;
+import io.cyw.framework.messaging.MetaData;
+import io.cyw.framework.messaging.RemoteExceptionDescription;
+import io.cyw.framework.messaging.RemoteHandlingException;
+import io.cyw.framework.messaging.SerializedMessage;
+import io.cyw.framework.messaging.responsetypes.ResponseType;
+import io.cyw.framework.queryhandling.GenericQueryMessage;
+import io.cyw.framework.queryhandling.GenericQueryResponseMessage;
+import io.cyw.framework.queryhandling.HedgingQueryBus;
+import io.cyw.framework.queryhandling.QueryBus;
+import io.cyw.framework.queryhandling.QueryMessage;
+import io.cyw.framework.queryhandling.QueryResponseMessage;
+import io.cyw.framework.queryhandling.QueryUpdateEmitter;
+import io.cyw.framework.queryhandling.SubscriptionQueryMessage;
+import io.cyw.framework.queryhandling.SubscriptionQueryResult;
+import io.cyw.framework.queryhandling.SubscriptionQueryUpdateMessage;
+import io.cyw.framework.queryhandling.distributed.NioConnector.Connection;
+import io.cyw.framework.serialization.JavaSerializer;
+import io.cyw.framework.serialization.SerializedObject;
+import io.cyw.framework.serialization.Serializer;
+import io.cyw.framework.utils.Assert;
+import io.cyw.framework.utils.FutureUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * QueryBus implementation that routes point-to-point queries to the node that has a handler for them, when no handler
+ * is available on the local node. Queries with a local handler are always handled by the {@code localSegment}, which
+ * holds the handler subscriptions and interceptors of this node.
+ * <p>
+ * Nodes connect to each other over TCP. Every node announces the names of the queries it handles to the nodes it is
+ * connected to, and the nodes place each other on a {@link ConsistentHash} ring, which selects the member to route a
+ * query to by its query name. A node opens a small pool of connections to every peer it is configured with. Each
+ * connection is used in both directions, and requests are pipelined over it as length-prefixed binary frames. The
+ * response to a query is correlated with the query by the query's message identifier.
+ * <p>
+ * Payloads, meta data and response types are serialized with the configured {@link Serializer}. The default
+ * {@link JavaSerializer} only deserializes the classes allowed by {@link #DEFAULT_SERIALIZATION_FILTER}, and a bus
+ * listening on an address other than the loopback address requires a serializer to be configured explicitly. Received queries and
+ * responses wrap the serialized data in a {@link SerializedMessage}, so that payloads are only deserialized when a
+ * handler or the sender actually accesses them, and a query that is forwarded again is not serialized twice.
+ * Exceptions thrown by remote handlers are reported as a {@link RemoteHandlingException}.
+ * <p>
+ * A query of which the {@link Deadline} has passed is not sent, and a received query of which the deadline passed
+ * while it was in transit or waiting for a worker is answered with a {@link DeadlineExceededException} without being
+ * handled. When the caller cancels the future of a remote query, a cancel frame is sent to the handling node, which
+ * cancels the future of its {@code localSegment}, or skips the query when it was not handled yet.
+ * <p>
+ * The attempts of a query hedged by a {@link HedgingQueryBus} are routed to different members: the n-th attempt goes
+ * to the n-th member handling the query in ring order, or the (n-1)-th when this node handles the first attempt
+ * itself, so that a slow member is backed up by a replica. The loser of the attempts is cancelled as any other query.
+ * <p>
+ * As all communication is over TCP, several nodes can run in a single JVM, or in several JVMs on one machine, by
+ * binding them to different ports of the loopback address. Scatter-gather and subscription queries, and the update
+ * emitter, are only served by the {@code localSegment}.
+ */
+public class DistributedQueryBus implements QueryBus {
+
+    /**
+     * The {@link ObjectInputFilter} pattern of the default serializer. It allows the classes of this framework and the
+     * common value and collection classes of the JDK, and rejects all others.
+     */
+    public static final String DEFAULT_SERIALIZATION_FILTER = "maxdepth=64;maxrefs=100000;maxarray=16777216;"
+            + "io.cyw.framework.**;java.lang.*;java.math.*;java.time.*;java.util.*;!*";
+
+    private static final Logger logger = LoggerFactory.getLogger(DistributedQueryBus.class);
+
+    private final QueryBus localSegment;
+
+    private final Serializer serializer;
+
+    private final String nodeName;
+
+    private final int segments;
+
+    private final int connectionsPerPeer;
+
+    private final ExecutorService executor;
+
+    private final NioConnector connector;
+
+    private final InetSocketAddress localAddress;
+
+    private final Map<String, Integer> localQueryNames = new ConcurrentHashMap<>();
+
+    private final Map<String, RemoteMember> members = new ConcurrentHashMap<>();
+
+    private final Map<Connection, RemoteMember> connectionMembers = new ConcurrentHashMap<>();
+
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, PendingQuery> pendingQueries = new ConcurrentHashMap<>();
+
+    private final Map<String, HandledQuery> handledQueries = new ConcurrentHashMap<>();
+
+    private volatile ConsistentHash consistentHash = ConsistentHash.empty();
+
+    public DistributedQueryBus(Builder builder) {
+        builder.validate();
+        this.localSegment = builder.localSegment;
+        this.serializer = builder.serializer;
+        this.nodeName = builder.nodeName;
+        this.segments = builder.segments;
+        this.connectionsPerPeer = builder.connectionsPerPeer;
+        this.executor = Executors.newCachedThreadPool(new WorkerThreadFactory(nodeName));
+        try {
+            this.connector = new NioConnector("DistributedQueryBus-" + nodeName, new ConnectorListener(),
+                                              builder.maxFrameSize);
+            this.localAddress = connector.listen(builder.bindAddress);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to listen on " + builder.bindAddress, e);
+        }
+        builder.peers.forEach(this::connect);
+    }
+
+    /**
+     * Opens the configured number of connections to the node listening on the given {@code address}. Failures to
+     * connect are logged, as the other node will connect to this node once it is started when this node is among its
+     * peers.
+     *
+     * @param address the address of the other node
+     * @return {@code true} if at least one connection was opened, otherwise {@code false}
+     */
+    public boolean connect(InetSocketAddress address) {
+        boolean connected = false;
+        for (int i = 0; i < connectionsPerPeer; i++) {
+            try {
+                connector.connect(address);
+                connected = true;
+            } catch (IOException e) {
+                logger.info("Unable to connect to node at [{}]: {}", address, e.getMessage());
+                break;
+            }
+        }
+        return connected;
+    }
+
+    /**
+     * Returns the address this node listens on for connections of other nodes.
+     *
+     * @return the address this node listens on
+     */
+    public InetSocketAddress getLocalAddress() {
+        return localAddress;
+    }
+
+    /**
+     * Returns the name of this node, as announced to other nodes.
+     *
+     * @return the name of this node
+     */
+    public String getNodeName() {
+        return nodeName;
+    }
+
+    /**
+     * Returns the consistent hash ring of the remote members this node is connected to.
+     *
+     * @return the current consistent hash ring
+     */
+    public ConsistentHash getConsistentHash() {
+        return consistentHash;
+    }
+
+    @Override
+    public <R> Registration subscribe(String queryName, Type responseType,
+                                      MessageHandler<? super QueryMessage<?, R>> handler) {
+        Registration registration = localSegment.subscribe(queryName, responseType, handler);
+        localQueryNames.merge(queryName, 1, Integer::sum);
+        announceSubscriptions();
+        return () -> {
+            boolean cancelled = registration.cancel();
+            if (cancelled) {
+                localQueryNames.computeIfPresent(queryName, (name, count) -> count == 1 ? null : count - 1);
+                announceSubscriptions();
+            }
+            return cancelled;
+        };
+    }
+
+    @Override
+    public <Q, R> CompletableFuture<QueryResponseMessage<R>> query(QueryMessage<Q, R> query) {
+        boolean handledLocally = localQueryNames.containsKey(query.getQueryName());
+        int attempt = HedgingQueryBus.attemptOf(query);
+        if (handledLocally && attempt == 0) {
+            return localSegment.query(query);
+        }
+        List<String> candidates = consistentHash.getMembers(query.getQueryName());
+        if (candidates.isEmpty()) {
+            return localSegment.query(query);
+        }
+        // the local node took the first attempt, when it handles the query itself
+        String memberName = candidates.get((handledLocally ? attempt - 1 : attempt) % candidates.size());
+        RemoteMember member = members.get(memberName);
+        Connection connection = member == null ? null : member.nextConnection();
+        if (connection == null) {
+            return localSegment.query(query);
+        }
+        return dispatchRemotely(query, member, connection);
+    }
+
+    @Override
+    public <Q, R> Stream<QueryResponseMessage<R>> scatterGather(QueryMessage<Q, R> query, long timeout,
+                                                                TimeUnit unit) {
+        return localSegment.scatterGather(query, timeout, unit);
+    }
+
+    @Override
+    public <Q, I, U> SubscriptionQueryResult<QueryResponseMessage<I>, SubscriptionQueryUpdateMessage<U>> subscriptionQuery(
+            SubscriptionQueryMessage<Q, I, U> query, int updateBufferSize) {
+        return localSegment.subscriptionQuery(query, updateBufferSize);
+    }
+
+    @Override
+    public QueryUpdateEmitter queryUpdateEmitter() {
+        return localSegment.queryUpdateEmitter();
+    }
+
+    @Override
+    public Registration registerHandlerInterceptor(MessageHandlerInterceptor<? super QueryMessage<?, ?>> handlerInterceptor) {
+        return localSegment.registerHandlerInterceptor(handlerInterceptor);
+    }
+
+    @Override
+    public Registration registerDispatchInterceptor(MessageDispatchInterceptor<QueryMessage<?, ?>> dispatchInterceptor) {
+        return localSegment.registerDispatchInterceptor(dispatchInterceptor);
+    }
+
+    /**
+     * Closes all connections and stops accepting new ones. Queries awaiting a remote response are completed
+     * exceptionally.
+     */
+    public void shutdown() {
+        connector.shutdown();
+        executor.shutdown();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <Q, R> CompletableFuture<QueryResponseMessage<R>> dispatchRemotely(QueryMessage<Q, R> query,
+                                                                             RemoteMember member,
+                                                                             Connection connection) {
+        CompletableFuture<QueryResponseMessage<R>> result = new CompletableFuture<>();
+        if (Deadline.isExpired(query)) {
+            result.completeExceptionally(Deadline.exceeded(query));
+            return result;
+        }
+        ByteBuffer frame;
+        try {
+            frame = FrameCodec.query(query.getIdentifier(),
+                                     query.getQueryName(),
+                                     serializer.serialize(query.getResponseType().forSerialization(), byte[].class),
+                                     query.serializePayload(serializer, byte[].class),
+                                     query.serializeMetaData(serializer, byte[].class));
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+        PendingQuery pendingQuery = new PendingQuery(connection, query.getResponseType(),
+                                                     (CompletableFuture<QueryResponseMessage<?>>) (CompletableFuture<?>) result);
+        pendingQueries.put(query.getIdentifier(), pendingQuery);
+        if (!connection.send(frame)) {
+            pendingQueries.remove(query.getIdentifier(), pendingQuery);
+            result.completeExceptionally(new QueryDispatchException(
+                    "Connection to member [" + member.name + "] was closed before the query was sent"));
+            return result;
+        }
+        result.whenComplete((response, failure) -> {
+            if (result.isCancelled() && pendingQueries.remove(query.getIdentifier(), pendingQuery)) {
+                connection.send(FrameCodec.cancel(query.getIdentifier()));
+            }
+        });
+        return result;
+    }
+
+    private void receiveQuery(Connection connection, ByteBuffer body) {
+        // registered on the event loop, so that a cancel frame that follows finds the query
+        String identifier = FrameCodec.readString(body.duplicate());
+        HandledQuery handledQuery = new HandledQuery(connection);
+        handledQueries.put(identifier, handledQuery);
+        try {
+            executor.execute(() -> handleQuery(connection, body, handledQuery));
+        } catch (RuntimeException e) {
+            handledQueries.remove(identifier, handledQuery);
+            throw e;
+        }
+    }
+
+    private void handleQuery(Connection connection, ByteBuffer body, HandledQuery handledQuery) {
+        String identifier = FrameCodec.readString(body);
+        CompletableFuture<Void> cancellation = handledQuery.cancellation;
+        if (cancellation.isDone()) {
+            return;
+        }
+        CompletableFuture<QueryResponseMessage<Object>> result;
+        try {
+            String queryName = FrameCodec.readString(body);
+            ResponseType<Object> responseType = serializer.deserialize(FrameCodec.readSerializedObject(body));
+            SerializedObject<byte[]> payload = FrameCodec.readSerializedObject(body);
+            SerializedObject<byte[]> metaData = FrameCodec.readSerializedObject(body);
+            QueryMessage<Object, Object> query = new GenericQueryMessage<>(
+                    new SerializedMessage<>(identifier, payload, metaData, serializer), queryName, responseType);
+            Deadline.check(query);
+            result = localSegment.query(query);
+        } catch (RuntimeException e) {
+            result = new CompletableFuture<>();
+            result.completeExceptionally(e);
+        }
+        FutureUtils.propagateCancellation(cancellation, result);
+        result.whenComplete((response, failure) -> {
+            handledQueries.remove(identifier, handledQuery);
+            if (!cancellation.isDone()) {
+                connection.send(responseFrame(identifier, response, failure));
+            }
+        });
+    }
+
+    private void handleCancel(ByteBuffer body) {
+        HandledQuery handledQuery = handledQueries.remove(FrameCodec.readString(body));
+        if (handledQuery != null) {
+            handledQuery.cancellation.cancel(true);
+        }
+    }
+
+    private ByteBuffer responseFrame(String requestIdentifier, QueryResponseMessage<?> response, Throwable failure) {
+        try {
+            if (failure == null && !response.isExceptional()) {
+                return FrameCodec.response(requestIdentifier, response.getIdentifier(), false,
+                                           response.serializePayload(serializer, byte[].class),
+                                           response.serializeMetaData(serializer, byte[].class));
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        Throwable cause = failure != null ? failure : response.exceptionResult();
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        MetaData metaData = response == null ? MetaData.emptyInstance() : response.getMetaData();
+        return FrameCodec.response(requestIdentifier,
+                                   response == null ? requestIdentifier : response.getIdentifier(),
+                                   true,
+                                   serializer.serialize(RemoteExceptionDescription.describing(cause), byte[].class),
+                                   serializer.serialize(metaData, byte[].class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void handleResponse(ByteBuffer body) {
+        String requestIdentifier = FrameCodec.readString(body);
+        PendingQuery pendingQuery = pendingQueries.remove(requestIdentifier);
+        if (pendingQuery == null) {
+            return;
+        }
+        String identifier = FrameCodec.readString(body);
+        boolean exceptional = FrameCodec.readBoolean(body);
+        SerializedObject<byte[]> payload = FrameCodec.readSerializedObject(body);
+        SerializedObject<byte[]> metaData = FrameCodec.readSerializedObject(body);
+        try {
+            QueryResponseMessage<?> response;
+            if (exceptional) {
+                RemoteExceptionDescription description = serializer.deserialize(payload);
+                Class<Object> payloadType = (Class<Object>) pendingQuery.responseType.responseMessagePayloadType();
+                response = new GenericQueryResponseMessage<>(
+                        new GenericMessage<>(identifier, payloadType, null, serializer.deserialize(metaData)),
+                        new RemoteHandlingException(description));
+            } else {
+                response = new GenericQueryResponseMessage<>(
+                        new SerializedMessage<>(identifier, payload, metaData, serializer));
+            }
+            pendingQuery.result.complete(response);
+        } catch (RuntimeException e) {
+            pendingQuery.result.completeExceptionally(e);
+        }
+    }
+
+    private void handleSubscriptions(Connection connection, ByteBuffer body) {
+        String memberName = FrameCodec.readString(body);
+        Set<String> queryNames = new HashSet<>(FrameCodec.readStrings(body));
+        if (nodeName.equals(memberName)) {
+            logger.warn("Closing connection to self, or to another node named [{}]", memberName);
+            connection.close();
+            return;
+        }
+        RemoteMember member = members.computeIfAbsent(memberName, RemoteMember::new);
+        member.addConnection(connection);
+        connectionMembers.put(connection, member);
+        synchronized (this) {
+            consistentHash = consistentHash.with(memberName, segments, queryNames);
+        }
+    }
+
+    private void handleClosed(Connection connection) {
+        connections.remove(connection);
+        RemoteMember member = connectionMembers.remove(connection);
+        if (member != null && member.removeConnection(connection)) {
+            members.remove(member.name, member);
+            synchronized (this) {
+                consistentHash = consistentHash.without(member.name);
+            }
+            logger.info("Lost connection to member [{}]", member.name);
+        }
+        pendingQueries.forEach((identifier, pendingQuery) -> {
+            if (pendingQuery.connection == connection && pendingQueries.remove(identifier, pendingQuery)) {
+                pendingQuery.result.completeExceptionally(new QueryDispatchException(
+                        "Connection was lost before a response was received for query [" + identifier + "]"));
+            }
+        });
+        // nobody is waiting for the responses to the queries received over the connection anymore
+        handledQueries.forEach((identifier, handledQuery) -> {
+            if (handledQuery.connection == connection && handledQueries.remove(identifier, handledQuery)) {
+                handledQuery.cancellation.cancel(true);
+            }
+        });
+    }
+
+    private synchronized void announceSubscriptions() {
+        ByteBuffer frame = subscriptionsFrame();
+        for (Connection connection : connections) {
+            connection.send(frame.duplicate());
+        }
+    }
+
+    private ByteBuffer subscriptionsFrame() {
+        return FrameCodec.subscriptions(nodeName, new ArrayList<>(localQueryNames.keySet()));
+    }
+
+    private class ConnectorListener implements NioConnector.Listener {
+
+        @Override
+        public void onOpen(Connection connection) {
+            synchronized (DistributedQueryBus.this) {
+                connections.add(connection);
+                connection.send(subscriptionsFrame());
+            }
+        }
+
+        @Override
+        public void onFrame(Connection connection, byte type, ByteBuffer body) {
+            switch (type) {
+                case FrameCodec.QUERY:
+                    receiveQuery(connection, body);
+                    break;
+                case FrameCodec.CANCEL:
+                    handleCancel(body);
+                    break;
+                case FrameCodec.RESPONSE:
+                    handleResponse(body);
+                    break;
+                case FrameCodec.SUBSCRIPTIONS:
+                    handleSubscriptions(connection, body);
+                    break;
+                default:
+                    logger.warn("Ignoring frame of unknown type [{}] from {}", type, connection);
+            }
+        }
+
+        @Override
+        public void onClose(Connection connection) {
+            handleClosed(connection);
+        }
+    }
+
+    private static final class RemoteMember {
+
+        private final String name;
+
+        private final List<Connection> connections = new CopyOnWriteArrayList<>();
+
+        private final AtomicInteger next = new AtomicInteger();
+
+        private RemoteMember(String name) {
+            this.name = name;
+        }
+
+        private void addConnection(Connection connection) {
+            if (!connections.contains(connection)) {
+                connections.add(connection);
+            }
+        }
+
+        private boolean removeConnection(Connection connection) {
+            connections.remove(connection);
+            return connections.isEmpty();
+        }
+
+        private Connection nextConnection() {
+            List<Connection> snapshot = connections;
+            for (int attempt = 0; attempt < snapshot.size(); attempt++) {
+                int size = snapshot.size();
+                if (size == 0) {
+                    return null;
+                }
+                Connection connection = snapshot.get(Math.floorMod(next.getAndIncrement(), size));
+                if (connection.isOpen()) {
+                    return connection;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class PendingQuery {
+
+        private final Connection connection;
+
+        private final ResponseType<?> responseType;
+
+        private final CompletableFuture<QueryResponseMessage<?>> result;
+
+        private PendingQuery(Connection connection, ResponseType<?> responseType,
+                             CompletableFuture<QueryResponseMessage<?>> result) {
+            this.connection = connection;
+            this.responseType = responseType;
+            this.result = result;
+        }
+    }
+
+    private static final class HandledQuery {
+
+        private final Connection connection;
+
+        private final CompletableFuture<Void> cancellation = new CompletableFuture<>();
+
+        private HandledQuery(Connection connection) {
+            this.connection = connection;
+        }
+    }
+
+    private static final class WorkerThreadFactory implements java.util.concurrent.ThreadFactory {
+
+        private final String nodeName;
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        private WorkerThreadFactory(String nodeName) {
+            this.nodeName = nodeName;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "DistributedQueryBus-" + nodeName + "-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    public static class Builder {
+
+        private QueryBus localSegment;
+
+        private Serializer serializer =
+                new JavaSerializer(ObjectInputFilter.Config.createFilter(DEFAULT_SERIALIZATION_FILTER));
+
+        private boolean serializerConfigured;
+
+        private String nodeName = UUID.randomUUID().toString();
+
+        private InetSocketAddress bindAddress = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+
+        private List<InetSocketAddress> peers = Collections.emptyList();
+
+        private int segments = 100;
+
+        private int connectionsPerPeer = 2;
+
+        private int maxFrameSize = 16 * 1024 * 1024;
+
+        /**
+         * Sets the {@link QueryBus} that holds the query handlers of this node and handles the queries routed to it.
+         *
+         * @param localSegment the QueryBus handling the queries of this node
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder localSegment(QueryBus localSegment) {
+            Assert.nonNull(localSegment, () -> "Local segment may not be null");
+            this.localSegment = localSegment;
+            return this;
+        }
+
+        /**
+         * Sets the {@link Serializer} used to serialize payloads, meta data and response types. All nodes must use a
+         * compatible serializer. Defaults to a {@link JavaSerializer} only deserializing the classes allowed by {@link
+         * #DEFAULT_SERIALIZATION_FILTER}, which suffices for queries and responses of framework and JDK types on the
+         * loopback address. A serializer must be configured when binding to another address, as any host that can
+         * connect to it can send data to be deserialized.
+         *
+         * @param serializer the serializer used for the messages exchanged with other nodes
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder serializer(Serializer serializer) {
+            Assert.nonNull(serializer, () -> "Serializer may not be null");
+            this.serializer = serializer;
+            this.serializerConfigured = true;
+            return this;
+        }
+
+        /**
+         * Sets the name this node announces to other nodes, which must be unique among the nodes. Defaults to a random
+         * UUID.
+         *
+         * @param nodeName the name of this node
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder nodeName(String nodeName) {
+            Assert.nonNull(nodeName, () -> "Node name may not be null");
+            this.nodeName = nodeName;
+            return this;
+        }
+
+        /**
+         * Sets the address to listen on for connections of other nodes. Defaults to a random free port of the loopback
+         * address. Any other address requires a {@link #serializer(Serializer) serializer} to be configured.
+         *
+         * @param bindAddress the address to listen on
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder bindAddress(InetSocketAddress bindAddress) {
+            Assert.nonNull(bindAddress, () -> "Bind address may not be null");
+            this.bindAddress = bindAddress;
+            return this;
+        }
+
+        /**
+         * Sets the addresses of the nodes to connect to when this node is started.
+         *
+         * @param peers the addresses of the other nodes
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder peers(List<InetSocketAddress> peers) {
+            Assert.nonNull(peers, () -> "Peers may not be null");
+            this.peers = new ArrayList<>(peers);
+            return this;
+        }
+
+        /**
+         * Sets the number of positions of every member on the consistent hash ring. Defaults to {@code 100}.
+         *
+         * @param segments the number of positions per member
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder segments(int segments) {
+            Assert.isTrue(segments > 0, () -> "The number of segments must be positive");
+            this.segments = segments;
+            return this;
+        }
+
+        /**
+         * Sets the number of connections opened to every peer. Defaults to {@code 2}.
+         *
+         * @param connectionsPerPeer the number of connections per peer
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder connectionsPerPeer(int connectionsPerPeer) {
+            Assert.isTrue(connectionsPerPeer > 0, () -> "The number of connections per peer must be positive");
+            this.connectionsPerPeer = connectionsPerPeer;
+            return this;
+        }
+
+        /**
+         * Sets the maximum size in bytes of a frame received from another node. A connection over which a larger
+         * frame is received is closed, so that a faulty or hostile peer cannot make this node allocate without limit.
+         * Defaults to 16 MiB.
+         *
+         * @param maxFrameSize the maximum size of a received frame
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder maxFrameSize(int maxFrameSize) {
+            Assert.isTrue(maxFrameSize > 0, () -> "The maximum frame size must be positive");
+            this.maxFrameSize = maxFrameSize;
+            return this;
+        }
+
+        /**
+         * Validate whether the fields contained in this Builder as set accordingly.
+         */
+        protected void validate() {
+            Assert.nonNull(localSegment, () -> "The local segment is a hard requirement and should be provided");
+            Assert.isTrue(serializerConfigured || (bindAddress.getAddress() != null
+                                  && bindAddress.getAddress().isLoopbackAddress()),
+                          () -> "A serializer must be configured explicitly to listen on [" + bindAddress
+                                  + "], as it accepts data from other hosts");
+        }
+
+        public DistributedQueryBus build() {
+            return new DistributedQueryBus(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,163 @@
+package io.cyw.framework.queryhandling.distributed;
+
+import io.cyw.framework.serialization.SerializedObject;
+import io.cyw.framework.serialization.SimpleSerializedObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Encodes and decodes the frames exchanged between the nodes of a {@link DistributedQueryBus}. A frame consists of a
+ * 4 byte length, followed by a single byte identifying the frame type and the frame body. The length covers the type
+ * byte and the body. Strings are written as a 4 byte length followed by their UTF-8 bytes, serialized objects as
+ * their type name, revision and data.
+ */
+final class FrameCodec {
+
+    static final byte QUERY = 1;
+
+    static final byte RESPONSE = 2;
+
+    static final byte SUBSCRIPTIONS = 3;
+
+    static final byte CANCEL = 4;
+
+    static final int HEADER_LENGTH = Integer.BYTES;
+
+    private FrameCodec() {
+        // prevent instantiation
+    }
+
+    static ByteBuffer query(String identifier, String queryName, SerializedObject<byte[]> responseType,
+                            SerializedObject<byte[]> payload, SerializedObject<byte[]> metaData) {
+        FrameWriter writer = new FrameWriter(QUERY);
+        writer.writeString(identifier);
+        writer.writeString(queryName);
+        writer.writeSerializedObject(responseType);
+        writer.writeSerializedObject(payload);
+        writer.writeSerializedObject(metaData);
+        return writer.toFrame();
+    }
+
+    static ByteBuffer response(String requestIdentifier, String identifier, boolean exceptional,
+                               SerializedObject<byte[]> payload, SerializedObject<byte[]> metaData) {
+        FrameWriter writer = new FrameWriter(RESPONSE);
+        writer.writeString(requestIdentifier);
+        writer.writeString(identifier);
+        writer.writeBoolean(exceptional);
+        writer.writeSerializedObject(payload);
+        writer.writeSerializedObject(metaData);
+        return writer.toFrame();
+    }
+
+    static ByteBuffer subscriptions(String nodeName, Collection<String> queryNames) {
+        FrameWriter writer = new FrameWriter(SUBSCRIPTIONS);
+        writer.writeString(nodeName);
+        writer.writeInt(queryNames.size());
+        queryNames.forEach(writer::writeString);
+        return writer.toFrame();
+    }
+
+    static ByteBuffer cancel(String requestIdentifier) {
+        FrameWriter writer = new FrameWriter(CANCEL);
+        writer.writeString(requestIdentifier);
+        return writer.toFrame();
+    }
+
+    static String readString(ByteBuffer body) {
+        int length = body.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(body.array(), body.arrayOffset() + body.position(), length, StandardCharsets.UTF_8);
+        body.position(body.position() + length);
+        return value;
+    }
+
+    static List<String> readStrings(ByteBuffer body) {
+        int count = body.getInt();
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(readString(body));
+        }
+        return values;
+    }
+
+    static boolean readBoolean(ByteBuffer body) {
+        return body.get() != 0;
+    }
+
+    static SerializedObject<byte[]> readSerializedObject(ByteBuffer body) {
+        String type = readString(body);
+        String revision = readString(body);
+        byte[] data = new byte[body.getInt()];
+        body.get(data);
+        return new SimpleSerializedObject<>(data, byte[].class, type, revision);
+    }
+
+    private static final class FrameWriter {
+
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+
+        private final DataOutputStream out = new DataOutputStream(buffer);
+
+        private FrameWriter(byte type) {
+            writeInt(0);
+            write(() -> out.writeByte(type));
+        }
+
+        private void writeInt(int value) {
+            write(() -> out.writeInt(value));
+        }
+
+        private void writeBoolean(boolean value) {
+            write(() -> out.writeBoolean(value));
+        }
+
+        private void writeString(String value) {
+            if (value == null) {
+                writeInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeInt(bytes.length);
+            write(() -> out.write(bytes));
+        }
+
+        private void writeSerializedObject(SerializedObject<byte[]> serializedObject) {
+            writeString(serializedObject.getType().getName());
+            writeString(serializedObject.getType().getRevision());
+            writeInt(serializedObject.getData().length);
+            write(() -> out.write(serializedObject.getData()));
+        }
+
+        private ByteBuffer toFrame() {
+            ByteBuffer frame = ByteBuffer.wrap(buffer.toByteArray());
+            frame.putInt(0, frame.limit() - HEADER_LENGTH);
+            return frame;
+        }
+
+        private void write(IOAction action) {
+            try {
+                action.run();
+            } catch (IOException e) {
+                // writing to a byte array does not fail
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface IOAction {
+
+        void run() throws IOException;
+    }
+
+}
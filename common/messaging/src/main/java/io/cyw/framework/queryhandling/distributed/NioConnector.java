@@ -0,0 +1,335 @@
+package io.cyw.framework.queryhandling.distributed;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Event loop that accepts, reads from and writes to the TCP connections of a {@link DistributedQueryBus} using a single
+ * {@link Selector} thread. Frames can be sent from any thread, they are queued per connection and written by the event
+ * loop, so that many requests can be pipelined over a single connection. Received frames are passed to the
+ * {@link Listener} on the event loop thread, which must therefore not block.
+ * <p>
+ * A connection receiving a frame with a length of less than one byte or of more than the maximum frame size is closed,
+ * as is a connection of which an event fails, without affecting the other connections of the event loop.
+ */
+final class NioConnector {
+
+    private static final Logger logger = LoggerFactory.getLogger(NioConnector.class);
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final Selector selector;
+
+    private final Listener listener;
+
+    private final int maxFrameSize;
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    private final Thread thread;
+
+    private volatile boolean running = true;
+
+    NioConnector(String name, Listener listener, int maxFrameSize) throws IOException {
+        this.selector = Selector.open();
+        this.listener = listener;
+        this.maxFrameSize = maxFrameSize;
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    InetSocketAddress listen(InetSocketAddress address) throws IOException {
+        ServerSocketChannel server = ServerSocketChannel.open();
+        server.bind(address);
+        server.configureBlocking(false);
+        execute(() -> {
+            try {
+                server.register(selector, SelectionKey.OP_ACCEPT);
+            } catch (IOException e) {
+                logger.warn("Unable to accept connections on [{}]", address, e);
+            }
+        });
+        return (InetSocketAddress) server.getLocalAddress();
+    }
+
+    Connection connect(InetSocketAddress address) throws IOException {
+        SocketChannel channel = SocketChannel.open(address);
+        Connection connection = new Connection(channel);
+        execute(() -> register(connection));
+        return connection;
+    }
+
+    void shutdown() {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                selector.select();
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    try {
+                        task.run();
+                    } catch (RuntimeException e) {
+                        logger.warn("Connector event loop task failed", e);
+                    }
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handle(key);
+                }
+            } catch (IOException e) {
+                logger.warn("Connector event loop failed to select", e);
+            }
+        }
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Connection) {
+                Connection connection = (Connection) key.attachment();
+                if (connection.closed.compareAndSet(false, true)) {
+                    connection.release();
+                }
+            } else {
+                closeQuietly(key);
+            }
+        }
+        closeQuietly(null);
+    }
+
+    private void handle(SelectionKey key) {
+        try {
+            if (key.isAcceptable()) {
+                SocketChannel channel = ((ServerSocketChannel) key.channel()).accept();
+                if (channel != null) {
+                    register(new Connection(channel));
+                }
+                return;
+            }
+            Connection connection = (Connection) key.attachment();
+            if (key.isReadable()) {
+                connection.read();
+            }
+            if (key.isValid() && key.isWritable()) {
+                connection.flush();
+            }
+        } catch (CancelledKeyException e) {
+            // the connection was closed while handling another event
+        } catch (IOException e) {
+            logger.warn("Failed to accept connection", e);
+        } catch (RuntimeException e) {
+            if (key.attachment() instanceof Connection) {
+                Connection connection = (Connection) key.attachment();
+                logger.warn("Closing {} after it failed to handle an event", connection, e);
+                connection.close();
+            } else {
+                logger.warn("Failed to accept connection", e);
+            }
+        }
+    }
+
+    private void register(Connection connection) {
+        try {
+            connection.channel.configureBlocking(false);
+            connection.channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            connection.key = connection.channel.register(selector, SelectionKey.OP_READ, connection);
+        } catch (IOException e) {
+            logger.warn("Unable to register connection", e);
+            connection.close();
+            return;
+        }
+        listener.onOpen(connection);
+        connection.flush();
+    }
+
+    private void closeQuietly(SelectionKey key) {
+        try {
+            if (key == null) {
+                selector.close();
+            } else {
+                key.channel().close();
+            }
+        } catch (IOException e) {
+            logger.debug("Failed to close", e);
+        }
+    }
+
+    /**
+     * Callback receiving the events of the connections of a connector, on the event loop thread.
+     */
+    interface Listener {
+
+        void onOpen(Connection connection);
+
+        void onFrame(Connection connection, byte type, ByteBuffer body);
+
+        void onClose(Connection connection);
+    }
+
+    /**
+     * A bidirectional connection to another node, over which frames can be sent in both directions.
+     */
+    final class Connection {
+
+        private final SocketChannel channel;
+
+        private final Queue<ByteBuffer> outbound = new ConcurrentLinkedQueue<>();
+
+        private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private ByteBuffer inbound = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+        private SelectionKey key;
+
+        private Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Queues the given {@code frame} to be written to this connection. Frames are written in the order in which
+         * they were sent.
+         *
+         * @param frame the frame to send
+         * @return {@code false} if the connection was closed, otherwise {@code true}
+         */
+        boolean send(ByteBuffer frame) {
+            if (closed.get()) {
+                return false;
+            }
+            outbound.add(frame);
+            if (flushScheduled.compareAndSet(false, true)) {
+                execute(this::flush);
+            }
+            return true;
+        }
+
+        boolean isOpen() {
+            return !closed.get();
+        }
+
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                execute(this::release);
+            }
+        }
+
+        @Override
+        public String toString() {
+            try {
+                return "Connection[" + channel.getRemoteAddress() + "]";
+            } catch (IOException e) {
+                return "Connection[closed]";
+            }
+        }
+
+        private void release() {
+            if (key != null) {
+                key.cancel();
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.debug("Failed to close connection", e);
+            }
+            outbound.clear();
+            listener.onClose(this);
+        }
+
+        private void read() {
+            int read;
+            try {
+                read = channel.read(inbound);
+            } catch (IOException e) {
+                logger.debug("Failed to read from {}", this, e);
+                read = -1;
+            }
+            if (read < 0) {
+                close();
+                return;
+            }
+            inbound.flip();
+            while (inbound.remaining() >= FrameCodec.HEADER_LENGTH) {
+                int length = inbound.getInt(inbound.position());
+                if (length < 1 || length > maxFrameSize) {
+                    logger.warn("Closing {} after receiving a frame of invalid length [{}]", this, length);
+                    close();
+                    return;
+                }
+                if (inbound.remaining() < FrameCodec.HEADER_LENGTH + length) {
+                    if (inbound.capacity() < FrameCodec.HEADER_LENGTH + length) {
+                        ByteBuffer larger = ByteBuffer.allocate(FrameCodec.HEADER_LENGTH + length);
+                        larger.put(inbound);
+                        inbound = larger;
+                        return;
+                    }
+                    break;
+                }
+                inbound.getInt();
+                byte type = inbound.get();
+                byte[] body = new byte[length - 1];
+                inbound.get(body);
+                try {
+                    listener.onFrame(this, type, ByteBuffer.wrap(body));
+                } catch (RuntimeException e) {
+                    logger.warn("Failed to process frame of type [{}] from {}", type, this, e);
+                }
+            }
+            inbound.compact();
+        }
+
+        private void flush() {
+            if (key == null || !key.isValid()) {
+                // not registered yet, or closed. Registration flushes pending frames
+                return;
+            }
+            try {
+                do {
+                    ByteBuffer frame;
+                    while ((frame = outbound.peek()) != null) {
+                        channel.write(frame);
+                        if (frame.hasRemaining()) {
+                            key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                            return;
+                        }
+                        outbound.poll();
+                    }
+                    key.interestOps(SelectionKey.OP_READ);
+                    flushScheduled.set(false);
+                } while (!outbound.isEmpty() && flushScheduled.compareAndSet(false, true));
+            } catch (IOException e) {
+                logger.debug("Failed to write to {}", this, e);
+                close();
+            }
+        }
+    }
+
+}
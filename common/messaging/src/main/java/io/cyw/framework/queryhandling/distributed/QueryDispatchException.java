@@ -0,0 +1,32 @@
+package io.cyw.framework.queryhandling.distributed;
+
+import io.cyw.framework.core.exception.SystemIllegalException;
+
+/**
+ * Exception indicating that a query could not be dispatched to, or answered by, the remote member it was routed to,
+ * e.g. because the connection to that member was lost.
+ */
+public class QueryDispatchException extends SystemIllegalException {
+
+    private static final long serialVersionUID = 2613981541378624384L;
+
+    /**
+     * Initializes the exception using the given {@code message}.
+     *
+     * @param message The message describing the exception
+     */
+    public QueryDispatchException(String message) {
+        super(message);
+    }
+
+    /**
+     * Initializes the exception using the given {@code message} and {@code cause}.
+     *
+     * @param message The message describing the exception
+     * @param cause   The underlying cause of the exception
+     */
+    public QueryDispatchException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2010-2020. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.cyw.framework.serialization;
+
+import io.cyw.framework.core.exception.SystemIllegalException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.UncheckedIOException;
+
+/**
+ * Serializer implementation that uses Java serialization to serialize and deserialize object instances. This
+ * implementation is very suitable if the life span of the serialized objects allows classes to remain unchanged. If
+ * Class definitions need to be changed during the object's life cycle, another implementation, like a JSON based
+ * serializer might be a more suitable alternative.
+ * <p>
+ * The serialVersionUID of a class is used as the revision of its serialized form. Serialized data is represented as a
+ * {@code byte[]}, which can be converted to an {@link InputStream}.
+ * <p>
+ * Deserializing data from an untrusted source with Java serialization can execute code of the classes on the class
+ * path. Such data must be deserialized by a serializer created with an {@link ObjectInputFilter} that only allows the
+ * classes that are expected.
+ *
+ * @author Allard Buijze
+ * @since 2.0
+ */
+public class JavaSerializer implements Serializer {
+
+    private static final Converter CONVERTER = new ByteArrayConverter();
+
+    private final ObjectInputFilter filter;
+
+    /**
+     * Initializes a JavaSerializer which deserializes object graphs of any class, unless a process wide filter is
+     * configured.
+     */
+    public JavaSerializer() {
+        this(null);
+    }
+
+    /**
+     * Initializes a JavaSerializer which checks the classes, size and depth of the deserialized object graphs with the
+     * given {@code filter}, for example one created with {@link ObjectInputFilter.Config#createFilter(String)}. Data
+     * rejected by the filter fails to deserialize with a {@link SerializationException}. A process wide filter, set
+     * with the {@code jdk.serialFilter} property, takes precedence over the given filter.
+     *
+     * @param filter the filter checking the deserialized object graphs, or {@code null} to apply the process wide
+     *               filter, if any
+     */
+    public JavaSerializer(ObjectInputFilter filter) {
+        this.filter = filter;
+    }
+
+    @Override
+    public <T> SerializedObject<T> serialize(Object object, Class<T> expectedRepresentation) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+            oos.writeObject(object);
+        } catch (IOException e) {
+            throw new SerializationException("An exception occurred writing serialized data to the output stream", e);
+        }
+        SerializedType type = object == null ? SerializedType.emptyType() : typeForClass(object.getClass());
+        return CONVERTER.convert(new SimpleSerializedObject<>(baos.toByteArray(), byte[].class, type),
+                                 expectedRepresentation);
+    }
+
+    @Override
+    public <T> boolean canSerializeTo(Class<T> expectedRepresentation) {
+        return CONVERTER.canConvert(byte[].class, expectedRepresentation);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <S, T> T deserialize(SerializedObject<S> serializedObject) {
+        if (SerializedType.isEmptyType(serializedObject.getType())) {
+            return null;
+        }
+        SerializedObject<InputStream> converted = CONVERTER.convert(serializedObject, InputStream.class);
+        try (ObjectInputStream ois = new ObjectInputStream(converted.getData())) {
+            if (filter != null && ois.getObjectInputFilter() == null) {
+                ois.setObjectInputFilter(filter);
+            }
+            return (T) ois.readObject();
+        } catch (ClassNotFoundException | IOException e) {
+            throw new SerializationException("An error occurred while deserializing: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Class classForType(SerializedType type) {
+        if (SerializedType.isEmptyType(type)) {
+            return Void.class;
+        }
+        try {
+            return Class.forName(type.getName(), false, Thread.currentThread().getContextClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new SerializationException("Unknown serialized type [" + type.getName() + "]", e);
+        }
+    }
+
+    @Override
+    public SerializedType typeForClass(Class type) {
+        if (type == null || Void.class.equals(type) || void.class.equals(type)) {
+            return SerializedType.emptyType();
+        }
+        ObjectStreamClass objectStreamClass = ObjectStreamClass.lookup(type);
+        return new SimpleSerializedType(type.getName(), objectStreamClass == null
+                ? null : Long.toString(objectStreamClass.getSerialVersionUID()));
+    }
+
+    @Override
+    public Converter getConverter() {
+        return CONVERTER;
+    }
+
+    /**
+     * Exception indicating that an object could not be serialized or deserialized.
+     */
+    public static class SerializationException extends SystemIllegalException {
+
+        private static final long serialVersionUID = -4427213543924938164L;
+
+        /**
+         * Initializes the exception using the given {@code message} and {@code cause}.
+         *
+         * @param message The message describing the exception
+         * @param cause   The underlying cause of the exception
+         */
+        public SerializationException(String message, Throwable cause) {
+            super(message, cause);
+        }
+
+    }
+
+    private static class ByteArrayConverter implements Converter {
+
+        @Override
+        public boolean canConvert(Class<?> sourceType, Class<?> targetType) {
+            return targetType.isAssignableFrom(sourceType)
+                    || (byte[].class.equals(sourceType) && InputStream.class.equals(targetType))
+                    || (InputStream.class.isAssignableFrom(sourceType) && byte[].class.equals(targetType));
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T convert(Object original, Class<?> sourceType, Class<T> targetType) {
+            if (targetType.isAssignableFrom(sourceType)) {
+                return (T) original;
+            } else if (byte[].class.equals(sourceType) && InputStream.class.equals(targetType)) {
+                return (T) new ByteArrayInputStream((byte[]) original);
+            } else if (InputStream.class.isAssignableFrom(sourceType) && byte[].class.equals(targetType)) {
+                try {
+                    return (T) ((InputStream) original).readAllBytes();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            throw new SerializationException(
+                    "Cannot convert from [" + sourceType.getName() + "] to [" + targetType.getName() + "]", null);
+        }
+    }
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2010-2020. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.cyw.framework.serialization;
+
+import io.cyw.framework.utils.Assert;
+
+import java.util.function.Supplier;
+
+/**
+ * Represents a serialized object that can be deserialized upon request. Typically used as a wrapper class for
+ * keeping a SerializedObject and its Serializer together. The serialized data is only deserialized the first time
+ * {@link #getObject()} is invoked, after which the deserialized object is kept for subsequent invocations.
+ *
+ * @param <T> The type of object contained in the serialized object
+ * @author Allard Buijze
+ * @since 2.0
+ */
+public class LazyDeserializingObject<T> {
+
+    private final transient Serializer serializer;
+
+    private final transient Supplier<SerializedObject<?>> serializedObject;
+
+    private final SerializedType serializedType;
+
+    private volatile T deserializedObject;
+
+    /**
+     * Creates an instance with the given {@code deserializedObject} object instance. Using this constructor will
+     * ensure that no deserialization is required when invoking the {@link #getType()} or {@link #getObject()}
+     * methods.
+     *
+     * @param deserializedObject The deserialized object to return on {@link #getObject()}
+     */
+    public LazyDeserializingObject(T deserializedObject) {
+        Assert.nonNull(deserializedObject, () -> "The given deserialized instance may not be null");
+        this.serializer = null;
+        this.serializedObject = null;
+        this.serializedType = null;
+        this.deserializedObject = deserializedObject;
+    }
+
+    /**
+     * Creates an instance which will deserialize given {@code serializedObject} upon request. Use this constructor
+     * if the {@code serializedObject} is already available and does not need to undergo a process of e.g.
+     * upcasting.
+     *
+     * @param serializedObject The serialized payload of the message
+     * @param serializer       The serializer to deserialize the payload data with
+     */
+    public LazyDeserializingObject(SerializedObject<?> serializedObject, Serializer serializer) {
+        this(() -> serializedObject, serializedObject.getType(), serializer);
+    }
+
+    /**
+     * Creates an instance which will get the serialized object from the given {@code serializedObjectSupplier} and
+     * deserialize it upon request. Use this constructor if the {@code serializedObject} still needs to be produced,
+     * e.g. by applying upcasters, so that the work to produce it is only done when the object is actually needed.
+     * The given {@code serializedType} must describe the type the supplied object will have, so that
+     * {@link #getType()} can be answered without invoking the supplier.
+     *
+     * @param serializedObjectSupplier The supplier of the serialized object
+     * @param serializedType           The type of the serialized object
+     * @param serializer               The serializer to deserialize the payload data with
+     */
+    public LazyDeserializingObject(Supplier<SerializedObject<?>> serializedObjectSupplier,
+                                   SerializedType serializedType, Serializer serializer) {
+        Assert.nonNull(serializedObjectSupplier, () -> "The given serializedObjectSupplier may not be null");
+        Assert.nonNull(serializedType, () -> "The given serializedType may not be null");
+        Assert.nonNull(serializer, () -> "The given serializer may not be null");
+        this.serializedObject = serializedObjectSupplier;
+        this.serializedType = serializedType;
+        this.serializer = serializer;
+    }
+
+    /**
+     * Returns the class of the serialized object. Resolving the class does not require the object to be
+     * deserialized.
+     *
+     * @return the class of the serialized object
+     */
+    @SuppressWarnings("unchecked")
+    public Class<T> getType() {
+        if (deserializedObject != null) {
+            return (Class<T>) deserializedObject.getClass();
+        }
+        return serializer.classForType(serializedType);
+    }
+
+    /**
+     * De-serializes the object and returns the result. The object is deserialized at most once, subsequent
+     * invocations return the same instance.
+     *
+     * @return the deserialized object
+     */
+    public T getObject() {
+        T result = deserializedObject;
+        if (result == null) {
+            synchronized (this) {
+                result = deserializedObject;
+                if (result == null) {
+                    result = serializer.deserialize(serializedObject.get());
+                    deserializedObject = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Indicates whether this object has already been deserialized. When this method returns {@code true}, the
+     * {@link #getObject()} method is able to return a value without invoking the serializer.
+     *
+     * @return whether the contained object has been deserialized already
+     */
+    public boolean isDeserialized() {
+        return deserializedObject != null;
+    }
+
+    /**
+     * Returns the serializer to deserialize this object
+     *
+     * @return the serializer to deserialize this object, or {@code null} if this instance was created with an
+     * already deserialized object
+     */
+    public Serializer getSerializer() {
+        return serializer;
+    }
+
+    /**
+     * Returns the serialized object to deserialize upon request. Note that when this instance was created with a
+     * supplier, invoking this method may trigger the work to produce the serialized object, such as upcasting.
+     *
+     * @return the serialized object to deserialize upon request, or {@code null} if this instance was created with
+     * an already deserialized object
+     */
+    public SerializedObject<?> getSerializedObject() {
+        return serializedObject == null ? null : serializedObject.get();
+    }
+
+}
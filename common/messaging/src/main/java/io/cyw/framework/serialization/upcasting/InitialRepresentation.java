@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2010-2020. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.cyw.framework.serialization.upcasting;
+
+import io.cyw.framework.serialization.Converter;
+import io.cyw.framework.serialization.SerializedObject;
+import io.cyw.framework.serialization.SerializedType;
+import io.cyw.framework.serialization.Serializer;
+import io.cyw.framework.utils.Assert;
+
+/**
+ * Implementation of an {@link IntermediateRepresentation} that contains the original serialized object, before any
+ * upcaster has been applied to it. Conversions to other representations use the {@link Converter} of the serializer
+ * that produced the serialized object.
+ *
+ * @author Rene de Waele
+ * @since 3.0
+ */
+public class InitialRepresentation implements IntermediateRepresentation {
+
+    private final SerializedObject<?> serializedObject;
+
+    private final Converter converter;
+
+    /**
+     * Initializes an {@link InitialRepresentation} from the given {@code serializedObject}. The serializer's
+     * converter is used to convert the data to other representations when upcasters require so.
+     *
+     * @param serializedObject the serialized object to represent
+     * @param serializer       the serializer that produced the serialized object
+     */
+    public InitialRepresentation(SerializedObject<?> serializedObject, Serializer serializer) {
+        Assert.nonNull(serializedObject, () -> "The given serializedObject may not be null");
+        Assert.nonNull(serializer, () -> "The given serializer may not be null");
+        this.serializedObject = serializedObject;
+        this.converter = serializer.getConverter();
+    }
+
+    @Override
+    public SerializedType getType() {
+        return serializedObject.getType();
+    }
+
+    @Override
+    public SerializedObject<?> getData() {
+        return serializedObject;
+    }
+
+    @Override
+    public <D> SerializedObject<D> getData(Class<D> requiredType) {
+        return converter.convert(serializedObject, requiredType);
+    }
+
+    @Override
+    public boolean canConvertDataTo(Class<?> requiredType) {
+        return converter.canConvert(serializedObject.getContentType(), requiredType);
+    }
+
+    @Override
+    public Converter getConverter() {
+        return converter;
+    }
+
+}
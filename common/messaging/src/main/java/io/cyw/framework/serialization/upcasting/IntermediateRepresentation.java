@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2010-2020. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.cyw.framework.serialization.upcasting;
+
+import io.cyw.framework.serialization.Converter;
+import io.cyw.framework.serialization.SerializedObject;
+import io.cyw.framework.serialization.SerializedType;
+
+import java.util.function.Function;
+
+/**
+ * Interface describing the intermediate representation of a serialized object, which is used by upcasters to change
+ * the data structure of the serialized object without deserializing it.
+ * <p>
+ * Upcasters typically request the data in a tree-like format supported by the serializer's
+ * {@link io.cyw.framework.serialization.Converter} (e.g. a JSON node or a DOM document), modify the tree and pass it
+ * on. Implementations are expected to defer any conversion until the data is actually requested, so that entries
+ * which are never read are never converted or upcast.
+ *
+ * @author Rene de Waele
+ * @since 3.0
+ */
+public interface IntermediateRepresentation {
+
+    /**
+     * Upcast the serialized data of this representation. The returned representation will report the given
+     * {@code outputType} right away, but the {@code upcastFunction} is only invoked once the data of the returned
+     * representation is requested.
+     *
+     * @param outputType                 the output type of the upcast data
+     * @param expectedRepresentationType the type of representation expected by the upcast function
+     * @param upcastFunction             the function that upcasts the data
+     * @param <T>                        the expected type of the data
+     * @return the intermediate representation with upcast data
+     */
+    default <T> IntermediateRepresentation upcast(SerializedType outputType, Class<T> expectedRepresentationType,
+                                                  Function<T, T> upcastFunction) {
+        return new UpcastedRepresentation<>(outputType, expectedRepresentationType, this, upcastFunction,
+                                          getConverter());
+    }
+
+    /**
+     * Returns the type of this representation's {@link #getData() data}. Implementations should be able to answer
+     * this without converting or upcasting the data itself.
+     *
+     * @return the type of this representation's data
+     */
+    SerializedType getType();
+
+    /**
+     * Get the data of this representation. The returned object has the type described by {@link #getType()}.
+     *
+     * @return the data representing the serialized object
+     */
+    SerializedObject<?> getData();
+
+    /**
+     * Get the data of this representation, converted to the given {@code requiredType}.
+     *
+     * @param requiredType the type of representation required
+     * @param <D>          the desired data type
+     * @return the data representing the serialized object in the required representation
+     */
+    <D> SerializedObject<D> getData(Class<D> requiredType);
+
+    /**
+     * Checks whether the data of this representation can be converted to the given {@code requiredType}.
+     *
+     * @param requiredType the type to convert to
+     * @return {@code true} if the data can be converted, {@code false} otherwise
+     */
+    boolean canConvertDataTo(Class<?> requiredType);
+
+    /**
+     * Returns the {@link Converter} used to convert the data of this representation to the types requested by
+     * upcasters.
+     *
+     * @return the converter of this representation
+     */
+    Converter getConverter();
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2010-2020. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.cyw.framework.serialization.upcasting;
+
+import io.cyw.framework.serialization.SerializedType;
+import io.cyw.framework.serialization.SimpleSerializedType;
+import io.cyw.framework.utils.Assert;
+
+import java.util.Objects;
+
+/**
+ * Abstract implementation of a {@link SingleEntryUpcaster} that upcasts a single revision of a single serialized
+ * type to the next revision. Subclasses only need to implement {@link #upcastData(Object)}, which receives the data
+ * in the representation type given at construction time.
+ * <p>
+ * The upcast is registered lazily: applying this upcaster only changes the reported type of the representation, the
+ * data itself is converted and upcast when it is first read.
+ *
+ * @param <T> the representation type in which the data is upcast, e.g. a tree-like structure of the serializer
+ * @author Rene de Waele
+ * @since 3.0
+ */
+public abstract class RevisionUpcaster<T> extends SingleEntryUpcaster<IntermediateRepresentation> {
+
+    private final String typeName;
+
+    private final String fromRevision;
+
+    private final SerializedType outputType;
+
+    private final Class<T> representationType;
+
+    /**
+     * Initializes an upcaster that converts data of the given {@code typeName} with revision {@code fromRevision}
+     * to revision {@code toRevision}.
+     *
+     * @param typeName           the name of the serialized type to upcast
+     * @param fromRevision       the revision to upcast from, may be {@code null} for objects without a revision
+     * @param toRevision         the revision to upcast to
+     * @param representationType the type of representation in which the upcast is performed
+     */
+    protected RevisionUpcaster(String typeName, String fromRevision, String toRevision,
+                               Class<T> representationType) {
+        Assert.nonNull(typeName, () -> "The given typeName may not be null");
+        Assert.nonNull(representationType, () -> "The given representationType may not be null");
+        Assert.isFalse(Objects.equals(fromRevision, toRevision),
+                       () -> "The revision to upcast to should differ from the revision to upcast from");
+        this.typeName = typeName;
+        this.fromRevision = fromRevision;
+        this.outputType = new SimpleSerializedType(typeName, toRevision);
+        this.representationType = representationType;
+    }
+
+    @Override
+    protected boolean canUpcast(IntermediateRepresentation intermediateRepresentation) {
+        SerializedType type = intermediateRepresentation.getType();
+        return typeName.equals(type.getName()) && Objects.equals(fromRevision, type.getRevision());
+    }
+
+    @Override
+    protected IntermediateRepresentation doUpcast(IntermediateRepresentation intermediateRepresentation) {
+        return intermediateRepresentation.upcast(outputType, representationType, this::upcastData);
+    }
+
+    /**
+     * Upcasts the given {@code data} to the next revision. The given data may be modified and returned, or a new
+     * instance may be returned.
+     *
+     * @param data the data of the serialized object in the representation type of this upcaster
+     * @return the upcast data
+     */
+    protected abstract T upcastData(T data);
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2010-2020. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.cyw.framework.serialization.upcasting;
+
+import io.cyw.framework.serialization.LazyDeserializingObject;
+import io.cyw.framework.serialization.SerializedObject;
+import io.cyw.framework.serialization.Serializer;
+
+import java.util.stream.Stream;
+
+/**
+ * Utility methods to apply an upcaster chain to serialized objects.
+ *
+ * @author Rene de Waele
+ * @since 3.0
+ */
+public abstract class UpcastUtils {
+
+    private UpcastUtils() {
+        // prevent instantiation
+    }
+
+    /**
+     * Upcasts and deserializes the given {@code serializedObjects} using the given {@code serializer} and
+     * {@code upcasterChain}.
+     * <p>
+     * Both steps are lazy. Upcasting only runs when the returned stream is consumed, and the upcast functions of
+     * each entry only run when the object of the corresponding {@link LazyDeserializingObject} is requested. Entries
+     * that are only inspected for their type are never converted.
+     *
+     * @param serializedObjects the serialized objects to upcast and deserialize
+     * @param serializer        the serializer that produced the serialized objects
+     * @param upcasterChain     the chain of upcasters to apply
+     * @return a stream of lazily upcast and deserialized objects
+     */
+    public static Stream<LazyDeserializingObject<?>> upcastAndDeserialize(
+            Stream<? extends SerializedObject<?>> serializedObjects, Serializer serializer,
+            Upcaster<IntermediateRepresentation> upcasterChain) {
+        return upcast(serializedObjects, serializer, upcasterChain)
+                .map(representation -> new LazyDeserializingObject<>(representation::getData,
+                                                                     representation.getType(), serializer));
+    }
+
+    /**
+     * Applies the given {@code upcasterChain} to the given {@code serializedObjects}, without deserializing them.
+     *
+     * @param serializedObjects the serialized objects to upcast
+     * @param serializer        the serializer that produced the serialized objects
+     * @param upcasterChain     the chain of upcasters to apply
+     * @return a stream of intermediate representations of the upcast objects
+     */
+    public static Stream<IntermediateRepresentation> upcast(Stream<? extends SerializedObject<?>> serializedObjects,
+                                                            Serializer serializer,
+                                                            Upcaster<IntermediateRepresentation> upcasterChain) {
+        Stream<IntermediateRepresentation> initialRepresentations =
+                serializedObjects.map(serializedObject -> new InitialRepresentation(serializedObject, serializer));
+        return upcasterChain.upcast(initialRepresentations);
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2010-2020. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.cyw.framework.serialization.upcasting;
+
+import io.cyw.framework.serialization.Converter;
+import io.cyw.framework.serialization.SerializedObject;
+import io.cyw.framework.serialization.SerializedType;
+import io.cyw.framework.serialization.SimpleSerializedObject;
+import io.cyw.framework.utils.Assert;
+
+import java.util.function.Function;
+
+/**
+ * Implementation of an {@link IntermediateRepresentation} that contains upcast data. The upcast function is applied
+ * the first time the data of this representation is requested and its result is kept for subsequent requests. The
+ * type of the representation is known up front, so filtering or routing on the type never triggers upcasting.
+ *
+ * @param <T> the required type of the data of the source representation for the upcast function
+ * @author Rene de Waele
+ * @since 3.0
+ */
+public class UpcastedRepresentation<T> implements IntermediateRepresentation {
+
+    private final SerializedType outputType;
+
+    private final Class<T> requiredType;
+
+    private final IntermediateRepresentation source;
+
+    private final Function<T, T> upcastFunction;
+
+    private final Converter converter;
+
+    private volatile SerializedObject<T> upcastData;
+
+    /**
+     * Initializes an {@link UpcastedRepresentation} from source data and given upcast function.
+     *
+     * @param outputType     the output type of the upcast representation
+     * @param requiredType   the type of the source data required by the upcast function
+     * @param source         the source representation that will be upcast
+     * @param upcastFunction the function to upcast the source data
+     * @param converter      the converter used to convert the upcast data to other representations
+     */
+    public UpcastedRepresentation(SerializedType outputType, Class<T> requiredType,
+                                  IntermediateRepresentation source, Function<T, T> upcastFunction,
+                                  Converter converter) {
+        Assert.nonNull(outputType, () -> "The given outputType may not be null");
+        Assert.nonNull(requiredType, () -> "The given requiredType may not be null");
+        Assert.nonNull(source, () -> "The given source may not be null");
+        Assert.nonNull(upcastFunction, () -> "The given upcastFunction may not be null");
+        Assert.nonNull(converter, () -> "The given converter may not be null");
+        this.outputType = outputType;
+        this.requiredType = requiredType;
+        this.source = source;
+        this.upcastFunction = upcastFunction;
+        this.converter = converter;
+    }
+
+    @Override
+    public SerializedType getType() {
+        return outputType;
+    }
+
+    @Override
+    public SerializedObject<T> getData() {
+        SerializedObject<T> result = upcastData;
+        if (result == null) {
+            synchronized (this) {
+                result = upcastData;
+                if (result == null) {
+                    SerializedObject<T> sourceData = source.getData(requiredType);
+                    result = new SimpleSerializedObject<>(upcastFunction.apply(sourceData.getData()),
+                                                          requiredType, outputType);
+                    upcastData = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public <D> SerializedObject<D> getData(Class<D> requiredType) {
+        return converter.convert(getData(), requiredType);
+    }
+
+    @Override
+    public boolean canConvertDataTo(Class<?> requiredType) {
+        return this.requiredType.equals(requiredType) || converter.canConvert(this.requiredType, requiredType);
+    }
+
+    @Override
+    public Converter getConverter() {
+        return converter;
+    }
+
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2010-2020. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.cyw.framework.serialization.upcasting;
+
+import java.util.stream.Stream;
+
+/**
+ * Interface for Upcasters. An upcaster is the mechanism used to convert deprecated (typically serialized) objects to
+ * their current revision. Upcasters operate on a stream of intermediate representations, which allows them to
+ * split, merge or drop entries, while the stream itself keeps the conversion lazy: nothing is upcast until a
+ * consumer pulls an entry from the resulting stream.
+ *
+ * @param <T> the type of object to upcast
+ * @author Rene de Waele
+ * @since 3.0
+ */
+@FunctionalInterface
+public interface Upcaster<T> {
+
+    /**
+     * Apply this upcaster to a stream of {@code intermediateRepresentations}. Returns a new stream of intermediate
+     * representations that may contain upcast entries.
+     * <p>
+     * Implementations should not perform any work until the returned stream is consumed.
+     *
+     * @param intermediateRepresentations the input stream of representations
+     * @return the resulting stream of representations after upcasting
+     */
+    Stream<T> upcast(Stream<T> intermediateRepresentations);
+
+}
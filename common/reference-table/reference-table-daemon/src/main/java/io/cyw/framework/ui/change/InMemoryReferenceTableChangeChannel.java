@@ -0,0 +1,63 @@
+package io.cyw.framework.ui.change;
+
+import io.cyw.framework.common.Registration;
+import io.quarkus.arc.DefaultBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * {@link ReferenceTableChangeChannel} delivering changes to the subscribers of the local node only. Changes are
+ * delivered in the order in which they were published, on a single thread of the channel.
+ * <p>
+ * This is the channel used when the application does not produce another one, which is sufficient for a single node.
+ * Clusters should use a channel reaching all nodes, such as the {@link PostgresReferenceTableChangeChannel}.
+ */
+@DefaultBean
+@ApplicationScoped
+public class InMemoryReferenceTableChangeChannel implements ReferenceTableChangeChannel {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryReferenceTableChangeChannel.class);
+
+    private final List<Consumer<ReferenceTableChange>> listeners = new CopyOnWriteArrayList<>();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "reference-table-changes");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Override
+    public void publish(ReferenceTableChange change) {
+        executor.execute(() -> deliver(change));
+    }
+
+    @Override
+    public Registration subscribe(Consumer<ReferenceTableChange> listener) {
+        listeners.add(listener);
+        return () -> listeners.remove(listener);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void deliver(ReferenceTableChange change) {
+        for (Consumer<ReferenceTableChange> listener : listeners) {
+            try {
+                listener.accept(change);
+            } catch (RuntimeException e) {
+                logger.warn("Listener failed to process {}", change, e);
+            }
+        }
+    }
+
+}
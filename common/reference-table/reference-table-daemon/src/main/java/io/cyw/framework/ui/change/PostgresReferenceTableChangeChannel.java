@@ -0,0 +1,243 @@
+package io.cyw.framework.ui.change;
+
+import io.cyw.framework.common.Registration;
+import io.cyw.framework.utils.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * {@link ReferenceTableChangeChannel} distributing changes to all nodes sharing a PostgreSQL database, using
+ * {@code LISTEN} and {@code NOTIFY}. Changes are published with {@code pg_notify}, which the database delivers to the
+ * listening connections of all nodes once the publishing transaction committed.
+ * <p>
+ * Every channel keeps one connection of the {@link DataSource} listening on a thread of its own, which is started when
+ * the first listener subscribes. The notifications are polled through the {@code org.postgresql.PGConnection}
+ * interface of the PostgreSQL driver, which is accessed reflectively so that the driver is only required at runtime.
+ * When the listening connection fails it is opened again, changes published in between are not received.
+ */
+public class PostgresReferenceTableChangeChannel implements ReferenceTableChangeChannel {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostgresReferenceTableChangeChannel.class);
+
+    public static final String DEFAULT_CHANNEL_NAME = "reference_table_changes";
+
+    private static final String PG_CONNECTION_CLASS = "org.postgresql.PGConnection";
+
+    private static final String PG_NOTIFICATION_CLASS = "org.postgresql.PGNotification";
+
+    /**
+     * The maximum length of a notification payload in bytes, as accepted by the default configuration of PostgreSQL.
+     */
+    private static final int MAX_PAYLOAD_BYTES = 7999;
+
+    private static final Pattern CHANNEL_NAME_PATTERN = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    private final DataSource dataSource;
+
+    private final String channelName;
+
+    private final long pollTimeoutMillis;
+
+    private final long reconnectDelayMillis;
+
+    private final List<Consumer<ReferenceTableChange>> listeners = new CopyOnWriteArrayList<>();
+
+    private Thread thread;
+
+    private volatile boolean running;
+
+    public PostgresReferenceTableChangeChannel(Builder builder) {
+        builder.validate();
+        this.dataSource = builder.dataSource;
+        this.channelName = builder.channelName;
+        this.pollTimeoutMillis = builder.pollTimeoutMillis;
+        this.reconnectDelayMillis = builder.reconnectDelayMillis;
+    }
+
+    @Override
+    public void publish(ReferenceTableChange change) {
+        String payload = change.toPayload();
+        if (payload.getBytes(StandardCharsets.UTF_8).length > MAX_PAYLOAD_BYTES) {
+            // the name is optional, the receivers resolve the table by rrn
+            payload = new ReferenceTableChange(change.getTableRrn(), null).toPayload();
+        }
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("select pg_notify(?, ?)")) {
+            statement.setString(1, channelName);
+            statement.setString(2, payload);
+            statement.execute();
+        } catch (SQLException e) {
+            logger.warn("Failed to publish {}, other nodes keep the outdated definition", change, e);
+        }
+    }
+
+    @Override
+    public Registration subscribe(Consumer<ReferenceTableChange> listener) {
+        listeners.add(listener);
+        startListening();
+        return () -> listeners.remove(listener);
+    }
+
+    /**
+     * Stops listening for changes and closes the listening connection.
+     */
+    public synchronized void shutdown() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(pollTimeoutMillis * 2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+    }
+
+    private synchronized void startListening() {
+        if (thread != null) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::listen, "reference-table-changes-" + channelName);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channelName);
+                }
+                Class<?> pgConnectionClass = Class.forName(PG_CONNECTION_CLASS);
+                Method getNotifications = pgConnectionClass.getMethod("getNotifications", int.class);
+                Method getParameter = Class.forName(PG_NOTIFICATION_CLASS).getMethod("getParameter");
+                Object pgConnection = connection.unwrap(pgConnectionClass);
+                logger.debug("Listening for reference table changes on channel [{}]", channelName);
+                while (running) {
+                    Object[] notifications = (Object[]) getNotifications.invoke(pgConnection, (int) pollTimeoutMillis);
+                    if (notifications != null) {
+                        for (Object notification : notifications) {
+                            deliver(ReferenceTableChange.fromPayload((String) getParameter.invoke(notification)));
+                        }
+                    }
+                }
+            } catch (SQLException | ReflectiveOperationException e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("Listening on channel [{}] failed, reconnecting in {}ms", channelName,
+                            reconnectDelayMillis, e);
+                try {
+                    Thread.sleep(reconnectDelayMillis);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void deliver(ReferenceTableChange change) {
+        for (Consumer<ReferenceTableChange> listener : listeners) {
+            try {
+                listener.accept(change);
+            } catch (RuntimeException e) {
+                logger.warn("Listener failed to process {}", change, e);
+            }
+        }
+    }
+
+    public static class Builder {
+
+        private DataSource dataSource;
+
+        private String channelName = DEFAULT_CHANNEL_NAME;
+
+        private long pollTimeoutMillis = 500;
+
+        private long reconnectDelayMillis = 5000;
+
+        /**
+         * Sets the {@link DataSource} of the PostgreSQL database shared by all nodes.
+         *
+         * @param dataSource the DataSource to publish and listen with
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder dataSource(DataSource dataSource) {
+            Assert.nonNull(dataSource, () -> "DataSource may not be null");
+            this.dataSource = dataSource;
+            return this;
+        }
+
+        /**
+         * Sets the name of the notification channel. Must be a lower case SQL identifier. Defaults to
+         * {@value #DEFAULT_CHANNEL_NAME}.
+         *
+         * @param channelName the name of the notification channel
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder channelName(String channelName) {
+            Assert.isTrue(channelName != null && CHANNEL_NAME_PATTERN.matcher(channelName).matches(),
+                          () -> "The channelName must be a lower case SQL identifier");
+            this.channelName = channelName;
+            return this;
+        }
+
+        /**
+         * Sets the time the listening connection waits for notifications before checking whether the channel was
+         * shut down. Defaults to 500 milliseconds.
+         *
+         * @param pollTimeout the time to wait for notifications
+         * @param unit        the unit of the poll timeout
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder pollTimeout(long pollTimeout, TimeUnit unit) {
+            Assert.isTrue(pollTimeout > 0, () -> "The pollTimeout must be positive");
+            // a timeout of 0 would block until a notification arrives
+            this.pollTimeoutMillis = Math.max(1, Math.min(Integer.MAX_VALUE, unit.toMillis(pollTimeout)));
+            return this;
+        }
+
+        /**
+         * Sets the time to wait before opening the listening connection again after it failed. Defaults to 5 seconds.
+         *
+         * @param reconnectDelay the time to wait before reconnecting
+         * @param unit           the unit of the reconnect delay
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder reconnectDelay(long reconnectDelay, TimeUnit unit) {
+            Assert.isTrue(reconnectDelay >= 0, () -> "The reconnectDelay may not be negative");
+            this.reconnectDelayMillis = unit.toMillis(reconnectDelay);
+            return this;
+        }
+
+        /**
+         * Validate whether the fields contained in this Builder as set accordingly.
+         */
+        protected void validate() {
+            Assert.nonNull(dataSource, () -> "The DataSource is a hard requirement and should be provided");
+        }
+
+        public PostgresReferenceTableChangeChannel build() {
+            return new PostgresReferenceTableChangeChannel(this);
+        }
+
+    }
+
+}
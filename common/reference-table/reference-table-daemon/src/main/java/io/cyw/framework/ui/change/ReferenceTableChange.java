@@ -0,0 +1,118 @@
+package io.cyw.framework.ui.change;
+
+import io.cyw.framework.ui.entity.ReferenceField;
+import io.cyw.framework.ui.entity.ReferenceTab;
+import io.cyw.framework.ui.entity.ReferenceTable;
+import io.cyw.framework.ui.query.reftable.GetTableByNameQuery;
+import io.cyw.framework.utils.Assert;
+
+import java.util.Objects;
+
+/**
+ * Notification that the definition of a reference table changed, because a row of the table itself, or of one of its
+ * {@link ReferenceTab tabs} or {@link ReferenceField fields} was inserted, updated or deleted.
+ * <p>
+ * The change always carries the object rrn of the affected table. The name of the table is only known when the table
+ * row itself changed, changes of tabs and fields only refer to their table by rrn.
+ */
+public class ReferenceTableChange {
+
+    private static final char PAYLOAD_SEPARATOR = '|';
+
+    private final String tableRrn;
+
+    private final String tableName;
+
+    public ReferenceTableChange(String tableRrn, String tableName) {
+        Assert.nonNull(tableRrn, () -> "The tableRrn of a change may not be null");
+        this.tableRrn = tableRrn;
+        this.tableName = tableName;
+    }
+
+    /**
+     * Returns the change caused by a modification of the given {@code entity}.
+     *
+     * @param entity a {@link ReferenceTable}, {@link ReferenceTab} or {@link ReferenceField}
+     * @return the change of the table the entity belongs to, or {@code null} if the entity is of another type or does
+     * not belong to a table
+     */
+    public static ReferenceTableChange of(Object entity) {
+        String tableRrn = null;
+        String tableName = null;
+        if (entity instanceof ReferenceTable) {
+            tableRrn = ((ReferenceTable) entity).getObjectRrn();
+            tableName = ((ReferenceTable) entity).getName();
+        } else if (entity instanceof ReferenceTab) {
+            tableRrn = ((ReferenceTab) entity).getTableRrn();
+        } else if (entity instanceof ReferenceField) {
+            tableRrn = ((ReferenceField) entity).getTableRrn();
+        }
+        return tableRrn == null ? null : new ReferenceTableChange(tableRrn, tableName);
+    }
+
+    /**
+     * Parses a change from the textual form returned by {@link #toPayload()}.
+     *
+     * @param payload the textual form of a change
+     * @return the change
+     */
+    public static ReferenceTableChange fromPayload(String payload) {
+        int separator = payload.indexOf(PAYLOAD_SEPARATOR);
+        if (separator < 0) {
+            return new ReferenceTableChange(payload, null);
+        }
+        return new ReferenceTableChange(payload.substring(0, separator), payload.substring(separator + 1));
+    }
+
+    /**
+     * Returns the textual form of this change, used to send it to other nodes.
+     *
+     * @return the textual form of this change
+     */
+    public String toPayload() {
+        return tableName == null ? tableRrn : tableRrn + PAYLOAD_SEPARATOR + tableName;
+    }
+
+    /**
+     * Indicates whether the table requested by the given {@code query} may be affected by this change. When the name
+     * of the changed table is unknown, every table may be affected, and subscribers have to compare the
+     * {@link #getTableRrn() tableRrn} with the rrn of the table they hold.
+     *
+     * @param query the query requesting a table
+     * @return {@code true} if the requested table may be affected by this change
+     */
+    public boolean affects(GetTableByNameQuery query) {
+        return tableName == null || tableName.equals(query.getTableName());
+    }
+
+    public String getTableRrn() {
+        return tableRrn;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ReferenceTableChange that = (ReferenceTableChange) o;
+        return Objects.equals(tableRrn, that.tableRrn) && Objects.equals(tableName, that.tableName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tableRrn, tableName);
+    }
+
+    @Override
+    public String toString() {
+        return "ReferenceTableChange{tableRrn='" + tableRrn + "', tableName='" + tableName + "'}";
+    }
+
+}
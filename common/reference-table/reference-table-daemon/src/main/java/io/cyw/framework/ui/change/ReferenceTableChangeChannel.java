@@ -0,0 +1,30 @@
+package io.cyw.framework.ui.change;
+
+import io.cyw.framework.common.Registration;
+
+import java.util.function.Consumer;
+
+/**
+ * Channel distributing {@link ReferenceTableChange changes} of reference tables to all nodes that hold a copy of their
+ * definitions. Changes are published after the transaction that made them committed, and delivered asynchronously to
+ * the subscribers of every node, including the node that published them.
+ */
+public interface ReferenceTableChangeChannel {
+
+    /**
+     * Publishes the given {@code change} to the subscribers of all nodes.
+     *
+     * @param change the change to publish
+     */
+    void publish(ReferenceTableChange change);
+
+    /**
+     * Subscribes the given {@code listener} to the changes published on this channel. The listener is invoked on a
+     * thread of the channel, and should not block for long.
+     *
+     * @param listener the listener receiving the changes
+     * @return a handle to cancel the subscription
+     */
+    Registration subscribe(Consumer<ReferenceTableChange> listener);
+
+}
@@ -0,0 +1,93 @@
+package io.cyw.framework.ui.change;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * JPA entity listener of the {@link io.cyw.framework.ui.entity.ReferenceTable}, {@link
+ * io.cyw.framework.ui.entity.ReferenceTab} and {@link io.cyw.framework.ui.entity.ReferenceField} entities, publishing a
+ * {@link ReferenceTableChange} on the {@link ReferenceTableChangeChannel} for every row that is inserted, updated or
+ * deleted.
+ * <p>
+ * Changes made in a transaction are collected, and published once after the transaction committed, so that other
+ * nodes do not reload a table before the change is visible to them, and rolled back changes are not published at all.
+ * Changes made in a transaction that is already marked for rollback are dropped, and only changes made outside of a
+ * transaction are published immediately.
+ * <p>
+ * Entity listeners are instantiated by the persistence provider rather than by CDI, so the channel is bound statically
+ * by the {@link ReferenceTableChangePublisher} when the application starts. Changes made before are not published.
+ */
+public class ReferenceTableChangeListener {
+
+    private static final String PENDING_CHANGES_RESOURCE =
+            ReferenceTableChangeListener.class.getName() + ".pendingChanges";
+
+    private static volatile ReferenceTableChangeChannel channel;
+
+    private static volatile TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+    /**
+     * Binds the channel to publish changes on, and the registry of the transactions changes are made in.
+     *
+     * @param changeChannel the channel to publish changes on
+     * @param registry      the registry of the transactions changes are made in, or {@code null} to publish changes
+     *                      immediately
+     */
+    static void bind(ReferenceTableChangeChannel changeChannel, TransactionSynchronizationRegistry registry) {
+        transactionSynchronizationRegistry = registry;
+        channel = changeChannel;
+    }
+
+    static void unbind() {
+        channel = null;
+        transactionSynchronizationRegistry = null;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        ReferenceTableChangeChannel changeChannel = channel;
+        ReferenceTableChange change = ReferenceTableChange.of(entity);
+        if (changeChannel == null || change == null) {
+            return;
+        }
+        TransactionSynchronizationRegistry registry = transactionSynchronizationRegistry;
+        int status = registry == null ? Status.STATUS_NO_TRANSACTION : registry.getTransactionStatus();
+        if (status == Status.STATUS_NO_TRANSACTION) {
+            changeChannel.publish(change);
+            return;
+        }
+        if (status != Status.STATUS_ACTIVE) {
+            // the transaction is marked for rollback or completing, the change will not be committed
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<ReferenceTableChange> pending = (Set<ReferenceTableChange>) registry.getResource(PENDING_CHANGES_RESOURCE);
+        if (pending == null) {
+            Set<ReferenceTableChange> changes = new LinkedHashSet<>();
+            registry.putResource(PENDING_CHANGES_RESOURCE, changes);
+            registry.registerInterposedSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == Status.STATUS_COMMITTED) {
+                        changes.forEach(changeChannel::publish);
+                    }
+                }
+            });
+            pending = changes;
+        }
+        pending.add(change);
+    }
+
+}
@@ -0,0 +1,51 @@
+package io.cyw.framework.ui.change;
+
+import io.cyw.framework.common.Registration;
+import io.cyw.framework.queryhandling.QueryBus;
+import io.cyw.framework.queryhandling.QueryUpdateEmitter;
+import io.cyw.framework.ui.query.reftable.GetTableByNameQuery;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+/**
+ * Connects the {@link ReferenceTableChangeListener} to the {@link ReferenceTableChangeChannel} when the application
+ * starts, and emits every change received on the channel, from this node or another one, as update to the
+ * subscription queries of {@link GetTableByNameQuery} that it {@link ReferenceTableChange#affects(GetTableByNameQuery)
+ * affects}, through the {@link QueryUpdateEmitter} of the {@link QueryBus}.
+ */
+@ApplicationScoped
+public class ReferenceTableChangePublisher {
+
+    @Inject
+    private ReferenceTableChangeChannel referenceTableChangeChannel;
+
+    @Inject
+    private TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+    @Inject
+    private QueryBus queryBus;
+
+    private Registration subscription;
+
+    void onStart(@Observes StartupEvent event) {
+        ReferenceTableChangeListener.bind(referenceTableChangeChannel, transactionSynchronizationRegistry);
+        subscription = referenceTableChangeChannel.subscribe(this::emit);
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        ReferenceTableChangeListener.unbind();
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+
+    private void emit(ReferenceTableChange change) {
+        queryBus.queryUpdateEmitter().emit(GetTableByNameQuery.class, change::affects, change);
+    }
+
+}
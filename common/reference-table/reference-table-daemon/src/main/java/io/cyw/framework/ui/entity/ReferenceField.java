@@ -1,9 +1,12 @@
 package io.cyw.framework.ui.entity;
 
+import io.cyw.framework.ui.change.ReferenceTableChangeListener;
 import io.cyw.framework.utils.lang.StringPool;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
+import javax.persistence.Id;
 import javax.persistence.Table;
 
 /**
@@ -11,6 +14,7 @@ import javax.persistence.Table;
  * Created by guoxunbo on 2018/2/7.
  */
 @Entity
+@EntityListeners(ReferenceTableChangeListener.class)
 @Table(name = "NB_FIELD")
 public class ReferenceField {
     private static final long serialVersionUID = 2536500351356282982L;
@@ -43,6 +47,10 @@ public class ReferenceField {
 
     public static final String DISPLAY_TYPE_FILE = "file";
 
+    @Id
+    @Column(name = "OBJECT_RRN")
+    private String objectRrn;
+
     @Column(name = "NAME")
     private String name;
 
@@ -205,6 +213,74 @@ public class ReferenceField {
     @Column(name = "QUERY_LIKE_FLAG")
     private String queryLikeFlag;
 
+    public String getObjectRrn() {
+        return objectRrn;
+    }
+
+    public String getTableRrn() {
+        return tableRrn;
+    }
+
+    public String getTabRrn() {
+        return tabRrn;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Long getSeqNo() {
+        return seqNo;
+    }
+
+    public Long getDisplayLength() {
+        return displayLength;
+    }
+
+    public String getDisplayType() {
+        return displayType;
+    }
+
+    public String getNamingRule() {
+        return namingRule;
+    }
+
+    public String getRefTableName() {
+        return refTableName;
+    }
+
+    public String getRefListName() {
+        return refListName;
+    }
+
+    public String getReferenceRule() {
+        return referenceRule;
+    }
+
+    public String getDefaultValue() {
+        return defaultValue;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getLabelZh() {
+        return labelZh;
+    }
+
+    public String getLabelRes() {
+        return labelRes;
+    }
+
     public Boolean getDisplayFlag() {
         return StringPool.YES.equalsIgnoreCase(displayFlag);
     }
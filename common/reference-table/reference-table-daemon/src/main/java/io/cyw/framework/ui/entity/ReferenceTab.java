@@ -1,6 +1,7 @@
 package io.cyw.framework.ui.entity;
 
 
+import io.cyw.framework.ui.change.ReferenceTableChangeListener;
 import io.cyw.framework.utils.lang.StringPool;
 
 import javax.persistence.*;
@@ -11,6 +12,7 @@ import java.util.List;
  * Created by guoxunbo on 2018/2/7.
  */
 @Entity
+@EntityListeners(ReferenceTableChangeListener.class)
 @Table(name = "NB_TAB")
 public class ReferenceTab {
 
@@ -26,6 +28,10 @@ public class ReferenceTab {
      */
     public static final String TAB_TYPE_TABLE = "Table";
 
+    @Id
+    @Column(name = "OBJECT_RRN")
+    private String objectRrn;
+
     @Column(name = "NAME")
     private String name;
 
@@ -79,12 +85,60 @@ public class ReferenceTab {
     @Column(name = "LABEL_RES")
     private String labelRes;
 
-    @OneToMany(fetch = FetchType.EAGER, cascade = {CascadeType.REMOVE})
+    @OneToMany(fetch = FetchType.LAZY, cascade = {CascadeType.REMOVE})
     @OrderBy(value = "seqNo ASC")
     @JoinColumn(name = "TAB_RRN", referencedColumnName = "OBJECT_RRN")
     private List<ReferenceField> fields;
 
 
+    public String getObjectRrn() {
+        return objectRrn;
+    }
+
+    public String getTableRrn() {
+        return tableRrn;
+    }
+
+    public List<ReferenceField> getFields() {
+        return fields;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Long getSeqNo() {
+        return seqNo;
+    }
+
+    public String getTabType() {
+        return tabType;
+    }
+
+    public String getRefTableName() {
+        return refTableName;
+    }
+
+    public String getWhereClause() {
+        return whereClause;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getLabelZh() {
+        return labelZh;
+    }
+
+    public String getLabelRes() {
+        return labelRes;
+    }
+
     public Boolean getEditFlag() {
         return StringPool.YES.equalsIgnoreCase(editFlag);
     }
@@ -1,5 +1,7 @@
 package io.cyw.framework.ui.entity;
 
+import io.cyw.framework.ui.change.ReferenceTableChangeListener;
+
 import javax.persistence.*;
 import java.util.List;
 
@@ -8,6 +10,7 @@ import java.util.List;
  * Created by guoxunbo on 2018/2/7.
  */
 @Entity
+@EntityListeners(ReferenceTableChangeListener.class)
 public class ReferenceTable {
 
     private static final long serialVersionUID = -8294980293795481105L;
@@ -22,6 +25,10 @@ public class ReferenceTable {
      */
     private static final int STYLE_VERTICAL = 1 << 1;
 
+    @Id
+    @Column(name = "OBJECT_RRN")
+    private String objectRrn;
+
     /**
      * 名称
      */
@@ -116,6 +123,78 @@ public class ReferenceTable {
     @JoinColumn(name = "TABLE_RRN", referencedColumnName = "OBJECT_RRN")
     private List<ReferenceField> fields;
 
+    public String getObjectRrn() {
+        return objectRrn;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<ReferenceTab> getTabs() {
+        return tabs;
+    }
+
+    public List<ReferenceField> getFields() {
+        return fields;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public Integer getStyle() {
+        return style;
+    }
+
+    public String getModelName() {
+        return modelName;
+    }
+
+    public String getModelClass() {
+        return modelClass;
+    }
+
+    public String getWhereClause() {
+        return whereClause;
+    }
+
+    public String getOrderBy() {
+        return orderBy;
+    }
+
+    public String getInitWhereClause() {
+        return initWhereClause;
+    }
+
+    public Long getGridYBasic() {
+        return gridYBasic;
+    }
+
+    public Long getGridYQuery() {
+        return gridYQuery;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getLabelZh() {
+        return labelZh;
+    }
+
+    public String getLabelRes() {
+        return labelRes;
+    }
+
     public Boolean getView() {
         return (style & STYLE_VIEW) == STYLE_VIEW;
     }
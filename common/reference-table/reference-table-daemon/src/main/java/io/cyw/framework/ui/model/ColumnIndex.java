@@ -0,0 +1,153 @@
+package io.cyw.framework.ui.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Minimal perfect hash of the column names of a table, mapping every column name to the position of its field. The
+ * index is built with the hash and displace method: the names are distributed over as many buckets as there are names
+ * by a first hash, and starting with the largest bucket, a seed is searched for every bucket that places all of its
+ * names in free slots using a second hash. Buckets holding a single name take a free slot directly. A lookup computes
+ * at most two hashes of the name and compares it to the single name in its slot.
+ */
+final class ColumnIndex {
+
+    private static final int MAX_SEED = 1 << 20;
+
+    private static final ColumnIndex EMPTY = new ColumnIndex(new int[0], new String[0], new int[0]);
+
+    private final int[] seeds;
+
+    private final String[] keys;
+
+    private final int[] values;
+
+    private ColumnIndex(int[] seeds, String[] keys, int[] values) {
+        this.seeds = seeds;
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * Builds the index of the given {@code names}, mapping every name to its position in the array. Null names are
+     * skipped, and of duplicate names the first one is indexed.
+     */
+    static ColumnIndex of(String[] names) {
+        List<String> keys = new ArrayList<>(names.length);
+        List<Integer> values = new ArrayList<>(names.length);
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < names.length; i++) {
+            if (names[i] != null && seen.add(names[i])) {
+                keys.add(names[i]);
+                values.add(i);
+            }
+        }
+        int size = keys.size();
+        if (size == 0) {
+            return EMPTY;
+        }
+        List<List<Integer>> buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            buckets.add(new ArrayList<>(2));
+        }
+        for (int i = 0; i < size; i++) {
+            buckets.get(slot(0, keys.get(i), size)).add(i);
+        }
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> buckets.get(b).size() - buckets.get(a).size());
+
+        int[] seeds = new int[size];
+        String[] slotKeys = new String[size];
+        int[] slotValues = new int[size];
+        int next = 0;
+        for (; next < size; next++) {
+            List<Integer> bucket = buckets.get(order[next]);
+            if (bucket.size() <= 1) {
+                break;
+            }
+            int[] slots = new int[bucket.size()];
+            int seed = 1;
+            int placed = 0;
+            while (placed < bucket.size()) {
+                if (seed > MAX_SEED) {
+                    throw new IllegalStateException("Unable to build a perfect hash of column names " + keys);
+                }
+                placed = 0;
+                for (Integer key : bucket) {
+                    int slot = slot(seed, keys.get(key), size);
+                    if (slotKeys[slot] != null || contains(slots, placed, slot)) {
+                        break;
+                    }
+                    slots[placed++] = slot;
+                }
+                if (placed < bucket.size()) {
+                    seed++;
+                }
+            }
+            for (int i = 0; i < slots.length; i++) {
+                slotKeys[slots[i]] = keys.get(bucket.get(i));
+                slotValues[slots[i]] = values.get(bucket.get(i));
+            }
+            seeds[order[next]] = seed;
+        }
+        int free = 0;
+        for (; next < size; next++) {
+            List<Integer> bucket = buckets.get(order[next]);
+            if (bucket.isEmpty()) {
+                break;
+            }
+            while (slotKeys[free] != null) {
+                free++;
+            }
+            slotKeys[free] = keys.get(bucket.get(0));
+            slotValues[free] = values.get(bucket.get(0));
+            // a negative seed refers to the slot directly
+            seeds[order[next]] = -free - 1;
+        }
+        return new ColumnIndex(seeds, slotKeys, slotValues);
+    }
+
+    /**
+     * Returns the position of the given {@code name}, or {@code -1} if the name is not indexed.
+     */
+    int indexOf(String name) {
+        int size = keys.length;
+        if (size == 0 || name == null) {
+            return -1;
+        }
+        int seed = seeds[slot(0, name, size)];
+        int slot = seed < 0 ? -seed - 1 : slot(seed, name, size);
+        return name.equals(keys[slot]) ? values[slot] : -1;
+    }
+
+    private static int slot(int seed, String name, int size) {
+        // FNV-1a, seeded so that every seed gives an independent distribution
+        int hash = 0x811C9DC5 ^ (seed * 0x9E3779B9);
+        for (int i = 0; i < name.length(); i++) {
+            hash = (hash ^ name.charAt(i)) * 0x01000193;
+        }
+        // the low bits of FNV only depend on the low bits of the characters, mix all bits into them
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        hash ^= hash >>> 16;
+        return (hash & 0x7FFFFFFF) % size;
+    }
+
+    private static boolean contains(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
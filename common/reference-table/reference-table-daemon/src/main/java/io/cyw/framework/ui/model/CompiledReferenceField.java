@@ -0,0 +1,307 @@
+package io.cyw.framework.ui.model;
+
+import io.cyw.framework.ui.entity.ReferenceField;
+
+import java.io.IOException;
+
+/**
+ * Immutable read model of a {@link ReferenceField}. The flags of the field are parsed once and packed into a single
+ * {@code int}, so that rendering code can test them without comparing strings, or test several of them at once with
+ * {@link #hasFlags(int)}.
+ */
+public final class CompiledReferenceField {
+
+    public static final int DISPLAY = 1;
+
+    public static final int BASIC = 1 << 1;
+
+    public static final int MAIN = 1 << 2;
+
+    public static final int READONLY = 1 << 3;
+
+    public static final int EDITABLE = 1 << 4;
+
+    public static final int ALL_LINE = 1 << 5;
+
+    public static final int REQUIRED = 1 << 6;
+
+    public static final int UPPER = 1 << 7;
+
+    public static final int FROM_PARENT = 1 << 8;
+
+    public static final int QUERY = 1 << 9;
+
+    public static final int QUERY_REQUIRE = 1 << 10;
+
+    public static final int QUERY_LIKE = 1 << 11;
+
+    public static final int NEGATIVE = 1 << 12;
+
+    public static final int KEY = 1 << 13;
+
+    private final String objectRrn;
+
+    private final String name;
+
+    private final String columnName;
+
+    private final String description;
+
+    private final String tableRrn;
+
+    private final String tabRrn;
+
+    private final long seqNo;
+
+    private final long displayLength;
+
+    private final String displayType;
+
+    private final String namingRule;
+
+    private final String refTableName;
+
+    private final String refListName;
+
+    private final String referenceRule;
+
+    private final String defaultValue;
+
+    private final String label;
+
+    private final String labelZh;
+
+    private final String labelRes;
+
+    private final int flags;
+
+    private CompiledReferenceField(ReferenceField field) {
+        this.objectRrn = field.getObjectRrn();
+        this.name = field.getName();
+        this.columnName = field.getColumnName();
+        this.description = field.getDescription();
+        this.tableRrn = field.getTableRrn();
+        this.tabRrn = field.getTabRrn();
+        this.seqNo = field.getSeqNo() == null ? Long.MAX_VALUE : field.getSeqNo();
+        this.displayLength = field.getDisplayLength() == null
+                ? ReferenceField.DEFAULT_DISPLAY_LENGTH : field.getDisplayLength();
+        this.displayType = field.getDisplayType();
+        this.namingRule = field.getNamingRule();
+        this.refTableName = field.getRefTableName();
+        this.refListName = field.getRefListName();
+        this.referenceRule = field.getReferenceRule();
+        this.defaultValue = field.getDefaultValue();
+        this.label = field.getLabel();
+        this.labelZh = field.getLabelZh();
+        this.labelRes = field.getLabelRes();
+        this.flags = flag(field.getDisplayFlag(), DISPLAY)
+                | flag(field.getBasicFlag(), BASIC)
+                | flag(field.getMainFlag(), MAIN)
+                | flag(field.getReadonlyFlag(), READONLY)
+                | flag(field.getEditable(), EDITABLE)
+                | flag(field.getAllLine(), ALL_LINE)
+                | flag(field.getRequiredFlag(), REQUIRED)
+                | flag(field.getUpperFlag(), UPPER)
+                | flag(field.getFromParent(), FROM_PARENT)
+                | flag(field.getQueryFlag(), QUERY)
+                | flag(field.getQueryRequireFlag(), QUERY_REQUIRE)
+                | flag(field.getQueryLikeFlag(), QUERY_LIKE)
+                | flag(field.getNegativeFlag(), NEGATIVE)
+                | flag(field.getKeyFlag(), KEY);
+    }
+
+    CompiledReferenceField(ReferenceTableSnapshot.Reader in) {
+        this.objectRrn = in.readString();
+        this.name = in.readString();
+        this.columnName = in.readString();
+        this.description = in.readString();
+        this.tableRrn = in.readString();
+        this.tabRrn = in.readString();
+        this.seqNo = in.readLong();
+        this.displayLength = in.readLong();
+        this.displayType = in.readString();
+        this.namingRule = in.readString();
+        this.refTableName = in.readString();
+        this.refListName = in.readString();
+        this.referenceRule = in.readString();
+        this.defaultValue = in.readString();
+        this.label = in.readString();
+        this.labelZh = in.readString();
+        this.labelRes = in.readString();
+        this.flags = in.readInt();
+    }
+
+    /**
+     * Compiles the given {@code field}.
+     *
+     * @param field the field to compile
+     * @return the compiled field
+     */
+    public static CompiledReferenceField compile(ReferenceField field) {
+        return new CompiledReferenceField(field);
+    }
+
+    void writeTo(ReferenceTableSnapshot.Writer out) throws IOException {
+        out.writeString(objectRrn);
+        out.writeString(name);
+        out.writeString(columnName);
+        out.writeString(description);
+        out.writeString(tableRrn);
+        out.writeString(tabRrn);
+        out.writeLong(seqNo);
+        out.writeLong(displayLength);
+        out.writeString(displayType);
+        out.writeString(namingRule);
+        out.writeString(refTableName);
+        out.writeString(refListName);
+        out.writeString(referenceRule);
+        out.writeString(defaultValue);
+        out.writeString(label);
+        out.writeString(labelZh);
+        out.writeString(labelRes);
+        out.writeInt(flags);
+    }
+
+    private static int flag(Boolean value, int flag) {
+        return Boolean.TRUE.equals(value) ? flag : 0;
+    }
+
+    /**
+     * Indicates whether all of the given {@code flags} are set, for example {@code hasFlags(DISPLAY | MAIN)}.
+     *
+     * @param flags the flags to test
+     * @return {@code true} if all given flags are set, otherwise {@code false}
+     */
+    public boolean hasFlags(int flags) {
+        return (this.flags & flags) == flags;
+    }
+
+    public int getFlags() {
+        return flags;
+    }
+
+    public String getObjectRrn() {
+        return objectRrn;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getTableRrn() {
+        return tableRrn;
+    }
+
+    public String getTabRrn() {
+        return tabRrn;
+    }
+
+    public long getSeqNo() {
+        return seqNo;
+    }
+
+    public long getDisplayLength() {
+        return displayLength;
+    }
+
+    public String getDisplayType() {
+        return displayType;
+    }
+
+    public String getNamingRule() {
+        return namingRule;
+    }
+
+    public String getRefTableName() {
+        return refTableName;
+    }
+
+    public String getRefListName() {
+        return refListName;
+    }
+
+    public String getReferenceRule() {
+        return referenceRule;
+    }
+
+    public String getDefaultValue() {
+        return defaultValue;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getLabelZh() {
+        return labelZh;
+    }
+
+    public String getLabelRes() {
+        return labelRes;
+    }
+
+    public boolean getDisplayFlag() {
+        return hasFlags(DISPLAY);
+    }
+
+    public boolean getBasicFlag() {
+        return hasFlags(BASIC);
+    }
+
+    public boolean getMainFlag() {
+        return hasFlags(MAIN);
+    }
+
+    public boolean getReadonlyFlag() {
+        return hasFlags(READONLY);
+    }
+
+    public boolean getEditable() {
+        return hasFlags(EDITABLE);
+    }
+
+    public boolean getAllLine() {
+        return hasFlags(ALL_LINE);
+    }
+
+    public boolean getRequiredFlag() {
+        return hasFlags(REQUIRED);
+    }
+
+    public boolean getUpperFlag() {
+        return hasFlags(UPPER);
+    }
+
+    public boolean getFromParent() {
+        return hasFlags(FROM_PARENT);
+    }
+
+    public boolean getQueryFlag() {
+        return hasFlags(QUERY);
+    }
+
+    public boolean getQueryRequireFlag() {
+        return hasFlags(QUERY_REQUIRE);
+    }
+
+    public boolean getQueryLikeFlag() {
+        return hasFlags(QUERY_LIKE);
+    }
+
+    public boolean getNegativeFlag() {
+        return hasFlags(NEGATIVE);
+    }
+
+    public boolean getKeyFlag() {
+        return hasFlags(KEY);
+    }
+
+}
@@ -0,0 +1,133 @@
+package io.cyw.framework.ui.model;
+
+import io.cyw.framework.ui.entity.ReferenceTab;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Immutable read model of a {@link ReferenceTab}, holding the compiled fields of the tab in the order of their
+ * {@code seqNo}. The fields are the same instances as those of the {@link CompiledReferenceTable} of the tab.
+ */
+public final class CompiledReferenceTab {
+
+    private final String objectRrn;
+
+    private final String name;
+
+    private final String description;
+
+    private final long seqNo;
+
+    private final String tabType;
+
+    private final String refTableName;
+
+    private final String whereClause;
+
+    private final boolean editFlag;
+
+    private final String label;
+
+    private final String labelZh;
+
+    private final String labelRes;
+
+    private final List<CompiledReferenceField> fields;
+
+    CompiledReferenceTab(ReferenceTab tab, List<CompiledReferenceField> fields) {
+        this.objectRrn = tab.getObjectRrn();
+        this.name = tab.getName();
+        this.description = tab.getDescription();
+        this.seqNo = tab.getSeqNo() == null ? Long.MAX_VALUE : tab.getSeqNo();
+        this.tabType = tab.getTabType();
+        this.refTableName = tab.getRefTableName();
+        this.whereClause = tab.getWhereClause();
+        this.editFlag = Boolean.TRUE.equals(tab.getEditFlag());
+        this.label = tab.getLabel();
+        this.labelZh = tab.getLabelZh();
+        this.labelRes = tab.getLabelRes();
+        this.fields = fields;
+    }
+
+    CompiledReferenceTab(ReferenceTableSnapshot.Reader in, List<CompiledReferenceField> fields) {
+        this.objectRrn = in.readString();
+        this.name = in.readString();
+        this.description = in.readString();
+        this.seqNo = in.readLong();
+        this.tabType = in.readString();
+        this.refTableName = in.readString();
+        this.whereClause = in.readString();
+        this.editFlag = in.readBoolean();
+        this.label = in.readString();
+        this.labelZh = in.readString();
+        this.labelRes = in.readString();
+        this.fields = fields;
+    }
+
+    /**
+     * Writes the values of this tab, without its fields, which are written by the table.
+     */
+    void writeTo(ReferenceTableSnapshot.Writer out) throws IOException {
+        out.writeString(objectRrn);
+        out.writeString(name);
+        out.writeString(description);
+        out.writeLong(seqNo);
+        out.writeString(tabType);
+        out.writeString(refTableName);
+        out.writeString(whereClause);
+        out.writeBoolean(editFlag);
+        out.writeString(label);
+        out.writeString(labelZh);
+        out.writeString(labelRes);
+    }
+
+    public String getObjectRrn() {
+        return objectRrn;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public long getSeqNo() {
+        return seqNo;
+    }
+
+    public String getTabType() {
+        return tabType;
+    }
+
+    public String getRefTableName() {
+        return refTableName;
+    }
+
+    public String getWhereClause() {
+        return whereClause;
+    }
+
+    public boolean getEditFlag() {
+        return editFlag;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getLabelZh() {
+        return labelZh;
+    }
+
+    public String getLabelRes() {
+        return labelRes;
+    }
+
+    public List<CompiledReferenceField> getFields() {
+        return fields;
+    }
+
+}
@@ -0,0 +1,330 @@
+package io.cyw.framework.ui.model;
+
+import io.cyw.framework.ui.entity.ReferenceField;
+import io.cyw.framework.ui.entity.ReferenceTab;
+import io.cyw.framework.ui.entity.ReferenceTable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable read model of a {@link ReferenceTable}, compiled once from a completely loaded table definition. The
+ * fields of the table and of every tab are sorted by their {@code seqNo}, the flags of every field are packed into a
+ * bitset, and a field is found by its column name through a minimal perfect hash.
+ * <p>
+ * Compiled tables do not refer to the entities they were compiled from, and can therefore be cached and shared between
+ * threads.
+ */
+public final class CompiledReferenceTable {
+
+    private static final int STYLE_VIEW = 1;
+
+    private static final int STYLE_VERTICAL = 1 << 1;
+
+    private final String objectRrn;
+
+    private final String name;
+
+    private final String description;
+
+    private final String category;
+
+    private final String tableName;
+
+    private final int style;
+
+    private final String modelName;
+
+    private final String modelClass;
+
+    private final String whereClause;
+
+    private final String orderBy;
+
+    private final String initWhereClause;
+
+    private final Long gridYBasic;
+
+    private final Long gridYQuery;
+
+    private final String label;
+
+    private final String labelZh;
+
+    private final String labelRes;
+
+    private final List<CompiledReferenceTab> tabs;
+
+    private final List<CompiledReferenceField> fields;
+
+    private final CompiledReferenceField[] fieldArray;
+
+    private final ColumnIndex columnIndex;
+
+    private CompiledReferenceTable(ReferenceTable table) {
+        this.objectRrn = table.getObjectRrn();
+        this.name = table.getName();
+        this.description = table.getDescription();
+        this.category = table.getCategory();
+        this.tableName = table.getTableName();
+        this.style = table.getStyle() == null ? 0 : table.getStyle();
+        this.modelName = table.getModelName();
+        this.modelClass = table.getModelClass();
+        this.whereClause = table.getWhereClause();
+        this.orderBy = table.getOrderBy();
+        this.initWhereClause = table.getInitWhereClause();
+        this.gridYBasic = table.getGridYBasic();
+        this.gridYQuery = table.getGridYQuery();
+        this.label = table.getLabel();
+        this.labelZh = table.getLabelZh();
+        this.labelRes = table.getLabelRes();
+
+        Map<String, CompiledReferenceField> fieldsByRrn = new HashMap<>();
+        this.fieldArray = compileFields(table.getFields(), fieldsByRrn);
+        this.fields = Collections.unmodifiableList(Arrays.asList(fieldArray));
+        this.columnIndex = indexOf(fieldArray);
+
+        List<CompiledReferenceTab> compiledTabs = new ArrayList<>();
+        if (table.getTabs() != null) {
+            for (ReferenceTab tab : table.getTabs()) {
+                CompiledReferenceField[] tabFields = compileFields(tab.getFields(), fieldsByRrn);
+                compiledTabs.add(new CompiledReferenceTab(tab, Collections.unmodifiableList(
+                        Arrays.asList(tabFields))));
+            }
+            compiledTabs.sort(Comparator.comparingLong(CompiledReferenceTab::getSeqNo));
+        }
+        this.tabs = Collections.unmodifiableList(compiledTabs);
+    }
+
+    CompiledReferenceTable(ReferenceTableSnapshot.Reader in) {
+        this.objectRrn = in.readString();
+        this.name = in.readString();
+        this.description = in.readString();
+        this.category = in.readString();
+        this.tableName = in.readString();
+        this.style = in.readInt();
+        this.modelName = in.readString();
+        this.modelClass = in.readString();
+        this.whereClause = in.readString();
+        this.orderBy = in.readString();
+        this.initWhereClause = in.readString();
+        this.gridYBasic = in.readNullableLong();
+        this.gridYQuery = in.readNullableLong();
+        this.label = in.readString();
+        this.labelZh = in.readString();
+        this.labelRes = in.readString();
+
+        this.fieldArray = new CompiledReferenceField[in.readInt()];
+        for (int i = 0; i < fieldArray.length; i++) {
+            fieldArray[i] = new CompiledReferenceField(in);
+        }
+        this.fields = Collections.unmodifiableList(Arrays.asList(fieldArray));
+        this.columnIndex = indexOf(fieldArray);
+
+        int tabCount = in.readInt();
+        List<CompiledReferenceTab> readTabs = new ArrayList<>(tabCount);
+        for (int i = 0; i < tabCount; i++) {
+            CompiledReferenceField[] tabFields = new CompiledReferenceField[in.readInt()];
+            for (int j = 0; j < tabFields.length; j++) {
+                int index = in.readInt();
+                tabFields[j] = index >= 0 ? fieldArray[index] : new CompiledReferenceField(in);
+            }
+            readTabs.add(new CompiledReferenceTab(in, Collections.unmodifiableList(Arrays.asList(tabFields))));
+        }
+        this.tabs = Collections.unmodifiableList(readTabs);
+    }
+
+    /**
+     * Compiles the given {@code table}, of which the tabs, the fields of the tabs and the fields must have been
+     * loaded.
+     *
+     * @param table the table to compile
+     * @return the compiled table
+     */
+    public static CompiledReferenceTable compile(ReferenceTable table) {
+        return new CompiledReferenceTable(table);
+    }
+
+    private static ColumnIndex indexOf(CompiledReferenceField[] fields) {
+        String[] columnNames = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            columnNames[i] = fields[i].getColumnName();
+        }
+        return ColumnIndex.of(columnNames);
+    }
+
+    private static CompiledReferenceField[] compileFields(List<ReferenceField> fields,
+                                                          Map<String, CompiledReferenceField> fieldsByRrn) {
+        if (fields == null || fields.isEmpty()) {
+            return new CompiledReferenceField[0];
+        }
+        CompiledReferenceField[] compiled = new CompiledReferenceField[fields.size()];
+        for (int i = 0; i < compiled.length; i++) {
+            ReferenceField field = fields.get(i);
+            // the fields of a tab are also fields of the table, they share the same compiled instance
+            CompiledReferenceField compiledField = field.getObjectRrn() == null
+                    ? null : fieldsByRrn.get(field.getObjectRrn());
+            if (compiledField == null) {
+                compiledField = CompiledReferenceField.compile(field);
+                if (field.getObjectRrn() != null) {
+                    fieldsByRrn.put(field.getObjectRrn(), compiledField);
+                }
+            }
+            compiled[i] = compiledField;
+        }
+        Arrays.sort(compiled, Comparator.comparingLong(CompiledReferenceField::getSeqNo));
+        return compiled;
+    }
+
+    void writeTo(ReferenceTableSnapshot.Writer out) throws IOException {
+        out.writeString(objectRrn);
+        out.writeString(name);
+        out.writeString(description);
+        out.writeString(category);
+        out.writeString(tableName);
+        out.writeInt(style);
+        out.writeString(modelName);
+        out.writeString(modelClass);
+        out.writeString(whereClause);
+        out.writeString(orderBy);
+        out.writeString(initWhereClause);
+        out.writeNullableLong(gridYBasic);
+        out.writeNullableLong(gridYQuery);
+        out.writeString(label);
+        out.writeString(labelZh);
+        out.writeString(labelRes);
+
+        out.writeInt(fieldArray.length);
+        Map<CompiledReferenceField, Integer> indexes = new IdentityHashMap<>(fieldArray.length * 2);
+        for (int i = 0; i < fieldArray.length; i++) {
+            fieldArray[i].writeTo(out);
+            indexes.put(fieldArray[i], i);
+        }
+
+        out.writeInt(tabs.size());
+        for (CompiledReferenceTab tab : tabs) {
+            // the fields are read before the tab is created
+            out.writeInt(tab.getFields().size());
+            for (CompiledReferenceField field : tab.getFields()) {
+                Integer index = indexes.get(field);
+                out.writeInt(index == null ? -1 : index);
+                if (index == null) {
+                    field.writeTo(out);
+                }
+            }
+            tab.writeTo(out);
+        }
+    }
+
+    /**
+     * Returns the field of which the column name is the given {@code columnName}. Column names are compared case
+     * sensitively.
+     *
+     * @param columnName the column name of the field
+     * @return the field with the given column name, or {@code null} if the table has no such field
+     */
+    public CompiledReferenceField getField(String columnName) {
+        int index = columnIndex.indexOf(columnName);
+        return index < 0 ? null : fieldArray[index];
+    }
+
+    /**
+     * Returns the fields of which all of the given {@code flags} are set, in the order of their {@code seqNo}.
+     *
+     * @param flags the flags the fields must have, see the constants of {@link CompiledReferenceField}
+     * @return the fields with all given flags
+     */
+    public List<CompiledReferenceField> getFieldsWith(int flags) {
+        List<CompiledReferenceField> matching = new ArrayList<>();
+        for (CompiledReferenceField field : fieldArray) {
+            if (field.hasFlags(flags)) {
+                matching.add(field);
+            }
+        }
+        return matching;
+    }
+
+    public String getObjectRrn() {
+        return objectRrn;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getModelName() {
+        return modelName;
+    }
+
+    public String getModelClass() {
+        return modelClass;
+    }
+
+    public String getWhereClause() {
+        return whereClause;
+    }
+
+    public String getOrderBy() {
+        return orderBy;
+    }
+
+    public String getInitWhereClause() {
+        return initWhereClause;
+    }
+
+    public Long getGridYBasic() {
+        return gridYBasic;
+    }
+
+    public Long getGridYQuery() {
+        return gridYQuery;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getLabelZh() {
+        return labelZh;
+    }
+
+    public String getLabelRes() {
+        return labelRes;
+    }
+
+    public List<CompiledReferenceTab> getTabs() {
+        return tabs;
+    }
+
+    public List<CompiledReferenceField> getFields() {
+        return fields;
+    }
+
+    public boolean getView() {
+        return (style & STYLE_VIEW) == STYLE_VIEW;
+    }
+
+    public boolean getVertical() {
+        return (style & STYLE_VERTICAL) == STYLE_VERTICAL;
+    }
+
+}
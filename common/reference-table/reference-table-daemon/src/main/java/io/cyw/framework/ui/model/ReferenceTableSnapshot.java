@@ -0,0 +1,209 @@
+package io.cyw.framework.ui.model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary snapshot of {@link CompiledReferenceTable compiled tables}, which a node writes to a local file so that it
+ * can serve the definitions right after a restart, without loading them from the database.
+ * <p>
+ * A snapshot starts with a magic number and a format version, followed by the tables and a CRC32 checksum of the
+ * tables. Strings are written as their length followed by their UTF-8 bytes. The fields of a tab that are also fields
+ * of its table are written as the index of the field in the table, so that they are shared again after reading. The
+ * file is read through a memory mapping, and replaced atomically when it is written.
+ */
+public abstract class ReferenceTableSnapshot {
+
+    private static final int MAGIC = 0x52544253;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_LENGTH = 8;
+
+    private static final int CHECKSUM_LENGTH = 8;
+
+    private ReferenceTableSnapshot() {
+        // prevent instantiation
+    }
+
+    /**
+     * Writes the given {@code tables} to the file at the given {@code path}, replacing an existing snapshot. The
+     * snapshot is written to a temporary file first, so that readers never see a partially written snapshot.
+     *
+     * @param path   the path of the snapshot file
+     * @param tables the tables to write
+     * @throws IOException when the snapshot could not be written
+     */
+    public static void write(Path path, Collection<CompiledReferenceTable> tables) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream file = Files.newOutputStream(temporary)) {
+                DataOutputStream header = new DataOutputStream(file);
+                header.writeInt(MAGIC);
+                header.writeInt(VERSION);
+                CRC32 checksum = new CRC32();
+                DataOutputStream body = new DataOutputStream(
+                        new BufferedOutputStream(new CheckedOutputStream(file, checksum)));
+                Writer writer = new Writer(body);
+                writer.writeInt(tables.size());
+                for (CompiledReferenceTable table : tables) {
+                    table.writeTo(writer);
+                }
+                body.flush();
+                header.writeLong(checksum.getValue());
+                header.flush();
+            }
+            try {
+                Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Reads the tables from the snapshot file at the given {@code path}.
+     *
+     * @param path the path of the snapshot file
+     * @return the tables of the snapshot, in the order in which they were written
+     * @throws IOException when the snapshot could not be read, was written in another format or is corrupt
+     */
+    public static List<CompiledReferenceTable> read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_LENGTH + CHECKSUM_LENGTH || size > Integer.MAX_VALUE) {
+                throw new IOException("Reference table snapshot [" + path + "] has an invalid size of " + size);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Reference table snapshot [" + path + "] has an unsupported format");
+            }
+            ByteBuffer body = buffer.slice();
+            body.limit(body.limit() - CHECKSUM_LENGTH);
+            CRC32 checksum = new CRC32();
+            checksum.update(body.duplicate());
+            if (checksum.getValue() != buffer.getLong((int) size - CHECKSUM_LENGTH)) {
+                throw new IOException("Reference table snapshot [" + path + "] is corrupt");
+            }
+            Reader reader = new Reader(body);
+            try {
+                int count = reader.readInt();
+                if (count < 0 || count > body.remaining()) {
+                    throw new IOException("Reference table snapshot [" + path + "] is corrupt");
+                }
+                List<CompiledReferenceTable> tables = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    tables.add(new CompiledReferenceTable(reader));
+                }
+                return tables;
+            } catch (RuntimeException e) {
+                // the checksum matched, but the content does not, for example a truncated string
+                throw new IOException("Reference table snapshot [" + path + "] is corrupt", e);
+            }
+        }
+    }
+
+    /**
+     * Encodes the values of compiled tables to a snapshot.
+     */
+    static final class Writer {
+
+        private final DataOutputStream out;
+
+        private Writer(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void writeInt(int value) throws IOException {
+            out.writeInt(value);
+        }
+
+        void writeLong(long value) throws IOException {
+            out.writeLong(value);
+        }
+
+        void writeBoolean(boolean value) throws IOException {
+            out.writeBoolean(value);
+        }
+
+        void writeNullableLong(Long value) throws IOException {
+            out.writeBoolean(value != null);
+            if (value != null) {
+                out.writeLong(value);
+            }
+        }
+
+        void writeString(String value) throws IOException {
+            if (value == null) {
+                out.writeInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Decodes the values of compiled tables from a snapshot, in the order in which the {@link Writer} encoded them.
+     */
+    static final class Reader {
+
+        private final ByteBuffer buffer;
+
+        private Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        int readInt() {
+            return buffer.getInt();
+        }
+
+        long readLong() {
+            return buffer.getLong();
+        }
+
+        boolean readBoolean() {
+            return buffer.get() != 0;
+        }
+
+        Long readNullableLong() {
+            return readBoolean() ? buffer.getLong() : null;
+        }
+
+        String readString() {
+            int length = buffer.getInt();
+            if (length < 0) {
+                return null;
+            }
+            if (length > buffer.remaining()) {
+                throw new BufferUnderflowException();
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+package io.cyw.framework.ui.query.reffield;
+
+import java.util.Objects;
+
+public class GetFieldsByTableRrnQuery {
+
+    private final String tableRrn;
+
+    public GetFieldsByTableRrnQuery(String tableRrn) {
+        this.tableRrn = tableRrn;
+    }
+
+    public String getTableRrn() {
+        return tableRrn;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        GetFieldsByTableRrnQuery that = (GetFieldsByTableRrnQuery) o;
+        return Objects.equals(tableRrn, that.tableRrn);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tableRrn);
+    }
+
+    @Override
+    public String toString() {
+        return "GetFieldsByTableRrnQuery{tableRrn='" + tableRrn + "'}";
+    }
+
+}
@@ -1,5 +1,7 @@
 package io.cyw.framework.ui.query.reftable;
 
+import java.util.Objects;
+
 public class GetTableByNameQuery {
 
     private final String tableName;
@@ -12,4 +14,26 @@ public class GetTableByNameQuery {
         return tableName;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        GetTableByNameQuery that = (GetTableByNameQuery) o;
+        return Objects.equals(tableName, that.tableName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tableName);
+    }
+
+    @Override
+    public String toString() {
+        return "GetTableByNameQuery{tableName='" + tableName + "'}";
+    }
+
 }
@@ -0,0 +1,47 @@
+package io.cyw.framework.ui.query.reftable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Query for the compiled tables with the given names, all resolved at once. The result has a table, or {@code null}
+ * if there is no table with that name, for every name at the same position.
+ */
+public class GetTablesByNamesQuery {
+
+    private final List<String> tableNames;
+
+    public GetTablesByNamesQuery(Collection<String> tableNames) {
+        this.tableNames = Collections.unmodifiableList(new ArrayList<>(tableNames));
+    }
+
+    public List<String> getTableNames() {
+        return tableNames;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        GetTablesByNamesQuery that = (GetTablesByNamesQuery) o;
+        return Objects.equals(tableNames, that.tableNames);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tableNames);
+    }
+
+    @Override
+    public String toString() {
+        return "GetTablesByNamesQuery{tableNames=" + tableNames + "}";
+    }
+
+}
@@ -0,0 +1,136 @@
+package io.cyw.framework.ui.data;
+
+import io.cyw.framework.ui.model.CompiledReferenceTable;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * {@link DataQueryService} querying the business tables with JDBC. A page is selected by the single parameterized
+ * statement the {@link DataQueryCompiler} compiles for the request, which fetches one row more than the page size to
+ * tell whether there is a next page.
+ */
+@ApplicationScoped
+public class JdbcDataQueryService implements DataQueryService {
+
+    @Inject
+    private DataQueryCompiler compiler;
+
+    @Inject
+    private DataSource dataSource;
+
+    @Override
+    public DataPage findPage(DataQueryRequest request) {
+        CompiledReferenceTable table = request.getTable();
+        CompiledDataQuery query = compiler.compile(request);
+        List<Object> parameters = query.bind(request);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(query.getSql())) {
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+            statement.setFetchSize(request.getPageSize() + 1);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return readPage(resultSet, query, request.getPageSize());
+            }
+        } catch (SQLException e) {
+            throw new DataQueryException("Failed to query the data of reference table [" + table.getName() + "]", e);
+        }
+    }
+
+    @Override
+    public Multi<DataRow> stream(DataQueryRequest request) {
+        return Multi.createFrom().<DataRow>iterable(() -> new PageIterator(request))
+                .runSubscriptionOn(Infrastructure.getDefaultWorkerPool());
+    }
+
+    /**
+     * Reads the rows of a page. The rows of a projected statement share the columns of the statement, and take the
+     * values of their keyset from their own values. Those of an unprojected one share the columns of the page.
+     */
+    private static DataPage readPage(ResultSet resultSet, CompiledDataQuery query, int pageSize) throws SQLException {
+        DataColumns columns = query.getColumns();
+        if (columns == null) {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            String[] labels = new String[metaData.getColumnCount()];
+            for (int i = 0; i < labels.length; i++) {
+                labels[i] = metaData.getColumnLabel(i + 1);
+            }
+            columns = new DataColumns(labels);
+        }
+        List<SortKey> sortKeys = query.getSortKeys();
+        List<DataRow> rows = new ArrayList<>(pageSize);
+        List<Object> last = null;
+        while (rows.size() < pageSize && resultSet.next()) {
+            Object[] values = new Object[columns.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = resultSet.getObject(i + 1);
+            }
+            rows.add(new DataRow(columns, values));
+            last = new ArrayList<>(sortKeys.size());
+            for (int i = 0; i < sortKeys.size(); i++) {
+                int index = query.getSortKeyIndex(i);
+                last.add(index < 0 ? resultSet.getObject(unqualified(sortKeys.get(i).getColumn())) : values[index]);
+            }
+        }
+        boolean more = rows.size() == pageSize && resultSet.next();
+        return new DataPage(Collections.unmodifiableList(rows), more ? new Keyset(last) : null);
+    }
+
+    private static String unqualified(String column) {
+        return column.substring(column.indexOf('.') + 1);
+    }
+
+    /**
+     * Iterates the rows of consecutive pages, requesting the next page when all rows of the current one were taken.
+     */
+    private final class PageIterator implements Iterator<DataRow> {
+
+        private DataQueryRequest next;
+
+        private Iterator<DataRow> rows = Collections.emptyIterator();
+
+        private PageIterator(DataQueryRequest first) {
+            this.next = first;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!rows.hasNext() && next != null) {
+                DataPage page = findPage(next);
+                rows = page.getRows().iterator();
+                next = page.hasNext() ? new DataQueryRequest.Builder().table(next.getTable())
+                                                                      .initial(next.isInitial())
+                                                                      .after(page.getNext())
+                                                                      .pageSize(next.getPageSize())
+                                                                      .projected(next.isProjected())
+                                                                      .filters(next.getFilters())
+                                                                      .parameters(next.getParameters())
+                                                                      .build() : null;
+            }
+            return rows.hasNext();
+        }
+
+        @Override
+        public DataRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return rows.next();
+        }
+    }
+
+}
@@ -1,9 +1,69 @@
 package io.cyw.framework.ui.repository;
 
 
+import io.cyw.framework.hibernate.orm.panache.CRUDRepository;
+import io.cyw.framework.ui.entity.ReferenceField;
+import org.hibernate.StatelessSession;
+import org.hibernate.annotations.QueryHints;
+
 import javax.enterprise.context.ApplicationScoped;
+import javax.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
 
+/**
+ * Loads {@link ReferenceField fields} by the rrn of their table or tab. Lists of rrns are split into chunks of at most
+ * {@value CRUDRepository#MAX_IN_LIST_SIZE} values, the most that every supported database accepts in a single
+ * {@code IN} list, and every chunk is loaded by its own query.
+ * <p>
+ * Lists are loaded read-only, so that Hibernate does not keep a snapshot of every field for dirty checking. Streams are
+ * read through a {@link StatelessSession}, which has no persistence context at all, with a JDBC fetch size so that the
+ * rows are fetched from the database while the stream is consumed. PostgreSQL only honours the fetch size inside a
+ * transaction, so streams should be consumed in one.
+ */
 @ApplicationScoped
-public class FieldJapRepository implements FieldRepository {
+public class FieldJapRepository extends CRUDRepository<ReferenceField, String> implements FieldRepository {
+
+    private static final String FIELDS_BY_TABLE_RRNS = "from ReferenceField f "
+            + "where f.tableRrn in :rrns order by f.tableRrn, f.seqNo";
+
+    private static final String FIELDS_BY_TAB_RRNS = "from ReferenceField f "
+            + "where f.tabRrn in :rrns order by f.tabRrn, f.seqNo";
+
+    private static final String FIELDS_BY_TABLE_RRN = "from ReferenceField f "
+            + "where f.tableRrn = :tableRrn order by f.seqNo";
+
+    @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public List<ReferenceField> findByTableRrns(Collection<String> tableRrns) {
+        return findIn(FIELDS_BY_TABLE_RRNS, tableRrns);
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public List<ReferenceField> findByTabRrns(Collection<String> tabRrns) {
+        return findIn(FIELDS_BY_TAB_RRNS, tabRrns);
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public Stream<ReferenceField> streamByTableRrn(String tableRrn) {
+        return streamStateless(FIELDS_BY_TABLE_RRN, ReferenceField.class,
+                               Collections.singletonMap("tableRrn", tableRrn), DEFAULT_FETCH_SIZE);
+    }
+
+    private List<ReferenceField> findIn(String query, Collection<String> rrns) {
+        List<ReferenceField> fields = new ArrayList<>();
+        for (List<String> chunk : inListChunks(rrns)) {
+            fields.addAll(createQuery(query, ReferenceField.class, true)
+                                  .setParameter("rrns", chunk)
+                                  .setHint(QueryHints.FETCH_SIZE, DEFAULT_FETCH_SIZE)
+                                  .getResultList());
+        }
+        return fields;
+    }
 
 }
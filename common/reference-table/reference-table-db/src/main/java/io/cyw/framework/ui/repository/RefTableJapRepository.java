@@ -0,0 +1,105 @@
+package io.cyw.framework.ui.repository;
+
+import io.cyw.framework.hibernate.orm.panache.CRUDRepository;
+import io.cyw.framework.ui.entity.ReferenceTab;
+import io.cyw.framework.ui.entity.ReferenceTable;
+import org.hibernate.annotations.QueryHints;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Loads table definitions with fetch joins. Hibernate cannot fetch two list associations in one query, and a single
+ * join of the tabs and the fields of a table would return a row for every combination of them, so every association is
+ * fetched by its own query: the tables with their tabs, the tables with their fields, and the tabs with their fields.
+ * The queries select the definitions of all requested tables at once, so that a definition is always loaded in three
+ * round trips, regardless of the number of tables, tabs and fields. The second and third query find the tables and
+ * tabs of the first one in the persistence context, and only initialize their collections. More than
+ * {@value CRUDRepository#MAX_IN_LIST_SIZE} tables are loaded in chunks of that size.
+ * <p>
+ * Definitions are loaded in a transaction, joining the one of the caller if any, so that the three queries share one
+ * persistence context also when they are run on a thread without a request context, such as the one delivering the
+ * change notifications the {@code ReferenceTableCache} reloads its tables on.
+ */
+@ApplicationScoped
+public class RefTableJapRepository extends CRUDRepository<ReferenceTable, String> implements RefTableQueryRepository {
+
+    private static final String TABLES_WITH_TABS = "select distinct t from ReferenceTable t "
+            + "left join fetch t.tabs where t.name in :names";
+
+    private static final String TABLES_WITH_FIELDS = "select distinct t from ReferenceTable t "
+            + "left join fetch t.fields where t.objectRrn in :tableRrns";
+
+    private static final String TABS_WITH_FIELDS = "select distinct tab from ReferenceTab tab "
+            + "left join fetch tab.fields where tab.tableRrn in :tableRrns";
+
+    private static final String ALL_NAMES = "select t.name from ReferenceTable t order by t.name";
+
+    @Override
+    @Transactional(Transactional.TxType.REQUIRED)
+    public Optional<ReferenceTable> findByName(String name) {
+        List<ReferenceTable> tables = findByNames(Collections.singletonList(name));
+        return tables.isEmpty() ? Optional.empty() : Optional.of(tables.get(0));
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.REQUIRED)
+    public List<ReferenceTable> findByNames(Collection<String> names) {
+        List<ReferenceTable> tables = new ArrayList<>();
+        for (List<String> chunk : inListChunks(names)) {
+            tables.addAll(findChunk(chunk));
+        }
+        return inOrderOf(names, tables);
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public List<String> findAllNames() {
+        return createQuery(ALL_NAMES, String.class, true).getResultList();
+    }
+
+    private List<ReferenceTable> findChunk(List<String> names) {
+        List<ReferenceTable> tables = createQuery(TABLES_WITH_TABS, ReferenceTable.class, true)
+                .setParameter("names", names)
+                .setHint(QueryHints.PASS_DISTINCT_THROUGH, false)
+                .getResultList();
+        if (tables.isEmpty()) {
+            return tables;
+        }
+        List<String> tableRrns = tables.stream().map(ReferenceTable::getObjectRrn).collect(Collectors.toList());
+        createQuery(TABLES_WITH_FIELDS, ReferenceTable.class, true)
+                .setParameter("tableRrns", tableRrns)
+                .setHint(QueryHints.PASS_DISTINCT_THROUGH, false)
+                .getResultList();
+        createQuery(TABS_WITH_FIELDS, ReferenceTab.class, true)
+                .setParameter("tableRrns", tableRrns)
+                .setHint(QueryHints.PASS_DISTINCT_THROUGH, false)
+                .getResultList();
+        return tables;
+    }
+
+    private static List<ReferenceTable> inOrderOf(Collection<String> names, List<ReferenceTable> tables) {
+        Map<String, ReferenceTable> tablesByName = new HashMap<>(tables.size() * 2);
+        for (ReferenceTable table : tables) {
+            tablesByName.put(table.getName(), table);
+        }
+        List<ReferenceTable> ordered = new ArrayList<>(tables.size());
+        for (String name : new LinkedHashSet<>(names)) {
+            ReferenceTable table = tablesByName.get(name);
+            if (table != null) {
+                ordered.add(table);
+            }
+        }
+        return ordered;
+    }
+
+}
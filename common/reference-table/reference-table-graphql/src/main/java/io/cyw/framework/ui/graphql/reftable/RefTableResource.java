@@ -2,17 +2,35 @@ package io.cyw.framework.ui.graphql.reftable;
 
 import io.cyw.framework.messaging.responsetypes.ResponseTypes;
 import io.cyw.framework.queryhandling.QueryGateway;
-import io.cyw.framework.ui.entity.ReferenceTable;
+import io.cyw.framework.ui.model.CompiledReferenceField;
+import io.cyw.framework.ui.model.CompiledReferenceTab;
+import io.cyw.framework.ui.model.CompiledReferenceTable;
 import io.cyw.framework.ui.query.reftable.GetTableByNameQuery;
+import io.cyw.framework.ui.query.reftable.GetTablesByNamesQuery;
 import io.smallrye.mutiny.Uni;
 import org.eclipse.microprofile.graphql.Description;
 import org.eclipse.microprofile.graphql.GraphQLApi;
 import org.eclipse.microprofile.graphql.Name;
 import org.eclipse.microprofile.graphql.Query;
+import org.eclipse.microprofile.graphql.Source;
 
 import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 
+/**
+ * GraphQL API of the reference tables. The tables referred to by the fields and tabs of a table are resolved by batch
+ * resolvers: SmallRye GraphQL passes the fields, respectively tabs, of all tables of a document to a single call, of
+ * which the distinct table names are resolved by a single {@link GetTablesByNamesQuery}, instead of a query for every
+ * field or tab.
+ */
 @GraphQLApi
 public class RefTableResource {
 
@@ -22,9 +40,61 @@ public class RefTableResource {
     // todo 不确定能不能支持optional 优先考虑
     @Query("refTable")
     @Description("get referenceTable By name")
-    public Uni<Optional<ReferenceTable>> table(@Name("tableName") String name) {
+    public Uni<Optional<CompiledReferenceTable>> table(@Name("tableName") String name) {
         return queryGateway
-                .query(new GetTableByNameQuery(name), ResponseTypes.optionalInstanceOf(ReferenceTable.class));
+                .query(new GetTableByNameQuery(name), ResponseTypes.optionalInstanceOf(CompiledReferenceTable.class));
+    }
+
+    @Query("refTables")
+    @Description("get referenceTables By names, null for the names without table")
+    public Uni<List<CompiledReferenceTable>> tables(@Name("tableNames") List<String> names) {
+        return queryGateway.query(new GetTablesByNamesQuery(names),
+                                  ResponseTypes.multipleInstancesOf(CompiledReferenceTable.class));
+    }
+
+    @Name("refTable")
+    @Description("the referenceTable of refTableName")
+    public Uni<List<CompiledReferenceTable>> fieldRefTables(@Source List<CompiledReferenceField> fields) {
+        return refTables(fields, CompiledReferenceField::getRefTableName);
+    }
+
+    @Name("refTable")
+    @Description("the referenceTable of refTableName")
+    public Uni<List<CompiledReferenceTable>> tabRefTables(@Source List<CompiledReferenceTab> tabs) {
+        return refTables(tabs, CompiledReferenceTab::getRefTableName);
+    }
+
+    /**
+     * Resolves the tables the given {@code sources} refer to with one query for their distinct names, and returns
+     * them in the order of the sources, with {@code null} for the sources that do not refer to a table.
+     */
+    private <S> Uni<List<CompiledReferenceTable>> refTables(List<S> sources, Function<S, String> refTableName) {
+        List<String> names = new ArrayList<>(sources.size());
+        Set<String> distinct = new LinkedHashSet<>();
+        for (S source : sources) {
+            String name = refTableName.apply(source);
+            names.add(name);
+            if (name != null && !name.isEmpty()) {
+                distinct.add(name);
+            }
+        }
+        if (distinct.isEmpty()) {
+            return Uni.createFrom().item(new ArrayList<>(Collections.nCopies(sources.size(), null)));
+        }
+        List<String> queried = new ArrayList<>(distinct);
+        return queryGateway.query(new GetTablesByNamesQuery(queried),
+                                  ResponseTypes.multipleInstancesOf(CompiledReferenceTable.class))
+                .map(tables -> {
+                    Map<String, CompiledReferenceTable> byName = new HashMap<>();
+                    for (int i = 0; i < queried.size(); i++) {
+                        byName.put(queried.get(i), tables.get(i));
+                    }
+                    List<CompiledReferenceTable> result = new ArrayList<>(names.size());
+                    for (String name : names) {
+                        result.add(name == null ? null : byName.get(name));
+                    }
+                    return result;
+                });
     }
 
 }
@@ -1,5 +1,24 @@
 package io.cyw.framework.ui;
 
+import io.cyw.framework.queryhandling.QueryHandler;
+import io.cyw.framework.ui.entity.ReferenceField;
+import io.cyw.framework.ui.query.reffield.GetFieldsByTableRrnQuery;
+import io.cyw.framework.ui.repository.FieldRepository;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.Collections;
+import java.util.List;
+
+@ApplicationScoped
 public class RefFieldQuery {
 
+    @Inject
+    private FieldRepository fieldRepository;
+
+    @QueryHandler
+    public List<ReferenceField> getByTableRrn(GetFieldsByTableRrnQuery query) {
+        return fieldRepository.findByTableRrns(Collections.singletonList(query.getTableRrn()));
+    }
+
 }
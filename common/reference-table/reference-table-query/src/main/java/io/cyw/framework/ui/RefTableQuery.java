@@ -2,14 +2,52 @@ package io.cyw.framework.ui;
 
 import io.cyw.framework.queryhandling.QueryHandler;
 import io.cyw.framework.ui.entity.ReferenceTable;
+import io.cyw.framework.ui.model.CompiledReferenceTable;
 import io.cyw.framework.ui.query.reftable.GetTableByNameQuery;
+import io.cyw.framework.ui.query.reftable.GetTablesByNamesQuery;
+import io.cyw.framework.ui.repository.RefTableQueryRepository;
 
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@ApplicationScoped
 public class RefTableQuery {
 
+    @Inject
+    private RefTableQueryRepository refTableQueryRepository;
+
+    @Inject
+    private ReferenceTableCache referenceTableCache;
+
     @QueryHandler
     public ReferenceTable getByName(GetTableByNameQuery query) {
-        // todo  getFieldByTableName
-        return null;
+        return refTableQueryRepository.findByName(query.getTableName()).orElse(null);
+    }
+
+    @QueryHandler
+    public CompiledReferenceTable getCompiledByName(GetTableByNameQuery query) {
+        return referenceTableCache.get(query.getTableName()).orElse(null);
+    }
+
+    @QueryHandler
+    public List<CompiledReferenceTable> getCompiledByNames(GetTablesByNamesQuery query) {
+        Set<String> names = new LinkedHashSet<>(query.getTableNames());
+        names.remove(null);
+        Map<String, CompiledReferenceTable> tables = new HashMap<>();
+        for (CompiledReferenceTable table : referenceTableCache.getAll(names)) {
+            tables.put(table.getName(), table);
+        }
+        List<CompiledReferenceTable> result = new ArrayList<>(query.getTableNames().size());
+        for (String name : query.getTableNames()) {
+            result.add(name == null ? null : tables.get(name));
+        }
+        return result;
     }
 
 }
@@ -0,0 +1,231 @@
+package io.cyw.framework.ui;
+
+import io.cyw.framework.common.Registration;
+import io.cyw.framework.ui.change.ReferenceTableChange;
+import io.cyw.framework.ui.change.ReferenceTableChangeChannel;
+import io.cyw.framework.ui.entity.ReferenceTable;
+import io.cyw.framework.ui.model.CompiledReferenceTable;
+import io.cyw.framework.ui.repository.RefTableQueryRepository;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory cache of {@link CompiledReferenceTable compiled tables} by name. A table is loaded through the
+ * {@link RefTableQueryRepository} and compiled the first time it is requested, and served from memory until it is
+ * invalidated. Tables missing from the cache are loaded together, in the round trips of a single table.
+ * <p>
+ * A table that is loaded while it is invalidated is not cached, so that a load that read the old definition cannot
+ * overwrite the invalidation. Invalidations are tracked per table, so invalidating a table does not discard the loads
+ * of other tables in progress. Tables that do not exist are not cached.
+ * <p>
+ * The cache subscribes to the {@link ReferenceTableChangeChannel}, and reloads a cached table when a change of the
+ * table, or of one of its tabs or fields is received, leaving the other tables cached. Changes of tabs and fields
+ * refer to their table by rrn, which is resolved to the name of the cached table.
+ */
+@ApplicationScoped
+public class ReferenceTableCache {
+
+    @Inject
+    private RefTableQueryRepository refTableQueryRepository;
+
+    @Inject
+    private ReferenceTableChangeChannel referenceTableChangeChannel;
+
+    private final Map<String, CompiledReferenceTable> tables = new ConcurrentHashMap<>();
+
+    private final Map<String, String> namesByRrn = new ConcurrentHashMap<>();
+
+    /**
+     * Counts the invalidations. A load takes the count when it starts as its generation, and is discarded by the later
+     * invalidations of its table.
+     */
+    private final AtomicLong generations = new AtomicLong();
+
+    /**
+     * The generation of the latest invalidation of every table that was invalidated.
+     */
+    private final Map<String, Long> invalidations = new ConcurrentHashMap<>();
+
+    private final AtomicLong allInvalidated = new AtomicLong();
+
+    private Registration subscription;
+
+    @PostConstruct
+    void subscribe() {
+        subscription = referenceTableChangeChannel.subscribe(this::onChange);
+    }
+
+    @PreDestroy
+    void unsubscribe() {
+        subscription.cancel();
+    }
+
+    /**
+     * Returns the compiled table with the given {@code name}, loading it when it is not cached.
+     *
+     * @param name the name of the table
+     * @return the compiled table, or an empty Optional if no table has the given name
+     */
+    public Optional<CompiledReferenceTable> get(String name) {
+        CompiledReferenceTable table = tables.get(name);
+        if (table != null) {
+            return Optional.of(table);
+        }
+        long generation = generations.get();
+        Optional<CompiledReferenceTable> loaded = refTableQueryRepository.findByName(name)
+                .map(CompiledReferenceTable::compile);
+        loaded.ifPresent(compiled -> cache(compiled, generation));
+        return loaded;
+    }
+
+    /**
+     * Returns the compiled tables with the given {@code names}, loading the tables that are not cached at once.
+     *
+     * @param names the names of the tables
+     * @return the compiled tables that exist, in the order of the given names
+     */
+    public List<CompiledReferenceTable> getAll(Collection<String> names) {
+        List<String> missing = new ArrayList<>();
+        for (String name : names) {
+            if (!tables.containsKey(name)) {
+                missing.add(name);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long generation = generations.get();
+            for (ReferenceTable table : refTableQueryRepository.findByNames(missing)) {
+                cache(CompiledReferenceTable.compile(table), generation);
+            }
+        }
+        List<CompiledReferenceTable> result = new ArrayList<>(names.size());
+        for (String name : names) {
+            CompiledReferenceTable table = tables.get(name);
+            if (table == null) {
+                // invalidated concurrently, or it does not exist
+                table = get(name).orElse(null);
+            }
+            if (table != null) {
+                result.add(table);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Loads the tables with the given {@code names} and caches them, replacing the definitions that are cached
+     * already.
+     *
+     * @param names the names of the tables
+     */
+    public void load(Collection<String> names) {
+        long generation = generations.get();
+        for (ReferenceTable table : refTableQueryRepository.findByNames(names)) {
+            cache(CompiledReferenceTable.compile(table), generation);
+        }
+    }
+
+    /**
+     * Caches the given tables, which were compiled earlier, for example read from a snapshot. The definitions that are
+     * cached already are kept, as they were loaded later.
+     *
+     * @param compiledTables the tables to cache
+     */
+    public void seed(Collection<CompiledReferenceTable> compiledTables) {
+        long generation = generations.get();
+        for (CompiledReferenceTable table : compiledTables) {
+            if (tables.putIfAbsent(table.getName(), table) == null) {
+                namesByRrn.put(table.getObjectRrn(), table.getName());
+                if (isInvalidatedSince(table.getName(), generation)) {
+                    tables.remove(table.getName(), table);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the tables that are currently cached.
+     *
+     * @return a copy of the cached tables
+     */
+    public List<CompiledReferenceTable> getCached() {
+        return new ArrayList<>(tables.values());
+    }
+
+    /**
+     * Removes the table with the given {@code name} from the cache, so that it is loaded again when it is requested.
+     *
+     * @param name the name of the table
+     */
+    public void invalidate(String name) {
+        invalidations.merge(name, generations.incrementAndGet(), Math::max);
+        tables.remove(name);
+        namesByRrn.values().removeIf(name::equals);
+    }
+
+    /**
+     * Reloads the table with the given {@code name} when it is cached, so that subsequent requests are served the
+     * current definition without loading it themselves. A table that no longer exists is removed from the cache.
+     *
+     * @param name the name of the table
+     */
+    public void refresh(String name) {
+        if (!tables.containsKey(name)) {
+            return;
+        }
+        invalidate(name);
+        get(name);
+    }
+
+    /**
+     * Removes all tables from the cache.
+     */
+    public void invalidateAll() {
+        allInvalidated.accumulateAndGet(generations.incrementAndGet(), Math::max);
+        tables.clear();
+        namesByRrn.clear();
+    }
+
+    /**
+     * Returns the number of cached tables.
+     *
+     * @return the number of cached tables
+     */
+    public int size() {
+        return tables.size();
+    }
+
+    private void onChange(ReferenceTableChange change) {
+        String cachedName = namesByRrn.get(change.getTableRrn());
+        if (cachedName != null) {
+            refresh(cachedName);
+        }
+        if (change.getTableName() != null && !change.getTableName().equals(cachedName)) {
+            // renamed, or cached under the name before the rrn was known
+            refresh(change.getTableName());
+        }
+    }
+
+    private void cache(CompiledReferenceTable table, long generation) {
+        tables.put(table.getName(), table);
+        namesByRrn.put(table.getObjectRrn(), table.getName());
+        if (isInvalidatedSince(table.getName(), generation)) {
+            // an invalidation raced with the load, the loaded definition may be outdated
+            tables.remove(table.getName(), table);
+        }
+    }
+
+    private boolean isInvalidatedSince(String name, long generation) {
+        return allInvalidated.get() > generation || invalidations.getOrDefault(name, 0L) > generation;
+    }
+
+}
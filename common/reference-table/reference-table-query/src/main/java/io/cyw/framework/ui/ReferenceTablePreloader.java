@@ -0,0 +1,180 @@
+package io.cyw.framework.ui;
+
+import io.cyw.framework.ui.model.CompiledReferenceTable;
+import io.cyw.framework.ui.model.ReferenceTableSnapshot;
+import io.cyw.framework.ui.repository.RefTableQueryRepository;
+import io.quarkus.arc.Arc;
+import io.quarkus.arc.ManagedContext;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Warms up the {@link ReferenceTableCache} when the application starts, so that the first requests do not have to
+ * load the table definitions.
+ * <p>
+ * When {@code reference-table.preload.enabled} is set, the definitions of all tables are loaded in batches of
+ * {@code reference-table.preload.batch-size} tables, of which {@code reference-table.preload.parallelism} are loaded
+ * in parallel. Startup waits until all tables are loaded.
+ * <p>
+ * When {@code reference-table.snapshot.path} is set, the cached tables are written to a
+ * {@link ReferenceTableSnapshot snapshot} at that path after preloading and when the application stops. On the next
+ * start the snapshot is read into the cache before anything is loaded from the database, unless it is older than
+ * {@code reference-table.snapshot.max-age}. Tables are then served from the snapshot right away, while preloading, if
+ * enabled, replaces them with the current definitions in the background.
+ */
+@ApplicationScoped
+public class ReferenceTablePreloader {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceTablePreloader.class);
+
+    @ConfigProperty(name = "reference-table.preload.enabled", defaultValue = "false")
+    private boolean enabled;
+
+    @ConfigProperty(name = "reference-table.preload.batch-size", defaultValue = "100")
+    private int batchSize;
+
+    @ConfigProperty(name = "reference-table.preload.parallelism", defaultValue = "4")
+    private int parallelism;
+
+    @ConfigProperty(name = "reference-table.snapshot.path")
+    private Optional<String> snapshotPath;
+
+    @ConfigProperty(name = "reference-table.snapshot.max-age", defaultValue = "24h")
+    private Duration snapshotMaxAge;
+
+    @Inject
+    private RefTableQueryRepository refTableQueryRepository;
+
+    @Inject
+    private ReferenceTableCache referenceTableCache;
+
+    void onStart(@Observes StartupEvent event) {
+        boolean restored = snapshotPath.map(path -> restore(Paths.get(path))).orElse(false);
+        if (!enabled) {
+            return;
+        }
+        if (restored) {
+            Thread thread = new Thread(this::preload, "reference-table-preload");
+            thread.setDaemon(true);
+            thread.start();
+        } else {
+            preload();
+        }
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        snapshotPath.ifPresent(path -> snapshot(Paths.get(path)));
+    }
+
+    /**
+     * Loads the definitions of all tables into the cache, replacing the cached definitions, and removes the cached
+     * tables that no longer exist.
+     */
+    public void preload() {
+        long start = System.nanoTime();
+        List<String> names = inRequestContext(refTableQueryRepository::findAllNames);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+            Thread thread = new Thread(runnable, "reference-table-preload-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<CompletableFuture<Void>> batches = new ArrayList<>();
+            for (int from = 0; from < names.size(); from += batchSize) {
+                List<String> batch = names.subList(from, Math.min(names.size(), from + batchSize));
+                batches.add(CompletableFuture.runAsync(() -> inRequestContext(() -> {
+                    referenceTableCache.load(batch);
+                    return null;
+                }), executor));
+            }
+            CompletableFuture.allOf(batches.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            logger.warn("Preloading reference tables failed, they are loaded when requested", e.getCause());
+            return;
+        } finally {
+            executor.shutdown();
+        }
+        Set<String> existing = new HashSet<>(names);
+        for (CompiledReferenceTable table : referenceTableCache.getCached()) {
+            if (!existing.contains(table.getName())) {
+                // restored from a snapshot, but deleted since
+                referenceTableCache.invalidate(table.getName());
+            }
+        }
+        logger.info("Preloaded {} reference tables in {}ms", names.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        snapshotPath.ifPresent(path -> snapshot(Paths.get(path)));
+    }
+
+    private boolean restore(Path path) {
+        if (!Files.exists(path)) {
+            return false;
+        }
+        try {
+            Instant modified = Files.getLastModifiedTime(path).toInstant();
+            if (modified.plus(snapshotMaxAge).isBefore(Instant.now())) {
+                logger.info("Ignoring reference table snapshot [{}], it was written at {}", path, modified);
+                return false;
+            }
+            List<CompiledReferenceTable> tables = ReferenceTableSnapshot.read(path);
+            referenceTableCache.seed(tables);
+            logger.info("Restored {} reference tables from snapshot [{}]", tables.size(), path);
+            return true;
+        } catch (IOException e) {
+            logger.warn("Failed to restore reference tables from snapshot [{}]", path, e);
+            return false;
+        }
+    }
+
+    private void snapshot(Path path) {
+        List<CompiledReferenceTable> tables = referenceTableCache.getCached();
+        if (tables.isEmpty()) {
+            return;
+        }
+        try {
+            ReferenceTableSnapshot.write(path, tables);
+            logger.debug("Wrote {} reference tables to snapshot [{}]", tables.size(), path);
+        } catch (IOException e) {
+            logger.warn("Failed to write reference table snapshot [{}]", path, e);
+        }
+    }
+
+    private static <T> T inRequestContext(Supplier<T> task) {
+        // the entity manager needs a request context when it is used outside of a transaction
+        ManagedContext requestContext = Arc.container().requestContext();
+        if (requestContext.isActive()) {
+            return task.get();
+        }
+        requestContext.activate();
+        try {
+            return task.get();
+        } finally {
+            requestContext.terminate();
+        }
+    }
+
+}
@@ -0,0 +1,301 @@
+package io.cyw.framework.ui.data;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Parses the {@code whereClause} and {@code initWhereClause} of a reference table into a {@link SqlExpression}. The
+ * accepted grammar is the part of SQL a condition on the columns of a single table needs:
+ * <pre>
+ * condition  = or
+ * or         = and { OR and }
+ * and        = not { AND not }
+ * not        = NOT not | predicate
+ * predicate  = ( condition ) | operand ( comparison | IS [NOT] NULL | [NOT] IN ( operand {, operand} )
+ *              | [NOT] LIKE operand | [NOT] BETWEEN operand AND operand )
+ * comparison = ( = | &lt;&gt; | != | &lt; | &lt;= | &gt; | &gt;= ) operand
+ * operand    = column | 'string' | number | :parameter
+ * </pre>
+ * Keywords are case insensitive. Every column must be one of the given columns, and is rendered without its qualifier,
+ * as the clause is a condition on a single table. Every literal becomes a bind parameter. Anything else, such as
+ * functions, sub queries or comments, is rejected with a {@link DataQueryException}.
+ */
+final class ClauseParser {
+
+    private final String clause;
+
+    private final Set<String> columns;
+
+    private int position;
+
+    private Token token;
+
+    /**
+     * @param clause  the clause to parse
+     * @param columns the columns the clause may refer to, in upper case
+     */
+    private ClauseParser(String clause, Set<String> columns) {
+        this.clause = clause;
+        this.columns = columns;
+        advance();
+    }
+
+    /**
+     * Parses the given {@code clause}, which may only refer to the given {@code columns}.
+     *
+     * @param clause  the clause to parse
+     * @param columns the columns the clause may refer to, in upper case
+     * @return the syntax tree of the clause
+     * @throws DataQueryException if the clause is not a supported condition, or refers to an unknown column
+     */
+    static SqlExpression parse(String clause, Set<String> columns) {
+        ClauseParser parser = new ClauseParser(clause, columns);
+        SqlExpression expression = parser.or();
+        if (parser.token.type != TokenType.END) {
+            throw parser.error("Unexpected [" + parser.token.text + "]");
+        }
+        return expression;
+    }
+
+    private SqlExpression or() {
+        List<SqlExpression> operands = new ArrayList<>();
+        operands.add(and());
+        while (acceptKeyword("OR")) {
+            operands.add(and());
+        }
+        return operands.size() == 1 ? operands.get(0) : new SqlExpression.Junction("or", operands);
+    }
+
+    private SqlExpression and() {
+        List<SqlExpression> operands = new ArrayList<>();
+        operands.add(not());
+        while (acceptKeyword("AND")) {
+            operands.add(not());
+        }
+        return operands.size() == 1 ? operands.get(0) : new SqlExpression.Junction("and", operands);
+    }
+
+    private SqlExpression not() {
+        if (acceptKeyword("NOT")) {
+            return new SqlExpression.Not(not());
+        }
+        return predicate();
+    }
+
+    private SqlExpression predicate() {
+        if (accept(TokenType.LEFT_PARENTHESIS)) {
+            SqlExpression condition = or();
+            expect(TokenType.RIGHT_PARENTHESIS);
+            return condition;
+        }
+        SqlExpression operand = operand();
+        if (token.type == TokenType.OPERATOR) {
+            String operator = "!=".equals(token.text) ? "<>" : token.text;
+            advance();
+            return new SqlExpression.Comparison(operand, operator, operand());
+        }
+        if (acceptKeyword("IS")) {
+            boolean negated = acceptKeyword("NOT");
+            expectKeyword("NULL");
+            return new SqlExpression.IsNull(operand, negated);
+        }
+        boolean negated = acceptKeyword("NOT");
+        if (acceptKeyword("IN")) {
+            expect(TokenType.LEFT_PARENTHESIS);
+            List<SqlExpression> values = new ArrayList<>();
+            do {
+                values.add(operand());
+            } while (accept(TokenType.COMMA));
+            expect(TokenType.RIGHT_PARENTHESIS);
+            return new SqlExpression.In(operand, values, negated);
+        }
+        if (acceptKeyword("LIKE")) {
+            return new SqlExpression.Like(operand, operand(), negated);
+        }
+        if (acceptKeyword("BETWEEN")) {
+            SqlExpression low = operand();
+            expectKeyword("AND");
+            return new SqlExpression.Between(operand, low, operand(), negated);
+        }
+        throw error("Expected a comparison but found [" + token.text + "]");
+    }
+
+    private SqlExpression operand() {
+        Token operand = token;
+        switch (operand.type) {
+            case IDENTIFIER:
+                String column = operand.text.substring(operand.text.indexOf('.') + 1);
+                if (!columns.contains(column.toUpperCase(Locale.ROOT))) {
+                    throw error("Unknown column [" + operand.text + "]");
+                }
+                advance();
+                return new SqlExpression.Column(column);
+            case STRING:
+                advance();
+                return new SqlExpression.Literal(operand.text);
+            case NUMBER:
+                advance();
+                BigDecimal number = new BigDecimal(operand.text);
+                return new SqlExpression.Literal(operand.text.indexOf('.') < 0
+                                                         && number.toBigInteger().bitLength() < 64
+                                                         ? (Object) number.longValue() : number);
+            case PARAMETER:
+                advance();
+                return new SqlExpression.Parameter(operand.text);
+            default:
+                throw error("Expected a column or value but found [" + operand.text + "]");
+        }
+    }
+
+    private boolean accept(TokenType type) {
+        if (token.type == type) {
+            advance();
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(TokenType type) {
+        if (!accept(type)) {
+            throw error("Expected " + type.name().toLowerCase(Locale.ROOT).replace('_', ' ') + " but found ["
+                                + token.text + "]");
+        }
+    }
+
+    private boolean acceptKeyword(String keyword) {
+        if (token.type == TokenType.IDENTIFIER && token.text.equalsIgnoreCase(keyword)) {
+            advance();
+            return true;
+        }
+        return false;
+    }
+
+    private void expectKeyword(String keyword) {
+        if (!acceptKeyword(keyword)) {
+            throw error("Expected " + keyword + " but found [" + token.text + "]");
+        }
+    }
+
+    private DataQueryException error(String message) {
+        return new DataQueryException(message + " at position " + token.start + " of [" + clause + "]");
+    }
+
+    private void advance() {
+        while (position < clause.length() && Character.isWhitespace(clause.charAt(position))) {
+            position++;
+        }
+        int start = position;
+        if (position == clause.length()) {
+            token = new Token(TokenType.END, "end of clause", start);
+            return;
+        }
+        char c = clause.charAt(position);
+        if (isIdentifierStart(c)) {
+            position = identifierEnd(position);
+            if (position < clause.length() && clause.charAt(position) == '.'
+                    && position + 1 < clause.length() && isIdentifierStart(clause.charAt(position + 1))) {
+                position = identifierEnd(position + 1);
+            }
+            token = new Token(TokenType.IDENTIFIER, clause.substring(start, position), start);
+        } else if (Character.isDigit(c) || (c == '-' && position + 1 < clause.length()
+                && Character.isDigit(clause.charAt(position + 1)))) {
+            position++;
+            while (position < clause.length() && Character.isDigit(clause.charAt(position))) {
+                position++;
+            }
+            if (position + 1 < clause.length() && clause.charAt(position) == '.'
+                    && Character.isDigit(clause.charAt(position + 1))) {
+                position++;
+                while (position < clause.length() && Character.isDigit(clause.charAt(position))) {
+                    position++;
+                }
+            }
+            token = new Token(TokenType.NUMBER, clause.substring(start, position), start);
+        } else if (c == '\'') {
+            StringBuilder value = new StringBuilder();
+            position++;
+            while (true) {
+                if (position == clause.length()) {
+                    token = new Token(TokenType.END, "end of clause", start);
+                    throw error("Unterminated string");
+                }
+                char s = clause.charAt(position++);
+                if (s == '\'') {
+                    if (position < clause.length() && clause.charAt(position) == '\'') {
+                        position++;
+                    } else {
+                        break;
+                    }
+                }
+                value.append(s);
+            }
+            token = new Token(TokenType.STRING, value.toString(), start);
+        } else if (c == ':' && position + 1 < clause.length() && isIdentifierStart(clause.charAt(position + 1))) {
+            position = identifierEnd(position + 1);
+            token = new Token(TokenType.PARAMETER, clause.substring(start + 1, position), start);
+        } else if (c == '(') {
+            position++;
+            token = new Token(TokenType.LEFT_PARENTHESIS, "(", start);
+        } else if (c == ')') {
+            position++;
+            token = new Token(TokenType.RIGHT_PARENTHESIS, ")", start);
+        } else if (c == ',') {
+            position++;
+            token = new Token(TokenType.COMMA, ",", start);
+        } else if (c == '=' || c == '<' || c == '>' || c == '!') {
+            position++;
+            if (position < clause.length() && (clause.charAt(position) == '='
+                    || (c == '<' && clause.charAt(position) == '>'))) {
+                position++;
+            }
+            String operator = clause.substring(start, position);
+            if ("!".equals(operator)) {
+                token = new Token(TokenType.END, operator, start);
+                throw error("Unexpected [!]");
+            }
+            token = new Token(TokenType.OPERATOR, operator, start);
+        } else {
+            token = new Token(TokenType.END, String.valueOf(c), start);
+            throw error("Unexpected [" + c + "]");
+        }
+    }
+
+    private int identifierEnd(int from) {
+        int end = from + 1;
+        while (end < clause.length() && isIdentifierPart(clause.charAt(end))) {
+            end++;
+        }
+        return end;
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || c == '_';
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return isIdentifierStart(c) || (c >= '0' && c <= '9') || c == '$';
+    }
+
+    private enum TokenType {
+        IDENTIFIER, STRING, NUMBER, PARAMETER, OPERATOR, LEFT_PARENTHESIS, RIGHT_PARENTHESIS, COMMA, END
+    }
+
+    private static final class Token {
+
+        private final TokenType type;
+
+        private final String text;
+
+        private final int start;
+
+        private Token(TokenType type, String text, int start) {
+            this.type = type;
+            this.text = text;
+            this.start = start;
+        }
+    }
+
+}
@@ -0,0 +1,243 @@
+package io.cyw.framework.ui.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The statement selecting a page of a business table, as compiled by the {@link DataQueryCompiler}. The SQL only
+ * depends on the shape of a request, that is its table, whether it is initial and projected, the columns it is
+ * filtered by and whether it continues after a keyset and which values of that keyset are {@code null}, not on its
+ * values. Those are {@link #bind(DataQueryRequest) bound} separately, in the order of the {@link #getSlots() slots}
+ * of the statement.
+ */
+public final class CompiledDataQuery {
+
+    /**
+     * The escape character of the patterns of {@link io.cyw.framework.ui.model.CompiledReferenceField#QUERY_LIKE like}
+     * fields.
+     */
+    static final char LIKE_ESCAPE = '!';
+
+    private final String sql;
+
+    private final List<SortKey> sortKeys;
+
+    private final List<Slot> slots;
+
+    private final DataColumns columns;
+
+    private final int[] sortKeyIndexes;
+
+    CompiledDataQuery(String sql, List<SortKey> sortKeys, List<Slot> slots, DataColumns columns,
+                      int[] sortKeyIndexes) {
+        this.sql = sql;
+        this.sortKeys = Collections.unmodifiableList(new ArrayList<>(sortKeys));
+        this.slots = Collections.unmodifiableList(new ArrayList<>(slots));
+        this.columns = columns;
+        this.sortKeyIndexes = sortKeyIndexes;
+    }
+
+    /**
+     * Returns the values of the bind parameters of the statement for the given {@code request}, which must have the
+     * shape the statement was compiled for.
+     *
+     * @param request the request to bind
+     * @return the values of the bind parameters, in the order of their placeholders
+     * @throws DataQueryException if a parameter of a where clause is missing, or the keyset of the request does not
+     *                            match the sort columns
+     */
+    public List<Object> bind(DataQueryRequest request) {
+        if (request.getAfter() != null && request.getAfter().getValues().size() != sortKeys.size()) {
+            throw new DataQueryException("The keyset does not match the sort columns of reference table ["
+                                                 + request.getTable().getName() + "], its order by may have changed");
+        }
+        List<Object> values = new ArrayList<>(slots.size());
+        for (Slot slot : slots) {
+            switch (slot.kind) {
+                case VALUE:
+                    values.add(slot.value);
+                    break;
+                case PARAMETER:
+                    Map<String, Object> parameters = request.getParameters();
+                    if (!parameters.containsKey(slot.value)) {
+                        throw new DataQueryException("Missing parameter [" + slot.value + "] of reference table ["
+                                                             + request.getTable().getName() + "]");
+                    }
+                    values.add(parameters.get(slot.value));
+                    break;
+                case FILTER:
+                    values.add(request.getFilters().get(slot.value));
+                    break;
+                case LIKE_FILTER:
+                    values.add(likePattern(request.getFilters().get(slot.value)));
+                    break;
+                case KEYSET:
+                    values.add(request.getAfter().getValues().get(slot.index));
+                    break;
+                case LIMIT:
+                    values.add(request.getPageSize() + 1);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown slot " + slot.kind);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Returns the pattern a {@link io.cyw.framework.ui.model.CompiledReferenceField#QUERY_LIKE like} field is matched
+     * with, using {@link #LIKE_ESCAPE} as escape character. {@code *} is the only wildcard, {@code %} and {@code _}
+     * match themselves, and a value without wildcard matches as prefix.
+     */
+    private static String likePattern(Object value) {
+        String text = value.toString();
+        StringBuilder pattern = new StringBuilder(text.length() + 1);
+        boolean wildcard = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '*') {
+                pattern.append('%');
+                wildcard = true;
+            } else {
+                if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                    pattern.append(LIKE_ESCAPE);
+                }
+                pattern.append(c);
+            }
+        }
+        return wildcard ? pattern.toString() : pattern.append('%').toString();
+    }
+
+    /**
+     * Returns the SQL of the statement, with a {@code ?} placeholder for every bind parameter.
+     *
+     * @return the SQL of the statement
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Returns the columns the rows are sorted by, ending with the key column, of which the values form the {@link
+     * Keyset} of a row.
+     *
+     * @return the sort keys of the statement
+     */
+    public List<SortKey> getSortKeys() {
+        return sortKeys;
+    }
+
+    public List<Slot> getSlots() {
+        return slots;
+    }
+
+    /**
+     * Returns the columns selected by a projected statement, in the order of the select list, which are shared by all
+     * rows it reads.
+     *
+     * @return the selected columns, or {@code null} if the statement selects all columns of the table
+     */
+    public DataColumns getColumns() {
+        return columns;
+    }
+
+    /**
+     * Returns the position in the {@link #getColumns() columns} of every {@link #getSortKeys() sort key}.
+     *
+     * @param sortKey the position of the sort key
+     * @return the position of its column, or {@code -1} if the statement selects all columns of the table
+     */
+    public int getSortKeyIndex(int sortKey) {
+        return sortKeyIndexes == null ? -1 : sortKeyIndexes[sortKey];
+    }
+
+    @Override
+    public String toString() {
+        return sql;
+    }
+
+    /**
+     * Source of the value of a bind parameter.
+     */
+    public static final class Slot {
+
+        private final Kind kind;
+
+        private final Object value;
+
+        private final int index;
+
+        private Slot(Kind kind, Object value, int index) {
+            this.kind = kind;
+            this.value = value;
+            this.index = index;
+        }
+
+        static Slot value(Object value) {
+            return new Slot(Kind.VALUE, value, -1);
+        }
+
+        static Slot parameter(String name) {
+            return new Slot(Kind.PARAMETER, name, -1);
+        }
+
+        static Slot filter(String column, boolean like) {
+            return new Slot(like ? Kind.LIKE_FILTER : Kind.FILTER, column, -1);
+        }
+
+        static Slot keyset(int index) {
+            return new Slot(Kind.KEYSET, null, index);
+        }
+
+        static Slot limit() {
+            return new Slot(Kind.LIMIT, null, -1);
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        @Override
+        public String toString() {
+            return kind + (value != null ? "[" + value + "]" : index >= 0 ? "[" + index + "]" : "");
+        }
+
+        public enum Kind {
+
+            /**
+             * A literal of a where clause.
+             */
+            VALUE,
+
+            /**
+             * A named parameter of a where clause, bound from the {@link DataQueryRequest#getParameters()
+             * parameters} of the request.
+             */
+            PARAMETER,
+
+            /**
+             * A filter on a query field, bound from the {@link DataQueryRequest#getFilters() filters} of the request.
+             */
+            FILTER,
+
+            /**
+             * A filter on a query like field, bound as pattern from the {@link DataQueryRequest#getFilters() filters}
+             * of the request.
+             */
+            LIKE_FILTER,
+
+            /**
+             * A value of the keyset the page continues after.
+             */
+            KEYSET,
+
+            /**
+             * The number of rows to fetch.
+             */
+            LIMIT
+        }
+    }
+
+}
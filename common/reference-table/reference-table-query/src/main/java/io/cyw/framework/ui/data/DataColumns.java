@@ -0,0 +1,59 @@
+package io.cyw.framework.ui.data;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The columns of {@link DataRow rows}, shared by all rows of the same shape so that a row only holds its values. A
+ * projected statement has a single instance for all its pages, an unprojected one an instance for every page.
+ */
+public final class DataColumns {
+
+    private final String[] names;
+
+    private final Map<String, Integer> indexes;
+
+    /**
+     * @param names the names of the columns, in the order of the values of the rows
+     */
+    public DataColumns(String... names) {
+        this.names = names.clone();
+        this.indexes = new HashMap<>(names.length * 2);
+        for (int i = names.length - 1; i >= 0; i--) {
+            indexes.put(names[i], i);
+        }
+    }
+
+    /**
+     * Returns the position of the given column in the values of a row. Names are compared case sensitively, of
+     * duplicate names the first one is returned.
+     *
+     * @param name the name of the column
+     * @return the position of the column, or {@code -1} if there is no such column
+     */
+    public int indexOf(Object name) {
+        Integer index = indexes.get(name);
+        return index == null ? -1 : index;
+    }
+
+    public String getName(int index) {
+        return names[index];
+    }
+
+    public List<String> getNames() {
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(names);
+    }
+
+}
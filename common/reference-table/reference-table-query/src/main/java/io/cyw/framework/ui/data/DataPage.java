@@ -0,0 +1,41 @@
+package io.cyw.framework.ui.data;
+
+import java.util.List;
+
+/**
+ * A page of rows of the business table of a reference table, with the {@link Keyset} to request the next page.
+ */
+public final class DataPage {
+
+    private final List<DataRow> rows;
+
+    private final Keyset next;
+
+    public DataPage(List<DataRow> rows, Keyset next) {
+        this.rows = rows;
+        this.next = next;
+    }
+
+    /**
+     * Returns the rows of this page, every row maps the column names to their values.
+     *
+     * @return the rows of this page
+     */
+    public List<DataRow> getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the keyset to pass as {@link DataQueryRequest.Builder#after(Keyset) after} to request the next page.
+     *
+     * @return the keyset of the next page, or {@code null} if this is the last page
+     */
+    public Keyset getNext() {
+        return next;
+    }
+
+    public boolean hasNext() {
+        return next != null;
+    }
+
+}
@@ -0,0 +1,429 @@
+package io.cyw.framework.ui.data;
+
+import io.cyw.framework.ui.model.CompiledReferenceField;
+import io.cyw.framework.ui.model.CompiledReferenceTable;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles {@link DataQueryRequest requests} into parameterized {@link CompiledDataQuery statements}. A statement has
+ * the form
+ * <pre>
+ * select columns from TABLE where (whereClause) and (initWhereClause) and (filters) and (keyset condition)
+ * order by sort columns fetch first ? rows only
+ * </pre>
+ * A projected statement only selects the columns of the fields with the {@code displayFlag} or {@code mainFlag}, the
+ * sort columns and the key column, in that order, an unprojected one all columns.
+ * <p>
+ * The {@code whereClause} and {@code initWhereClause} of a table are parsed by the {@link ClauseParser}, and may only
+ * refer to the columns of the fields of the table and to the key column, as may its {@code orderBy}. Columns qualified
+ * in these clauses are written without their qualifier, which is not validated. The table name and the column names of
+ * all fields must be plain identifiers, a table with another name is rejected before any of its names reaches the SQL.
+ * Literals, the values of the filters and the keyset are all bound as parameters, so nothing but validated names is
+ * copied into the SQL.
+ * <p>
+ * Both the parsed clauses of a table and the statements are cached, the latter by the shape of the request: its
+ * table, whether it is initial and projected, the columns it is filtered by, whether it continues after a keyset and
+ * which values of that keyset are {@code null}. Requests of the same shape therefore get the very same SQL text, so
+ * that the prepared statement cache of the JDBC driver, and the server side prepared statement it creates for a
+ * frequently executed statement, are reused across searches. The caches are keyed by the identity of the {@link
+ * CompiledReferenceTable}, so a table that is reloaded after a change is compiled anew, and the entries of the former
+ * table age out of the caches.
+ * <p>
+ * {@code null} sorts as the largest value: ascending columns are sorted {@code NULLS LAST} and descending ones
+ * {@code NULLS FIRST}, the default of PostgreSQL and Oracle, so that their indexes can be used. When all sort columns
+ * are sorted in the same direction and no value of the keyset is {@code null}, the keyset condition is a row value
+ * comparison such as {@code (A, B) > (?, ?)}, which the database resolves with a single index seek. As the comparison
+ * is unknown for a {@code null} column, the rows with a {@code null} column after an equal prefix are added for
+ * ascending columns: {@code (A, B) > (?, ?) or A is null}. Otherwise the condition is expanded to
+ * {@code (A > ? or A is null) or (A = ? and B < ?)}, comparing {@code null} values of the keyset with {@code is null}.
+ */
+@ApplicationScoped
+public class DataQueryCompiler {
+
+    private static final Pattern TABLE_NAME_PATTERN =
+            Pattern.compile("[A-Za-z_][A-Za-z0-9_$]*(\\.[A-Za-z_][A-Za-z0-9_$]*)?");
+
+    private static final Pattern COLUMN_NAME_PATTERN = Pattern.compile("[A-Za-z_][A-Za-z0-9_$]*");
+
+    @ConfigProperty(name = "reference-table.data.key-column", defaultValue = "OBJECT_RRN")
+    private String keyColumn;
+
+    @ConfigProperty(name = "reference-table.data.statement-cache-size", defaultValue = "1000")
+    private int statementCacheSize;
+
+    private Map<CompiledReferenceTable, Definition> definitions;
+
+    private Map<Shape, CompiledDataQuery> statements;
+
+    @PostConstruct
+    void initialize() {
+        this.definitions = Collections.synchronizedMap(new LruMap<>(statementCacheSize));
+        this.statements = Collections.synchronizedMap(new LruMap<>(statementCacheSize));
+    }
+
+    /**
+     * Returns the statement selecting the page requested by the given {@code request}. Its parameters are bound with
+     * {@link CompiledDataQuery#bind(DataQueryRequest)}.
+     *
+     * @param request the request to compile
+     * @return the statement for the shape of the request
+     * @throws DataQueryException if the table, its clauses or the filters of the request are invalid
+     */
+    public CompiledDataQuery compile(DataQueryRequest request) {
+        CompiledReferenceTable table = request.getTable();
+        Shape shape = new Shape(table, request.isInitial(), request.isProjected(), activeFilters(request),
+                                nullKeys(request.getAfter()));
+        CompiledDataQuery statement = statements.get(shape);
+        if (statement == null) {
+            statement = compile(definitionOf(table), shape);
+            statements.put(shape, statement);
+        }
+        return statement;
+    }
+
+    /**
+     * Returns the column names of the filters of the given {@code request} that have a value, in their natural order
+     * so that the same filters always give the same statement.
+     */
+    private static List<String> activeFilters(DataQueryRequest request) {
+        List<String> columns = new ArrayList<>();
+        for (Map.Entry<String, Object> filter : request.getFilters().entrySet()) {
+            Object value = filter.getValue();
+            if (value != null && !(value instanceof String && ((String) value).trim().isEmpty())) {
+                columns.add(filter.getKey());
+            }
+        }
+        Collections.sort(columns);
+        return columns;
+    }
+
+    /**
+     * Returns the positions of the {@code null} values of the given keyset, which are compared without parameter.
+     */
+    private static BitSet nullKeys(Keyset keyset) {
+        if (keyset == null) {
+            return null;
+        }
+        BitSet nullKeys = new BitSet();
+        List<Object> values = keyset.getValues();
+        for (int i = 0; i < values.size(); i++) {
+            if (values.get(i) == null) {
+                nullKeys.set(i);
+            }
+        }
+        return nullKeys;
+    }
+
+    private Definition definitionOf(CompiledReferenceTable table) {
+        Definition definition = definitions.get(table);
+        if (definition == null) {
+            definition = new Definition(table);
+            definitions.put(table, definition);
+        }
+        return definition;
+    }
+
+    private CompiledDataQuery compile(Definition definition, Shape shape) {
+        CompiledReferenceTable table = shape.table;
+        StringBuilder sql = new StringBuilder("select ");
+        if (shape.projected) {
+            for (int i = 0; i < definition.projection.size(); i++) {
+                sql.append(i == 0 ? "" : ", ").append(definition.projection.getName(i));
+            }
+        } else {
+            sql.append('*');
+        }
+        sql.append(" from ").append(table.getTableName());
+        List<CompiledDataQuery.Slot> slots = new ArrayList<>();
+        int conditions = 0;
+        if (definition.where != null) {
+            definition.where.render(where(sql, conditions++), slots);
+            sql.append(')');
+        }
+        if (shape.initial && definition.initWhere != null) {
+            definition.initWhere.render(where(sql, conditions++), slots);
+            sql.append(')');
+        }
+        for (String column : shape.filters) {
+            CompiledReferenceField field = table.getField(column);
+            if (field == null || !field.hasFlags(CompiledReferenceField.QUERY)) {
+                throw new DataQueryException("Column [" + column + "] is not a query field of reference table ["
+                                                     + table.getName() + "]");
+            }
+            boolean like = field.hasFlags(CompiledReferenceField.QUERY_LIKE);
+            where(sql, conditions++).append(field.getColumnName())
+                    .append(like ? " like ? escape '" + CompiledDataQuery.LIKE_ESCAPE + "')" : " = ?)");
+            slots.add(CompiledDataQuery.Slot.filter(column, like));
+        }
+        if (shape.nullKeys != null) {
+            keysetCondition(where(sql, conditions), definition.sortKeys, shape.nullKeys, slots);
+            sql.append(')');
+        }
+        sql.append(" order by ");
+        for (int i = 0; i < definition.sortKeys.size(); i++) {
+            SortKey sortKey = definition.sortKeys.get(i);
+            sql.append(i == 0 ? "" : ", ").append(sortKey)
+               .append(sortKey.isDescending() ? " NULLS FIRST" : " NULLS LAST");
+        }
+        sql.append(" fetch first ? rows only");
+        slots.add(CompiledDataQuery.Slot.limit());
+        return shape.projected
+                ? new CompiledDataQuery(sql.toString(), definition.sortKeys, slots, definition.projection,
+                                        definition.sortKeyIndexes)
+                : new CompiledDataQuery(sql.toString(), definition.sortKeys, slots, null, null);
+    }
+
+    private static StringBuilder where(StringBuilder sql, int conditions) {
+        return sql.append(conditions == 0 ? " where (" : " and (");
+    }
+
+    /**
+     * Appends the condition selecting the rows after the keyset. Null sorts as the largest value, so that the order
+     * is total, and the values of the keyset that are {@code null} are compared with {@code is null} instead of a
+     * parameter.
+     */
+    private static void keysetCondition(StringBuilder sql, List<SortKey> sortKeys, BitSet nullKeys,
+                                        List<CompiledDataQuery.Slot> slots) {
+        boolean descending = sortKeys.get(0).isDescending();
+        boolean sameDirection = sortKeys.stream().allMatch(sortKey -> sortKey.isDescending() == descending);
+        if (sameDirection && nullKeys.isEmpty()) {
+            StringBuilder placeholders = new StringBuilder("(");
+            sql.append("((");
+            for (int i = 0; i < sortKeys.size(); i++) {
+                sql.append(i == 0 ? "" : ", ").append(sortKeys.get(i).getColumn());
+                placeholders.append(i == 0 ? "?" : ", ?");
+                slots.add(CompiledDataQuery.Slot.keyset(i));
+            }
+            sql.append(descending ? ") < " : ") > ").append(placeholders).append("))");
+            if (!descending) {
+                // the row value comparison is unknown for the rows with a null sort column after an equal prefix,
+                // which sort after the keyset
+                for (int i = 0; i < sortKeys.size() - 1; i++) {
+                    sql.append(" or (");
+                    equalPrefix(sql, sortKeys, i, nullKeys, slots);
+                    sql.append(sortKeys.get(i).getColumn()).append(" is null)");
+                }
+            }
+            return;
+        }
+        int branches = 0;
+        for (int i = 0; i < sortKeys.size(); i++) {
+            SortKey sortKey = sortKeys.get(i);
+            boolean isNull = nullKeys.get(i);
+            if (isNull && !sortKey.isDescending()) {
+                // nothing sorts after null in ascending order
+                continue;
+            }
+            sql.append(branches++ == 0 ? "(" : " or (");
+            equalPrefix(sql, sortKeys, i, nullKeys, slots);
+            if (isNull) {
+                sql.append(sortKey.getColumn()).append(" is not null)");
+            } else if (sortKey.isDescending()) {
+                sql.append(sortKey.getColumn()).append(" < ?)");
+                slots.add(CompiledDataQuery.Slot.keyset(i));
+            } else {
+                sql.append('(').append(sortKey.getColumn()).append(" > ? or ").append(sortKey.getColumn())
+                   .append(" is null))");
+                slots.add(CompiledDataQuery.Slot.keyset(i));
+            }
+        }
+        if (branches == 0) {
+            sql.append("1 = 0");
+        }
+    }
+
+    private static void equalPrefix(StringBuilder sql, List<SortKey> sortKeys, int length, BitSet nullKeys,
+                                    List<CompiledDataQuery.Slot> slots) {
+        for (int j = 0; j < length; j++) {
+            sql.append(sortKeys.get(j).getColumn());
+            if (nullKeys.get(j)) {
+                sql.append(" is null and ");
+            } else {
+                sql.append(" = ? and ");
+                slots.add(CompiledDataQuery.Slot.keyset(j));
+            }
+        }
+    }
+
+    private static String unqualified(String column) {
+        return column.substring(column.indexOf('.') + 1);
+    }
+
+    private static boolean isNotBlank(String clause) {
+        return clause != null && !clause.trim().isEmpty();
+    }
+
+    /**
+     * The validated table name, the parsed clauses, the sort keys and the projection of a reference table. The column
+     * names of all fields are validated when the definition is created, so that those of the filters and the
+     * projection can be copied into the SQL.
+     */
+    private final class Definition {
+
+        private final SqlExpression where;
+
+        private final SqlExpression initWhere;
+
+        private final List<SortKey> sortKeys;
+
+        private final DataColumns projection;
+
+        private final int[] sortKeyIndexes;
+
+        private Definition(CompiledReferenceTable table) {
+            String tableName = table.getTableName();
+            if (tableName == null || !TABLE_NAME_PATTERN.matcher(tableName).matches()) {
+                throw new DataQueryException("Reference table [" + table.getName() + "] has an invalid table name ["
+                                                     + tableName + "]");
+            }
+            Set<String> columns = new HashSet<>();
+            List<String> projected = new ArrayList<>();
+            for (CompiledReferenceField field : table.getFields()) {
+                String column = field.getColumnName();
+                if (column == null) {
+                    continue;
+                }
+                if (!COLUMN_NAME_PATTERN.matcher(column).matches()) {
+                    throw new DataQueryException("Field [" + field.getName() + "] of reference table ["
+                                                         + table.getName() + "] has an invalid column name ["
+                                                         + column + "]");
+                }
+                columns.add(column.toUpperCase(Locale.ROOT));
+                // only validated names are projected, the select list is copied into the SQL as is
+                if ((field.hasFlags(CompiledReferenceField.DISPLAY) || field.hasFlags(CompiledReferenceField.MAIN))
+                        && indexOfIgnoreCase(projected, column) < 0) {
+                    projected.add(column);
+                }
+            }
+            if (!COLUMN_NAME_PATTERN.matcher(keyColumn).matches()) {
+                throw new DataQueryException("Invalid key column [" + keyColumn + "]");
+            }
+            columns.add(keyColumn.toUpperCase(Locale.ROOT));
+            this.where = isNotBlank(table.getWhereClause())
+                    ? ClauseParser.parse(table.getWhereClause(), columns) : null;
+            this.initWhere = isNotBlank(table.getInitWhereClause())
+                    ? ClauseParser.parse(table.getInitWhereClause(), columns) : null;
+            this.sortKeys = sortKeysOf(table, columns);
+            this.sortKeyIndexes = new int[sortKeys.size()];
+            for (int i = 0; i < sortKeys.size(); i++) {
+                // sort columns are validated identifiers of the fields or the key column
+                String column = unqualified(sortKeys.get(i).getColumn());
+                int index = indexOfIgnoreCase(projected, column);
+                if (index < 0) {
+                    index = projected.size();
+                    projected.add(column);
+                }
+                sortKeyIndexes[i] = index;
+            }
+            this.projection = new DataColumns(projected.toArray(new String[0]));
+        }
+
+        private int indexOfIgnoreCase(List<String> columns, String column) {
+            for (int i = 0; i < columns.size(); i++) {
+                if (columns.get(i).equalsIgnoreCase(column)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private List<SortKey> sortKeysOf(CompiledReferenceTable table, Set<String> columns) {
+            List<SortKey> sortKeys = new ArrayList<>();
+            boolean keyed = false;
+            for (SortKey sortKey : SortKey.parse(table.getOrderBy())) {
+                String column = unqualified(sortKey.getColumn());
+                if (!columns.contains(column.toUpperCase(Locale.ROOT))) {
+                    throw new DataQueryException("Unknown sort column [" + sortKey.getColumn()
+                                                         + "] of reference table [" + table.getName() + "]");
+                }
+                // only the validated column reaches the SQL, not its qualifier
+                sortKeys.add(new SortKey(column, sortKey.isDescending()));
+                keyed |= column.equalsIgnoreCase(keyColumn);
+            }
+            if (!keyed) {
+                // the key column makes the position of every row unique, in the direction of the last sort column so
+                // that a row value comparison can be used when all sort columns are sorted in the same direction
+                boolean descending = !sortKeys.isEmpty() && sortKeys.get(sortKeys.size() - 1).isDescending();
+                sortKeys.add(new SortKey(keyColumn, descending));
+            }
+            return sortKeys;
+        }
+    }
+
+    /**
+     * The shape of a request, all a statement depends on. Tables are compared by identity, as every reload of a table
+     * gives a new instance.
+     */
+    private static final class Shape {
+
+        private final CompiledReferenceTable table;
+
+        private final boolean initial;
+
+        private final boolean projected;
+
+        private final List<String> filters;
+
+        private final BitSet nullKeys;
+
+        private Shape(CompiledReferenceTable table, boolean initial, boolean projected, List<String> filters,
+                      BitSet nullKeys) {
+            this.table = table;
+            this.initial = initial;
+            this.projected = projected;
+            this.filters = filters;
+            this.nullKeys = nullKeys;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Shape shape = (Shape) o;
+            return table == shape.table && initial == shape.initial && projected == shape.projected
+                    && Objects.equals(nullKeys, shape.nullKeys) && filters.equals(shape.filters);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(table), initial, projected, filters, nullKeys);
+        }
+    }
+
+    /**
+     * Map evicting its least recently used entry when it exceeds its maximum size.
+     */
+    private static final class LruMap<K, V> extends LinkedHashMap<K, V> {
+
+        private final int maxSize;
+
+        private LruMap(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > maxSize;
+        }
+    }
+
+}
@@ -0,0 +1,21 @@
+package io.cyw.framework.ui.data;
+
+import io.cyw.framework.core.exception.SystemIllegalException;
+
+/**
+ * Exception indicating that the data of a reference table could not be queried, because its definition is invalid or
+ * the query failed.
+ */
+public class DataQueryException extends SystemIllegalException {
+
+    private static final long serialVersionUID = 4460211283540513794L;
+
+    public DataQueryException(String message) {
+        super(message);
+    }
+
+    public DataQueryException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
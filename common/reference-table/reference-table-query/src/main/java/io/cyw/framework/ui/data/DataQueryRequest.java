@@ -0,0 +1,201 @@
+package io.cyw.framework.ui.data;
+
+import io.cyw.framework.ui.model.CompiledReferenceTable;
+import io.cyw.framework.utils.Assert;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Request for a page of the rows of the business table of a reference table. The rows are filtered by the
+ * {@code whereClause} of the table, and by its {@code initWhereClause} unless the request is not {@link
+ * Builder#initial(boolean) initial}, and by the values of its query fields that are given as {@link
+ * Builder#filters(Map) filters}. They are sorted by its {@code orderBy}. Unless the request is not {@link
+ * Builder#projected(boolean) projected}, only the displayed and main columns of the table are selected.
+ */
+public final class DataQueryRequest {
+
+    /**
+     * The default number of rows of a page.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    /**
+     * The maximum number of rows of a page.
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private final CompiledReferenceTable table;
+
+    private final boolean initial;
+
+    private final Keyset after;
+
+    private final int pageSize;
+
+    private final boolean projected;
+
+    private final Map<String, Object> filters;
+
+    private final Map<String, Object> parameters;
+
+    public DataQueryRequest(Builder builder) {
+        builder.validate();
+        this.table = builder.table;
+        this.initial = builder.initial;
+        this.after = builder.after;
+        this.pageSize = builder.pageSize;
+        this.projected = builder.projected;
+        this.filters = Collections.unmodifiableMap(new LinkedHashMap<>(builder.filters));
+        this.parameters = Collections.unmodifiableMap(new LinkedHashMap<>(builder.parameters));
+    }
+
+    public CompiledReferenceTable getTable() {
+        return table;
+    }
+
+    public boolean isInitial() {
+        return initial;
+    }
+
+    public Keyset getAfter() {
+        return after;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public boolean isProjected() {
+        return projected;
+    }
+
+    public Map<String, Object> getFilters() {
+        return filters;
+    }
+
+    public Map<String, Object> getParameters() {
+        return parameters;
+    }
+
+    public static class Builder {
+
+        private CompiledReferenceTable table;
+
+        private boolean initial = true;
+
+        private Keyset after;
+
+        private int pageSize = DEFAULT_PAGE_SIZE;
+
+        private boolean projected = true;
+
+        private Map<String, ?> filters = Collections.emptyMap();
+
+        private Map<String, ?> parameters = Collections.emptyMap();
+
+        /**
+         * Sets the reference table of which the business table is queried.
+         *
+         * @param table the reference table
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder table(CompiledReferenceTable table) {
+            Assert.nonNull(table, () -> "Table may not be null");
+            this.table = table;
+            return this;
+        }
+
+        /**
+         * Sets whether the rows are filtered by the {@code initWhereClause} of the table, the filter of a screen that
+         * is opened. Defaults to {@code true}.
+         *
+         * @param initial whether the initial filter applies
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder initial(boolean initial) {
+            this.initial = initial;
+            return this;
+        }
+
+        /**
+         * Sets the keyset of the previous page, after which the requested page starts. Defaults to {@code null}, which
+         * requests the first page.
+         *
+         * @param after the {@link DataPage#getNext() next} keyset of the previous page
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder after(Keyset after) {
+            this.after = after;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of rows of a page, at most {@value #MAX_PAGE_SIZE}. Defaults to
+         * {@value #DEFAULT_PAGE_SIZE}.
+         *
+         * @param pageSize the maximum number of rows of a page
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder pageSize(int pageSize) {
+            Assert.isTrue(pageSize > 0 && pageSize <= MAX_PAGE_SIZE,
+                          () -> "The pageSize must be between 1 and " + MAX_PAGE_SIZE);
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        /**
+         * Sets whether only the columns of the fields of the table with the {@code displayFlag} or {@code mainFlag}
+         * are selected, besides the sort columns, instead of all columns of the business table. This saves reading
+         * and transferring the columns of wide tables that are never shown. Defaults to {@code true}.
+         *
+         * @param projected whether only the displayed and main columns are selected
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder projected(boolean projected) {
+            this.projected = projected;
+            return this;
+        }
+
+        /**
+         * Sets the values the query fields of the table are filtered by, by their column name. A field is matched by
+         * equality, or as pattern if it is a query like field. Null and blank values do not filter. Defaults to no
+         * filters.
+         *
+         * @param filters the values of the query fields, by column name
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder filters(Map<String, ?> filters) {
+            Assert.nonNull(filters, () -> "Filters may not be null");
+            this.filters = filters;
+            return this;
+        }
+
+        /**
+         * Sets the values of the named parameters, such as {@code :orgRrn}, of the where clauses of the table.
+         * Defaults to no parameters.
+         *
+         * @param parameters the values of the parameters, by name
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder parameters(Map<String, ?> parameters) {
+            Assert.nonNull(parameters, () -> "Parameters may not be null");
+            this.parameters = parameters;
+            return this;
+        }
+
+        /**
+         * Validate whether the fields contained in this Builder as set accordingly.
+         */
+        protected void validate() {
+            Assert.nonNull(table, () -> "The table is a hard requirement and should be provided");
+        }
+
+        public DataQueryRequest build() {
+            return new DataQueryRequest(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,36 @@
+package io.cyw.framework.ui.data;
+
+import io.smallrye.mutiny.Multi;
+
+/**
+ * Queries the rows of the business tables described by reference tables, using keyset pagination: a page starts after
+ * the {@link Keyset} of the last row of the previous page, so that the database seeks to it through an index instead of
+ * reading and skipping all rows before it, as {@code OFFSET} does. The cost of a page therefore does not depend on its
+ * position.
+ * <p>
+ * Rows are sorted by the {@code orderBy} of the reference table, followed by a unique key column so that every row has
+ * a distinct position. {@code null} sorts as the largest value of a sort column, after all other values in ascending
+ * order and before them in descending order, so rows with {@code null} sort values are returned exactly once.
+ */
+public interface DataQueryService {
+
+    /**
+     * Returns the page of rows requested by the given {@code request}.
+     *
+     * @param request the request of the page
+     * @return the page of rows
+     */
+    DataPage findPage(DataQueryRequest request);
+
+    /**
+     * Streams all rows matching the given {@code request}, starting after its {@link DataQueryRequest#getAfter()
+     * keyset}. The rows are read a page of {@link DataQueryRequest#getPageSize() pageSize} rows at a time, when the
+     * subscriber requests them, so that the subscriber controls how many rows are held in memory. No database
+     * connection is held while waiting for the subscriber.
+     *
+     * @param request the request of the first page
+     * @return the rows, every row maps the column names to their values
+     */
+    Multi<DataRow> stream(DataQueryRequest request);
+
+}
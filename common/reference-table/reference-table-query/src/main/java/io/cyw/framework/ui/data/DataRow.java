@@ -0,0 +1,95 @@
+package io.cyw.framework.ui.data;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A row of a business table: an array of values and the {@link DataColumns} it shares with the other rows of its
+ * shape. The row is an unmodifiable map of the column names to their values, in the order of the columns, so it can be
+ * serialized like one, but takes no more memory than its values.
+ */
+public final class DataRow extends AbstractMap<String, Object> {
+
+    private final DataColumns columns;
+
+    private final Object[] values;
+
+    /**
+     * @param columns the columns of the row
+     * @param values  the values of the row, in the order of the columns, which the row takes ownership of
+     */
+    public DataRow(DataColumns columns, Object[] values) {
+        if (values.length != columns.size()) {
+            throw new IllegalArgumentException("Expected " + columns.size() + " values but got " + values.length);
+        }
+        this.columns = columns;
+        this.values = values;
+    }
+
+    public DataColumns getColumns() {
+        return columns;
+    }
+
+    /**
+     * Returns the value of the column at the given position.
+     *
+     * @param index the position of the column
+     * @return the value of the column
+     */
+    public Object get(int index) {
+        return values[index];
+    }
+
+    @Override
+    public Object get(Object column) {
+        int index = columns.indexOf(column);
+        return index < 0 ? null : values[index];
+    }
+
+    @Override
+    public boolean containsKey(Object column) {
+        return columns.indexOf(column) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new Iterator<Entry<String, Object>>() {
+
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < values.length;
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        int index = next++;
+                        return new SimpleImmutableEntry<>(columns.getName(index), values[index]);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return values.length;
+            }
+        };
+    }
+
+}
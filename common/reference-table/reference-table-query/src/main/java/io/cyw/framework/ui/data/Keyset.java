@@ -0,0 +1,49 @@
+package io.cyw.framework.ui.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The values of the sort columns of the last row of a {@link DataPage}, after which the next page starts. Pages are
+ * found by comparing these values with the sort columns, instead of skipping the rows of all previous pages.
+ */
+public final class Keyset {
+
+    private final List<Object> values;
+
+    public Keyset(List<?> values) {
+        this.values = Collections.unmodifiableList(new ArrayList<>(values));
+    }
+
+    /**
+     * Returns the values of the sort columns, in the order of the sort columns.
+     *
+     * @return the values of the sort columns
+     */
+    public List<Object> getValues() {
+        return values;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return values.equals(((Keyset) o).values);
+    }
+
+    @Override
+    public int hashCode() {
+        return values.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "Keyset" + values;
+    }
+
+}
@@ -0,0 +1,75 @@
+package io.cyw.framework.ui.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * A column the rows of a business table are sorted by, parsed from the {@code orderBy} of a reference table.
+ */
+public final class SortKey {
+
+    /**
+     * Pattern of the column names accepted in an {@code orderBy}, optionally qualified.
+     */
+    static final Pattern COLUMN_PATTERN = Pattern.compile("[A-Za-z_][A-Za-z0-9_$]*(\\.[A-Za-z_][A-Za-z0-9_$]*)?");
+
+    private final String column;
+
+    private final boolean descending;
+
+    public SortKey(String column, boolean descending) {
+        if (column == null || !COLUMN_PATTERN.matcher(column).matches()) {
+            throw new DataQueryException("Invalid sort column [" + column + "]");
+        }
+        this.column = column;
+        this.descending = descending;
+    }
+
+    /**
+     * Parses the given {@code orderBy}, a comma separated list of columns, each optionally followed by {@code ASC} or
+     * {@code DESC}, for example {@code "CREATED DESC, NAME"}. Expressions are not supported, as rows can only be sought
+     * by the values of columns.
+     *
+     * @param orderBy the order by clause, without {@code order by}
+     * @return the sort keys, or an empty list if the given {@code orderBy} is {@code null} or blank
+     */
+    public static List<SortKey> parse(String orderBy) {
+        if (orderBy == null || orderBy.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<SortKey> keys = new ArrayList<>();
+        for (String part : orderBy.split(",")) {
+            String[] tokens = part.trim().split("\\s+");
+            if (tokens.length == 1) {
+                keys.add(new SortKey(tokens[0], false));
+            } else if (tokens.length == 2 && isDirection(tokens[1])) {
+                keys.add(new SortKey(tokens[0], "DESC".equals(tokens[1].toUpperCase(Locale.ROOT))));
+            } else {
+                throw new DataQueryException("Unsupported order by [" + orderBy + "], only columns can be sorted by");
+            }
+        }
+        return keys;
+    }
+
+    private static boolean isDirection(String token) {
+        String upper = token.toUpperCase(Locale.ROOT);
+        return "ASC".equals(upper) || "DESC".equals(upper);
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    @Override
+    public String toString() {
+        return column + (descending ? " DESC" : " ASC");
+    }
+
+}
@@ -0,0 +1,230 @@
+package io.cyw.framework.ui.data;
+
+import java.util.List;
+
+/**
+ * Node of the syntax tree of a condition of a reference table, as parsed by the {@link ClauseParser}. A node renders
+ * itself as SQL in which every value is replaced by a bind parameter, so that the SQL of a condition does not depend
+ * on the values it compares with, and cannot be altered by them.
+ */
+abstract class SqlExpression {
+
+    /**
+     * Appends the SQL of this node to the given {@code sql}, and the slots of its bind parameters to the given
+     * {@code slots}, in the order of their placeholders.
+     *
+     * @param sql   the SQL to append to
+     * @param slots the slots of the bind parameters to append to
+     */
+    abstract void render(StringBuilder sql, List<CompiledDataQuery.Slot> slots);
+
+    static final class Column extends SqlExpression {
+
+        private final String name;
+
+        Column(String name) {
+            this.name = name;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        @Override
+        void render(StringBuilder sql, List<CompiledDataQuery.Slot> slots) {
+            sql.append(name);
+        }
+    }
+
+    static final class Literal extends SqlExpression {
+
+        private final Object value;
+
+        Literal(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        void render(StringBuilder sql, List<CompiledDataQuery.Slot> slots) {
+            sql.append('?');
+            slots.add(CompiledDataQuery.Slot.value(value));
+        }
+    }
+
+    static final class Parameter extends SqlExpression {
+
+        private final String name;
+
+        Parameter(String name) {
+            this.name = name;
+        }
+
+        @Override
+        void render(StringBuilder sql, List<CompiledDataQuery.Slot> slots) {
+            sql.append('?');
+            slots.add(CompiledDataQuery.Slot.parameter(name));
+        }
+    }
+
+    static final class Comparison extends SqlExpression {
+
+        private final SqlExpression left;
+
+        private final String operator;
+
+        private final SqlExpression right;
+
+        Comparison(SqlExpression left, String operator, SqlExpression right) {
+            this.left = left;
+            this.operator = operator;
+            this.right = right;
+        }
+
+        @Override
+        void render(StringBuilder sql, List<CompiledDataQuery.Slot> slots) {
+            left.render(sql, slots);
+            sql.append(' ').append(operator).append(' ');
+            right.render(sql, slots);
+        }
+    }
+
+    static final class IsNull extends SqlExpression {
+
+        private final SqlExpression operand;
+
+        private final boolean negated;
+
+        IsNull(SqlExpression operand, boolean negated) {
+            this.operand = operand;
+            this.negated = negated;
+        }
+
+        @Override
+        void render(StringBuilder sql, List<CompiledDataQuery.Slot> slots) {
+            operand.render(sql, slots);
+            sql.append(negated ? " is not null" : " is null");
+        }
+    }
+
+    static final class Like extends SqlExpression {
+
+        private final SqlExpression operand;
+
+        private final SqlExpression pattern;
+
+        private final boolean negated;
+
+        Like(SqlExpression operand, SqlExpression pattern, boolean negated) {
+            this.operand = operand;
+            this.pattern = pattern;
+            this.negated = negated;
+        }
+
+        @Override
+        void render(StringBuilder sql, List<CompiledDataQuery.Slot> slots) {
+            operand.render(sql, slots);
+            sql.append(negated ? " not like " : " like ");
+            pattern.render(sql, slots);
+        }
+    }
+
+    static final class In extends SqlExpression {
+
+        private final SqlExpression operand;
+
+        private final List<SqlExpression> values;
+
+        private final boolean negated;
+
+        In(SqlExpression operand, List<SqlExpression> values, boolean negated) {
+            this.operand = operand;
+            this.values = values;
+            this.negated = negated;
+        }
+
+        @Override
+        void render(StringBuilder sql, List<CompiledDataQuery.Slot> slots) {
+            operand.render(sql, slots);
+            sql.append(negated ? " not in (" : " in (");
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                values.get(i).render(sql, slots);
+            }
+            sql.append(')');
+        }
+    }
+
+    static final class Between extends SqlExpression {
+
+        private final SqlExpression operand;
+
+        private final SqlExpression low;
+
+        private final SqlExpression high;
+
+        private final boolean negated;
+
+        Between(SqlExpression operand, SqlExpression low, SqlExpression high, boolean negated) {
+            this.operand = operand;
+            this.low = low;
+            this.high = high;
+            this.negated = negated;
+        }
+
+        @Override
+        void render(StringBuilder sql, List<CompiledDataQuery.Slot> slots) {
+            operand.render(sql, slots);
+            sql.append(negated ? " not between " : " between ");
+            low.render(sql, slots);
+            sql.append(" and ");
+            high.render(sql, slots);
+        }
+    }
+
+    static final class Not extends SqlExpression {
+
+        private final SqlExpression operand;
+
+        Not(SqlExpression operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        void render(StringBuilder sql, List<CompiledDataQuery.Slot> slots) {
+            sql.append("not (");
+            operand.render(sql, slots);
+            sql.append(')');
+        }
+    }
+
+    /**
+     * A conjunction or disjunction of conditions. Every condition is enclosed in parentheses, so that the precedence
+     * of the parsed clause is kept regardless of how it was written.
+     */
+    static final class Junction extends SqlExpression {
+
+        private final String operator;
+
+        private final List<SqlExpression> operands;
+
+        Junction(String operator, List<SqlExpression> operands) {
+            this.operator = operator;
+            this.operands = operands;
+        }
+
+        @Override
+        void render(StringBuilder sql, List<CompiledDataQuery.Slot> slots) {
+            for (int i = 0; i < operands.size(); i++) {
+                if (i > 0) {
+                    sql.append(' ').append(operator).append(' ');
+                }
+                sql.append('(');
+                operands.get(i).render(sql, slots);
+                sql.append(')');
+            }
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+package io.cyw.framework.ui.repository;
+
+import io.cyw.framework.ui.entity.ReferenceField;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface FieldRepository {
+
+    /**
+     * Loads the fields of the tables with the given {@code tableRrns}. The fields are loaded read-only, they are not
+     * tracked for changes.
+     *
+     * @param tableRrns the rrns of the tables
+     * @return the fields of the tables, grouped by table and ordered by their {@code seqNo} within a table
+     */
+    List<ReferenceField> findByTableRrns(Collection<String> tableRrns);
+
+    /**
+     * Loads the fields of the tabs with the given {@code tabRrns}. The fields are loaded read-only, they are not
+     * tracked for changes.
+     *
+     * @param tabRrns the rrns of the tabs
+     * @return the fields of the tabs, grouped by tab and ordered by their {@code seqNo} within a tab
+     */
+    List<ReferenceField> findByTabRrns(Collection<String> tabRrns);
+
+    /**
+     * Streams the fields of the table with the given {@code tableRrn} from the database, without keeping them in
+     * memory, for tables with very large definitions. The returned stream holds a database connection and must be
+     * closed.
+     *
+     * @param tableRrn the rrn of the table
+     * @return the fields of the table, ordered by their {@code seqNo}
+     */
+    Stream<ReferenceField> streamByTableRrn(String tableRrn);
+
+}
@@ -1,4 +1,37 @@
 package io.cyw.framework.ui.repository;
 
+import io.cyw.framework.ui.entity.ReferenceTable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 public interface RefTableQueryRepository {
+
+    /**
+     * Loads the complete definition of the table with the given {@code name}: the table with its tabs, the fields of
+     * every tab and the fields of the table. The number of round trips to the database does not depend on the number
+     * of tabs and fields.
+     *
+     * @param name the name of the table
+     * @return the table with its tabs and fields, or an empty Optional if no table has the given name
+     */
+    Optional<ReferenceTable> findByName(String name);
+
+    /**
+     * Loads the complete definitions of the tables with the given {@code names}, as {@link #findByName(String)} does
+     * for a single table, using the same number of round trips for all of them.
+     *
+     * @param names the names of the tables
+     * @return the tables that exist, in the order of the given names
+     */
+    List<ReferenceTable> findByNames(Collection<String> names);
+
+    /**
+     * Returns the names of all tables, without loading their definitions.
+     *
+     * @return the names of all tables, in alphabetical order
+     */
+    List<String> findAllNames();
+
 }
@@ -0,0 +1,37 @@
+package io.cyw.framework.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+/**
+ * Utility methods for {@link CompletableFuture}s.
+ */
+public abstract class FutureUtils {
+
+    private FutureUtils() {
+        // prevent instantiation
+    }
+
+    /**
+     * Cancels the given {@code source} when the given {@code dependent} is cancelled. A future derived from another
+     * one, for example through {@link CompletableFuture#whenComplete}, does not cancel the future it was derived from
+     * when it is cancelled itself, so that the work completing the source would continue without anybody waiting for
+     * its result.
+     *
+     * @param dependent the future of which the cancellation is propagated
+     * @param source    the future to cancel when {@code dependent} is cancelled
+     * @param <T>       the result type of the dependent future
+     * @return the given {@code dependent}, for fluent interfacing
+     */
+    public static <T> CompletableFuture<T> propagateCancellation(CompletableFuture<T> dependent, Future<?> source) {
+        if (dependent != source) {
+            dependent.whenComplete((result, failure) -> {
+                if (dependent.isCancelled()) {
+                    source.cancel(true);
+                }
+            });
+        }
+        return dependent;
+    }
+
+}